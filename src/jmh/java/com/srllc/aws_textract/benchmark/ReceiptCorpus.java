@@ -0,0 +1,151 @@
+package com.srllc.aws_textract.benchmark;
+
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Textract LINE lists used by the parser benchmarks.
+ * <ul>
+ *     <li>{@code anonymized-*}: real receipts with names and numbers replaced, stored one OCR line per
+ *     text line under {@code receipt-corpus/}.</li>
+ *     <li>{@code synthetic-N}: generated receipts with N line items, deterministic for a given N, with
+ *     line geometry and lines in row order.</li>
+ *     <li>{@code wide-N}: the same receipts laid out as a wide table, with the item columns returned one
+ *     after another as Textract does for widely spaced columns.</li>
+ * </ul>
+ */
+public final class ReceiptCorpus {
+
+    private static final String RESOURCE_DIR = "receipt-corpus/";
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final String WIDE_PREFIX = "wide-";
+    private static final float LINE_HEIGHT = 0.01f;
+    private static final float ROW_PITCH = 0.015f;
+
+    private static final String[] PRODUCTS = {
+            "Whole Milk 1L", "Brown Eggs 12pc", "Sourdough Loaf", "Bananas", "Cheddar Cheese 200g",
+            "Orange Juice", "Jasmine Rice 5kg", "Instant Noodles", "Canned Tuna", "Dish Soap",
+            "Paper Towels", "Ground Coffee", "Chicken Breast", "Tomato Sauce", "Peanut Butter"
+    };
+
+    private ReceiptCorpus() {
+    }
+
+    public static ExtractTextResponse load(String name) {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            return synthetic(Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length())), false);
+        }
+        if (name.startsWith(WIDE_PREFIX)) {
+            return synthetic(Integer.parseInt(name.substring(WIDE_PREFIX.length())), true);
+        }
+        return new ExtractTextResponse(resource(name));
+    }
+
+    private static List<String> resource(String name) {
+        String path = RESOURCE_DIR + name + ".txt";
+        try (InputStream in = ReceiptCorpus.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return List.copyOf(reader.lines().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ExtractTextResponse synthetic(int itemCount, boolean columnsInSequence) {
+        Random random = new Random(itemCount);
+        Layout layout = new Layout(random);
+
+        layout.row("Synthetic Mart");
+        layout.row("Quezon City Branch");
+        layout.row("Manager:", "Test Manager");
+        layout.row("Cashier:", "#" + (1 + random.nextInt(40)));
+        layout.row("Name", "Qty", "Price");
+
+        List<String[]> items = new ArrayList<>(itemCount);
+        long subTotalCents = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int quantity = 1 + random.nextInt(5);
+            long priceCents = 50 + random.nextInt(4950);
+            subTotalCents += priceCents;
+            items.add(new String[]{PRODUCTS[i % PRODUCTS.length] + " " + (i + 1), Integer.toString(quantity), money(priceCents)});
+        }
+        if (columnsInSequence) {
+            layout.columns(items);
+        } else {
+            items.forEach(layout::row);
+        }
+
+        long cashCents = ((subTotalCents / 10_000) + 1) * 10_000;
+        layout.row("Sub Total", money(subTotalCents));
+        layout.row("Cash", money(cashCents));
+        layout.row("Change", money(cashCents - subTotalCents));
+        layout.row("Thank you!");
+        return new ExtractTextResponse(
+                layout.lines.stream().map(LayoutLine::text).toList(), List.copyOf(layout.lines));
+    }
+
+    private static String money(long cents) {
+        return String.format(Locale.ROOT, "$%d.%02d", cents / 100, cents % 100);
+    }
+
+    /**
+     * Places cells in three columns, one row per call, with a little vertical jitter.
+     */
+    private static final class Layout {
+
+        private static final float[] COLUMNS = {0.05f, 0.6f, 0.8f};
+
+        private final Random random;
+        private final List<LayoutLine> lines = new ArrayList<>();
+        private int row;
+
+        private Layout(Random random) {
+            this.random = random;
+        }
+
+        void row(String... cells) {
+            float top = nextTop();
+            for (int c = 0; c < cells.length; c++) {
+                lines.add(cell(cells[c], c, top));
+            }
+        }
+
+        void columns(List<String[]> rows) {
+            float[] tops = new float[rows.size()];
+            for (int r = 0; r < tops.length; r++) {
+                tops[r] = nextTop();
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                for (int r = 0; r < tops.length; r++) {
+                    lines.add(cell(rows.get(r)[c], c, tops[r] + jitter()));
+                }
+            }
+        }
+
+        private float nextTop() {
+            return 0.02f + ROW_PITCH * row++;
+        }
+
+        private LayoutLine cell(String text, int column, float top) {
+            return new LayoutLine(text, 1, COLUMNS[column], top + jitter(), 0.1f, LINE_HEIGHT);
+        }
+
+        private float jitter() {
+            return (random.nextFloat() - 0.5f) * LINE_HEIGHT * 0.3f;
+        }
+    }
+}
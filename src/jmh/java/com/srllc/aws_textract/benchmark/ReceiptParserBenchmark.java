@@ -0,0 +1,59 @@
+package com.srllc.aws_textract.benchmark;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.parser.LayoutAwareReceiptParser;
+import com.srllc.aws_textract.domain.parser.LineSequenceReceiptParser;
+import com.srllc.aws_textract.domain.parser.ReceiptParser;
+import com.srllc.aws_textract.domain.parser.SinglePassReceiptParser;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one receipt's Textract lines into a {@link Receipt}. The anonymized corpora have
+ * no geometry, so the layout engine falls back to the single-pass engine on them. Reports throughput
+ * and sampled latency percentiles per corpus; run with {@code -prof gc} (the profile default)
+ * for allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class ReceiptParserBenchmark {
+
+    @Param({
+            "anonymized-grocery",
+            "anonymized-pharmacy",
+            "anonymized-restaurant",
+            "synthetic-10",
+            "synthetic-50",
+            "synthetic-200",
+            "wide-50"
+    })
+    public String corpus;
+
+    @Param({"line-sequence", "single-pass", "layout"})
+    public String engine;
+
+    private ExtractTextResponse document;
+    private ReceiptParser parser;
+
+    @Setup
+    public void setUp() {
+        document = ReceiptCorpus.load(corpus);
+        parser = switch (engine) {
+            case "line-sequence" -> new LineSequenceReceiptParser();
+            case "single-pass" -> new SinglePassReceiptParser();
+            case "layout" -> new LayoutAwareReceiptParser(new SinglePassReceiptParser());
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+    }
+
+    @Benchmark
+    public Receipt parse() {
+        return parser.parse(document);
+    }
+}
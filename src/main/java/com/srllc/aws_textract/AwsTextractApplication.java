@@ -2,8 +2,10 @@ package com.srllc.aws_textract;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AwsTextractApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,60 @@
+package com.srllc.aws_textract.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Records the heap bytes allocated by the request thread per endpoint, using the JVM's
+ * per-thread allocation counter. Work handed to other threads (async jobs, batch workers,
+ * the AWS SDK's own threads) is not included, so the numbers are a lower bound for those endpoints.
+ */
+@Component
+@ConditionalOnProperty(name = "metrics.allocation.enabled", havingValue = "true", matchIfMissing = true)
+public class AllocationMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public AllocationMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.threadMXBean = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (threadMXBean == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long after = threadMXBean.getCurrentThreadAllocatedBytes();
+            if (before >= 0 && after >= before) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder("http.server.requests.allocated")
+                        .description("Heap bytes allocated on the request thread")
+                        .baseUnit("bytes")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                        .register(meterRegistry)
+                        .record(after - before);
+            }
+        }
+    }
+}
@@ -1,14 +1,41 @@
 package com.srllc.aws_textract.config;
 
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsCallMetricsInterceptor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.textract.TextractAsyncClient;
+import software.amazon.awssdk.services.textract.TextractAsyncClientBuilder;
 import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.TextractClientBuilder;
 
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * AWS client wiring. All clients share one credentials provider and one connection pool
+ * per HTTP stack. Setting {@code aws.client.mode=async} additionally registers the
+ * non-blocking Netty based clients used by the asynchronous service methods. Textract and S3
+ * endpoints can be overridden to run against local stand-ins. Every client reports call
+ * latency and payload sizes through {@link AwsCallMetricsInterceptor}. Textract and Rekognition
+ * clients do not retry on their own; {@link AwsCallGuard} retries their calls instead.
+ */
 @Configuration
 public class AwsConfig {
 
@@ -21,7 +48,38 @@ public class AwsConfig {
     @Value("${aws.secretKey}")
     private String secretAccessKey;
 
-    private StaticCredentialsProvider credentialsProvider() {
+    @Value("${aws.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${aws.http.max-pending-acquires:1000}")
+    private int maxPendingAcquires;
+
+    @Value("${aws.http.connection-timeout-ms:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.http.connection-acquisition-timeout-ms:10000}")
+    private long connectionAcquisitionTimeoutMs;
+
+    @Value("${aws.http.socket-timeout-ms:30000}")
+    private long socketTimeoutMs;
+
+    @Value("${aws.http.connection-max-idle-ms:60000}")
+    private long connectionMaxIdleMs;
+
+    @Value("${aws.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Value("${aws.textract.endpoint:}")
+    private String textractEndpoint;
+
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${aws.s3.path-style-access:false}")
+    private boolean s3PathStyleAccess;
+
+    @Bean
+    public AwsCredentialsProvider awsCredentialsProvider() {
         AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
         return StaticCredentialsProvider.create(awsCredentials);
     }
@@ -31,18 +89,115 @@ public class AwsConfig {
     }
 
     @Bean
-    public TextractClient textractClient() {
-        return TextractClient.builder()
-                .region(awsRegion())
-                .credentialsProvider(credentialsProvider())
+    public SdkHttpClient awsHttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+                .tcpKeepAlive(tcpKeepAlive)
                 .build();
     }
 
     @Bean
-    public RekognitionClient rekognitionClient() {
+    public TextractClient textractClient(AwsCredentialsProvider awsCredentialsProvider, SdkHttpClient awsHttpClient,
+                                         AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        TextractClientBuilder builder = TextractClient.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(guarded(awsCallMetricsInterceptor));
+        if (!textractEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(textractEndpoint));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Used to stage multi-page documents for asynchronous Textract jobs. Point
+     * {@code aws.s3.endpoint} (with path-style access) at a local S3 stand-in for offline runs.
+     */
+    @Bean
+    public S3Client s3Client(AwsCredentialsProvider awsCredentialsProvider, SdkHttpClient awsHttpClient,
+                             AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(metrics(awsCallMetricsInterceptor))
+                .forcePathStyle(s3PathStyleAccess);
+        if (!s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public RekognitionClient rekognitionClient(AwsCredentialsProvider awsCredentialsProvider, SdkHttpClient awsHttpClient,
+                                               AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
         return RekognitionClient.builder()
                 .region(awsRegion())
-                .credentialsProvider(credentialsProvider())
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(guarded(awsCallMetricsInterceptor))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+    public SdkAsyncHttpClient awsAsyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .readTimeout(Duration.ofMillis(socketTimeoutMs))
+                .writeTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+                .tcpKeepAlive(tcpKeepAlive)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+    public TextractAsyncClient textractAsyncClient(AwsCredentialsProvider awsCredentialsProvider,
+                                                   SdkAsyncHttpClient awsAsyncHttpClient,
+                                                   AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        TextractAsyncClientBuilder builder = TextractAsyncClient.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsAsyncHttpClient)
+                .overrideConfiguration(guarded(awsCallMetricsInterceptor));
+        if (!textractEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(textractEndpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.client.mode", havingValue = "async")
+    public RekognitionAsyncClient rekognitionAsyncClient(AwsCredentialsProvider awsCredentialsProvider,
+                                                         SdkAsyncHttpClient awsAsyncHttpClient,
+                                                         AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        return RekognitionAsyncClient.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsAsyncHttpClient)
+                .overrideConfiguration(guarded(awsCallMetricsInterceptor))
+                .build();
+    }
+
+    private ClientOverrideConfiguration metrics(AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        return ClientOverrideConfiguration.builder()
+                .addExecutionInterceptor(awsCallMetricsInterceptor)
+                .build();
+    }
+
+    private ClientOverrideConfiguration guarded(AwsCallMetricsInterceptor awsCallMetricsInterceptor) {
+        return ClientOverrideConfiguration.builder()
+                .addExecutionInterceptor(awsCallMetricsInterceptor)
+                .retryStrategy(AwsRetryStrategy.doNotRetry())
                 .build();
     }
 }
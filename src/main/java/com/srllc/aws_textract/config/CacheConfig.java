@@ -0,0 +1,54 @@
+package com.srllc.aws_textract.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.srllc.aws_textract.domain.record.SerializedReceipt;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-memory tier of the AWS analysis result cache, and the cache of built receipts served by id
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${analysis.cache.memory.max-entries:1000}")
+    private long maxEntries;
+
+    @Value("${analysis.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${receipt.cache.max-entries:10000}")
+    private long receiptMaxEntries;
+
+    @Value("${receipt.cache.ttl-minutes:60}")
+    private long receiptTtlMinutes;
+
+    @Bean
+    public Cache<String, Object> analysisResultCache(MeterRegistry meterRegistry) {
+        Cache<String, Object> cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "analysisResults");
+    }
+
+    /**
+     * Receipts by id, serialized as returned by the API. Entries are shared between requests.
+     */
+    @Bean
+    public Cache<Long, SerializedReceipt> receiptCache(MeterRegistry meterRegistry) {
+        Cache<Long, SerializedReceipt> cache = Caffeine.newBuilder()
+                .maximumSize(receiptMaxEntries)
+                .expireAfterWrite(Duration.ofMinutes(receiptTtlMinutes))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "receipts");
+    }
+}
@@ -0,0 +1,94 @@
+package com.srllc.aws_textract.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for background receipt processing. The job executor is bounded: submissions
+ * beyond the queue capacity are rejected instead of piling up, and surface to clients as
+ * 429 Too Many Requests. With virtual threads enabled every task gets its own virtual
+ * thread, capped at the same total of running plus queued jobs; outbound AWS concurrency
+ * is limited separately.
+ */
+@Configuration
+public class ReceiptJobConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${receipt.jobs.core-pool-size:4}")
+    private int corePoolSize;
+
+    @Value("${receipt.jobs.max-pool-size:8}")
+    private int maxPoolSize;
+
+    @Value("${receipt.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${receipt.batch.threads:16}")
+    private int batchThreads;
+
+    @Value("${receipt.rollup.rebuild.parallelism:4}")
+    private int rollupRebuildParallelism;
+
+    @Bean
+    public AsyncTaskExecutor receiptJobExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("receipt-job-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxPoolSize + queueCapacity);
+            executor.setRejectTasksWhenLimitReached(true);
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("receipt-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Shared by all batch uploads. Each batch keeps at most {@code receipt.batch.parallelism}
+     * documents in flight, so the queue only ever holds a few entries per running batch.
+     */
+    @Bean
+    public AsyncTaskExecutor receiptBatchExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("receipt-batch-");
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchThreads);
+        executor.setMaxPoolSize(batchThreads);
+        executor.setThreadNamePrefix("receipt-batch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs the chunks of a rollup rebuild; its size is the number of chunks rebuilt at once.
+     */
+    @Bean
+    public AsyncTaskExecutor receiptRollupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(rollupRebuildParallelism);
+        executor.setMaxPoolSize(rollupRebuildParallelism);
+        executor.setThreadNamePrefix("receipt-rollup-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,43 @@
+package com.srllc.aws_textract.config;
+
+import com.srllc.aws_textract.domain.parser.InstrumentedReceiptParser;
+import com.srllc.aws_textract.domain.parser.LayoutAwareReceiptParser;
+import com.srllc.aws_textract.domain.parser.LineSequenceReceiptParser;
+import com.srllc.aws_textract.domain.parser.ReceiptParser;
+import com.srllc.aws_textract.domain.parser.SinglePassReceiptParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Selects the parser engine used for receipts via {@code receipt.parser.engine}:
+ * {@code single-pass} (default), {@code layout} (row grouping by line geometry) or the
+ * original {@code line-sequence} heuristics. All engines stay registered so they can be
+ * compared on the same input; the selected one is wrapped to record parse metrics.
+ */
+@Configuration
+@Slf4j
+public class ReceiptParserConfig {
+
+    @Value("${receipt.parser.engine:single-pass}")
+    private String engine;
+
+    @Bean
+    @Primary
+    public ReceiptParser receiptParser(LineSequenceReceiptParser lineSequenceReceiptParser,
+                                       SinglePassReceiptParser singlePassReceiptParser,
+                                       LayoutAwareReceiptParser layoutAwareReceiptParser,
+                                       MeterRegistry meterRegistry) {
+        ReceiptParser parser = switch (engine) {
+            case "single-pass" -> singlePassReceiptParser;
+            case "line-sequence" -> lineSequenceReceiptParser;
+            case "layout" -> layoutAwareReceiptParser;
+            default -> throw new IllegalStateException("Unknown receipt.parser.engine: " + engine);
+        };
+        log.info("Receipt parser engine: {}", engine);
+        return new InstrumentedReceiptParser(parser, engine, meterRegistry);
+    }
+}
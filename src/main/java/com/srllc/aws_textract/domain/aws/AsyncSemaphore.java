@@ -0,0 +1,69 @@
+package com.srllc.aws_textract.domain.aws;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A semaphore that asynchronous callers can wait on without parking a thread. {@link #acquireAsync}
+ * returns a future that completes once a permit is handed over, or fails when the wait times out.
+ * Every release hands the permit to the oldest waiting future first; synchronous callers still
+ * block in {@link #tryAcquire(long)}.
+ */
+final class AsyncSemaphore {
+
+    private final Semaphore semaphore;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    AsyncSemaphore(int permits) {
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    boolean tryAcquire(long timeoutMs) throws InterruptedException {
+        return semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Never blocks. The returned future fails with the supplied exception if no permit is handed
+     * over within {@code timeoutMs}; a permit handed over afterwards is passed on.
+     */
+    CompletableFuture<Void> acquireAsync(long timeoutMs, Supplier<? extends RuntimeException> onTimeout) {
+        if (waiters.isEmpty() && semaphore.tryAcquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (waiters.remove(waiter)) {
+                waiter.completeExceptionally(onTimeout.get());
+            }
+        });
+        handOver();
+        return waiter;
+    }
+
+    void release() {
+        semaphore.release();
+        handOver();
+    }
+
+    int availablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    private void handOver() {
+        while (!waiters.isEmpty() && semaphore.tryAcquire()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null) {
+                semaphore.release();
+                return;
+            }
+            if (!waiter.complete(null)) {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.srllc.aws_textract.domain.aws;
+
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import com.srllc.aws_textract.domain.exception.AwsThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer for Textract and Rekognition calls. Per {@link AwsOperation}, a call
+ * <ol>
+ *     <li>is rejected while the operation's circuit is open (503 with Retry-After),</li>
+ *     <li>takes a token from the operation's adaptive {@link TokenBucket}, waiting at most
+ *     {@code aws.resilience.rate-limit.max-wait-ms} for one (429 with Retry-After after that),</li>
+ *     <li>enters the operation's bulkhead and then the service-wide {@link AwsConcurrencyLimiter},
+ *     so a flood of one operation cannot take every slot of the service,</li>
+ *     <li>is retried with full-jitter exponential backoff when AWS throttles it or fails with a
+ *     server or network error. Other errors (bad documents, invalid parameters) are not retried
+ *     and do not count against the circuit.</li>
+ * </ol>
+ * The SDK's own retries are turned off for these clients, so every attempt passes through here.
+ * {@link #callAsync} goes through the same steps without blocking its caller: waits for a token,
+ * a bulkhead slot or a service slot are scheduled, and a caller that cannot be admitted gets a
+ * failed future.
+ */
+@Component
+@Slf4j
+public class AwsCallGuard {
+
+    private static final Set<String> THROTTLING_ERRORS = Set.of(
+            "ThrottlingException", "ProvisionedThroughputExceededException", "LimitExceededException");
+    private static final Set<String> SERVER_ERRORS = Set.of(
+            "InternalServerErrorException", "ServiceUnavailableException");
+
+    enum Failure {
+        THROTTLED, TRANSIENT, PERMANENT
+    }
+
+    private final AwsConcurrencyLimiter awsConcurrencyLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Map<AwsOperation, OperationState> operations = new EnumMap<>(AwsOperation.class);
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxRateWaitNanos;
+    private final long bulkheadWaitMs;
+
+    public AwsCallGuard(
+            AwsConcurrencyLimiter awsConcurrencyLimiter,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${aws.resilience.retry.max-attempts:4}") int maxAttempts,
+            @Value("${aws.resilience.retry.base-delay-ms:200}") long baseDelayMs,
+            @Value("${aws.resilience.retry.max-delay-ms:5000}") long maxDelayMs,
+            @Value("${aws.resilience.rate-limit.max-wait-ms:2000}") long maxRateWaitMs,
+            @Value("${aws.resilience.bulkhead.max-wait-ms:10000}") long bulkheadWaitMs,
+            @Value("${aws.resilience.circuit.failure-threshold:10}") int failureThreshold,
+            @Value("${aws.resilience.circuit.open-duration-ms:30000}") long openDurationMs) {
+        this.awsConcurrencyLimiter = awsConcurrencyLimiter;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRateWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxRateWaitMs);
+        this.bulkheadWaitMs = bulkheadWaitMs;
+
+        long now = System.nanoTime();
+        for (AwsOperation operation : AwsOperation.values()) {
+            String prefix = "aws.resilience." + operation.propertyKey() + ".";
+            double tps = environment.getProperty(prefix + "tps", Double.class, operation.defaultTps());
+            double burst = environment.getProperty(prefix + "burst", Double.class, Math.max(1, tps));
+            int maxInFlight = environment.getProperty(prefix + "max-in-flight", Integer.class, 10);
+            OperationState state = new OperationState(operation, new TokenBucket(tps, burst, now),
+                    new CircuitBreaker(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openDurationMs)),
+                    new AsyncSemaphore(maxInFlight));
+            operations.put(operation, state);
+            registerGauges(state);
+        }
+    }
+
+    public <T> T call(AwsOperation operation, Supplier<T> call) {
+        OperationState state = operations.get(operation);
+        for (int attempt = 1; ; attempt++) {
+            CircuitBreaker.Permit permit = admit(state);
+            RuntimeException failure;
+            AsyncSemaphore bulkhead = enterBulkhead(state, permit);
+            try {
+                T result = awsConcurrencyLimiter.call(operation.service(), call);
+                onSuccess(state, permit);
+                return result;
+            } catch (AwsCapacityExceededException e) {
+                state.circuit.release(permit);
+                throw e;
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                bulkhead.release();
+            }
+
+            long delayMs = nextDelay(state, permit, failure, attempt);
+            if (delayMs < 0) {
+                throw (RuntimeException) giveUp(state, failure);
+            }
+            sleep(TimeUnit.MILLISECONDS.toNanos(delayMs), operation);
+        }
+    }
+
+    /**
+     * Like {@link #call}, for calls returning a future, and without ever blocking the caller.
+     * Waiting for a token, a bulkhead slot or a service slot, and the backoff between retries,
+     * are scheduled instead; admission failures come back as a failed future.
+     */
+    public <T> CompletableFuture<T> callAsync(AwsOperation operation, Supplier<CompletableFuture<T>> call) {
+        return attemptAsync(operations.get(operation), call, 1);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(OperationState state, Supplier<CompletableFuture<T>> call,
+                                                  int attempt) {
+        long now = System.nanoTime();
+        CircuitBreaker.Permit permit;
+        long waitNanos;
+        try {
+            permit = acquirePermit(state, now);
+            waitNanos = reserveToken(state, permit, now);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Void> tokenReady = waitNanos > 0
+                ? CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS))
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<T> future = tokenReady
+                .thenCompose(ignored -> state.bulkhead.acquireAsync(bulkheadWaitMs, () -> bulkheadFull(state)))
+                .thenCompose(ignored -> {
+                    CompletableFuture<T> inFlight;
+                    try {
+                        inFlight = awsConcurrencyLimiter.callAsync(state.operation.service(), call);
+                    } catch (RuntimeException e) {
+                        state.bulkhead.release();
+                        throw e;
+                    }
+                    return inFlight.whenComplete((result, error) -> state.bulkhead.release());
+                });
+
+        return future.handle((result, error) -> {
+            if (error == null) {
+                onSuccess(state, permit);
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof AwsCapacityExceededException) {
+                // Never reached AWS
+                state.circuit.release(permit);
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            long delayMs = nextDelay(state, permit, cause, attempt);
+            if (delayMs < 0) {
+                return CompletableFuture.<T>failedFuture(giveUp(state, cause));
+            }
+            return CompletableFuture.runAsync(() -> { },
+                            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attemptAsync(state, call, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private CircuitBreaker.Permit admit(OperationState state) {
+        long now = System.nanoTime();
+        CircuitBreaker.Permit permit = acquirePermit(state, now);
+        long waitNanos = reserveToken(state, permit, now);
+        if (waitNanos > 0) {
+            try {
+                sleep(waitNanos, state.operation);
+            } catch (RuntimeException e) {
+                state.circuit.release(permit);
+                throw e;
+            }
+        }
+        return permit;
+    }
+
+    private CircuitBreaker.Permit acquirePermit(OperationState state, long now) {
+        CircuitBreaker.Permit permit = state.circuit.tryAcquire(now);
+        if (!permit.granted()) {
+            state.rejected("circuit_open").increment();
+            throw new AwsCapacityExceededException(state.operation.id() + " is failing, calls are paused. "
+                    + "Please retry later.", toRetryAfter(state.circuit.retryAfterNanos(now)));
+        }
+        return permit;
+    }
+
+    /**
+     * Takes a token and returns how long to wait before using it.
+     */
+    private long reserveToken(OperationState state, CircuitBreaker.Permit permit, long now) {
+        long waitNanos = state.bucket.reserve(now, maxRateWaitNanos);
+        if (waitNanos < 0) {
+            state.circuit.release(permit);
+            state.rejected("rate_limited").increment();
+            throw new AwsThrottledException("Too many " + state.operation.id() + " requests. Please retry later.",
+                    toRetryAfter(state.bucket.waitNanos(now)));
+        }
+        return waitNanos;
+    }
+
+    private AsyncSemaphore enterBulkhead(OperationState state, CircuitBreaker.Permit permit) {
+        boolean acquired;
+        try {
+            acquired = state.bulkhead.tryAcquire(bulkheadWaitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            state.circuit.release(permit);
+            throw bulkheadFull(state);
+        }
+        return state.bulkhead;
+    }
+
+    private AwsCapacityExceededException bulkheadFull(OperationState state) {
+        state.rejected("bulkhead_full").increment();
+        return new AwsCapacityExceededException(
+                "Too many concurrent " + state.operation.id() + " requests. Please retry later.");
+    }
+
+    private void onSuccess(OperationState state, CircuitBreaker.Permit permit) {
+        state.circuit.onSuccess(permit);
+        state.bucket.onSuccess(System.nanoTime());
+    }
+
+    /**
+     * Records a failed attempt and returns the backoff before the next one, or -1 to give up.
+     */
+    private long nextDelay(OperationState state, CircuitBreaker.Permit permit, Throwable error, int attempt) {
+        Failure failure = classify(error);
+        if (failure == Failure.PERMANENT) {
+            // AWS answered, so the service itself is healthy
+            state.circuit.onSuccess(permit);
+            return -1;
+        }
+
+        long now = System.nanoTime();
+        if (failure == Failure.THROTTLED) {
+            state.bucket.onThrottled(now);
+        }
+        if (state.circuit.onFailure(permit, now)) {
+            log.warn("Circuit for {} opened after {}: {}", state.operation.id(), error.getClass().getSimpleName(),
+                    error.getMessage());
+            return -1;
+        }
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+
+        state.retries(failure).increment();
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private Throwable giveUp(OperationState state, Throwable error) {
+        if (classify(error) == Failure.THROTTLED) {
+            return new AwsThrottledException("AWS is throttling " + state.operation.id() + " requests. "
+                    + "Please retry later.", Duration.ofMillis(maxDelayMs), error);
+        }
+        return error;
+    }
+
+    static Failure classify(Throwable error) {
+        if (error instanceof AwsServiceException e) {
+            String type = e.getClass().getSimpleName();
+            if (e.isThrottlingException() || THROTTLING_ERRORS.contains(type)) {
+                return Failure.THROTTLED;
+            }
+            return e.statusCode() >= 500 || SERVER_ERRORS.contains(type) ? Failure.TRANSIENT : Failure.PERMANENT;
+        }
+        if (error instanceof ApiCallAttemptTimeoutException
+                || (error instanceof SdkClientException && error.getCause() instanceof IOException)) {
+            return Failure.TRANSIENT;
+        }
+        return Failure.PERMANENT;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static Duration toRetryAfter(long nanos) {
+        return Duration.ofNanos(Math.max(nanos, TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private static void sleep(long nanos, AwsOperation operation) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AwsCapacityExceededException("Interrupted while waiting to call " + operation.id());
+        }
+    }
+
+    private void registerGauges(OperationState state) {
+        String operation = state.operation.id();
+        String service = state.operation.service().id();
+        Gauge.builder("aws.resilience.circuit.state", state.circuit, circuit -> circuit.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .tag("service", service)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Gauge.builder("aws.resilience.rate", state.bucket, TokenBucket::rate)
+                .description("Current client-side rate limit, lowered while AWS throttles")
+                .baseUnit("requests/s")
+                .tag("service", service)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Gauge.builder("aws.resilience.tokens", state.bucket, TokenBucket::tokens)
+                .description("Tokens left in the rate limiter bucket (negative while calls wait for one)")
+                .tag("service", service)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Gauge.builder("aws.resilience.bulkhead.available", state.bulkhead, AsyncSemaphore::availablePermits)
+                .description("Free slots for concurrent calls of the operation")
+                .tag("service", service)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private final class OperationState {
+
+        private final AwsOperation operation;
+        private final TokenBucket bucket;
+        private final CircuitBreaker circuit;
+        private final AsyncSemaphore bulkhead;
+
+        private OperationState(AwsOperation operation, TokenBucket bucket, CircuitBreaker circuit,
+                               AsyncSemaphore bulkhead) {
+            this.operation = operation;
+            this.bucket = bucket;
+            this.circuit = circuit;
+            this.bulkhead = bulkhead;
+        }
+
+        private Counter retries(Failure failure) {
+            return Counter.builder("aws.resilience.retries")
+                    .description("AWS call attempts retried after a throttling or transient failure")
+                    .tag("service", operation.service().id())
+                    .tag("operation", operation.id())
+                    .tag("reason", failure == Failure.THROTTLED ? "throttled" : "transient")
+                    .register(meterRegistry);
+        }
+
+        private Counter rejected(String reason) {
+            return Counter.builder("aws.resilience.rejected")
+                    .description("AWS calls rejected before reaching AWS")
+                    .tag("service", operation.service().id())
+                    .tag("operation", operation.id())
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.srllc.aws_textract.domain.aws;
+
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTrace;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTraces;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registered on every AWS client. Records per operation how long each call took, SDK retries
+ * included (Textract and Rekognition calls are retried by {@link AwsCallGuard} instead, so each
+ * of their attempts is recorded), and how many bytes went over the wire in each direction. Failed calls are tagged
+ * with the exception type (for example {@code ThrottlingException}).
+ */
+@Component
+@RequiredArgsConstructor
+public class AwsCallMetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("MetricsStartNanos");
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        Optional<Long> requestBytes = context.requestBody().flatMap(RequestBody::optionalContentLength)
+                .or(() -> context.asyncRequestBody().flatMap(AsyncRequestBody::contentLength));
+        requestBytes.ifPresent(bytes -> payload(executionAttributes, "request").record(bytes));
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        context.httpResponse().firstMatchingHeader("Content-Length")
+                .map(Long::parseLong)
+                .ifPresent(bytes -> payload(executionAttributes, "response").record(bytes));
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recordDuration(executionAttributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordDuration(executionAttributes, context.exception().getClass().getSimpleName());
+    }
+
+    private void recordDuration(ExecutionAttributes executionAttributes, String outcome) {
+        Long startNanos = executionAttributes.getAttribute(START_NANOS);
+        if (startNanos == null) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        String service = executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME);
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        Timer.builder("aws.call.duration")
+                .description("AWS API call latency including SDK retries, if the client retries")
+                .tag("service", service)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        // Only synchronous clients run this on the request thread
+        DiagnosticTrace trace = DiagnosticTraces.current();
+        if (trace != null) {
+            trace.event("aws.call", Map.of("service", service, "operation", operation, "outcome", outcome,
+                    "durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        }
+    }
+
+    private DistributionSummary payload(ExecutionAttributes executionAttributes, String direction) {
+        return DistributionSummary.builder("aws.call.payload")
+                .description("Bytes sent to or received from AWS per HTTP attempt")
+                .baseUnit("bytes")
+                .tag("service", executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME))
+                .tag("operation", executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME))
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
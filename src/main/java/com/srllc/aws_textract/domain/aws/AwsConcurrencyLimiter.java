@@ -0,0 +1,93 @@
+package com.srllc.aws_textract.domain.aws;
+
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent outbound calls per AWS service. With virtual threads
+ * enabled the request thread count is effectively unbounded, so this is what keeps a
+ * burst of uploads from turning into a burst of throttled AWS calls. Asynchronous calls wait
+ * for a slot without holding a thread.
+ */
+@Component
+@Slf4j
+public class AwsConcurrencyLimiter {
+
+    private final Map<AwsService, AsyncSemaphore> permits = new EnumMap<>(AwsService.class);
+    private final long acquireTimeoutMs;
+
+    public AwsConcurrencyLimiter(
+            @Value("${aws.concurrency.textract.max-in-flight:20}") int textractMaxInFlight,
+            @Value("${aws.concurrency.rekognition.max-in-flight:20}") int rekognitionMaxInFlight,
+            @Value("${aws.concurrency.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+            MeterRegistry meterRegistry) {
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        permits.put(AwsService.TEXTRACT, new AsyncSemaphore(textractMaxInFlight));
+        permits.put(AwsService.REKOGNITION, new AsyncSemaphore(rekognitionMaxInFlight));
+
+        permits.forEach((service, semaphore) -> Gauge.builder("aws.concurrency.available", semaphore,
+                        AsyncSemaphore::availablePermits)
+                .description("Free slots for concurrent outbound AWS calls")
+                .tag("service", service.id())
+                .register(meterRegistry));
+    }
+
+    public <T> T call(AwsService service, Supplier<T> call) {
+        AsyncSemaphore semaphore = acquire(service);
+        try {
+            return call.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Never blocks the calling thread: without a free slot the call is queued and started by
+     * whichever call frees one. Holds the slot until the returned future completes, which fails
+     * with {@link AwsCapacityExceededException} if no slot frees up within the acquire timeout.
+     */
+    public <T> CompletableFuture<T> callAsync(AwsService service, Supplier<CompletableFuture<T>> call) {
+        AsyncSemaphore semaphore = permits.get(service);
+        return semaphore.acquireAsync(acquireTimeoutMs, () -> noCapacity(service))
+                .thenCompose(ignored -> {
+                    CompletableFuture<T> future;
+                    try {
+                        future = call.get();
+                    } catch (RuntimeException e) {
+                        semaphore.release();
+                        throw e;
+                    }
+                    return future.whenComplete((result, error) -> semaphore.release());
+                });
+    }
+
+    private AsyncSemaphore acquire(AwsService service) {
+        AsyncSemaphore semaphore = permits.get(service);
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(acquireTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AwsCapacityExceededException("Interrupted while waiting for " + service.id() + " capacity");
+        }
+        if (!acquired) {
+            throw noCapacity(service);
+        }
+        return semaphore;
+    }
+
+    private AwsCapacityExceededException noCapacity(AwsService service) {
+        log.warn("No {} capacity within {} ms", service.id(), acquireTimeoutMs);
+        return new AwsCapacityExceededException(
+                "Too many concurrent " + service.id() + " requests. Please retry later.");
+    }
+}
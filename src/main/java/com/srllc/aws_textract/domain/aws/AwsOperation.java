@@ -0,0 +1,49 @@
+package com.srllc.aws_textract.domain.aws;
+
+import java.util.Locale;
+
+/**
+ * AWS API operations called by the application, each with its own rate limit, circuit breaker
+ * and bulkhead in {@link AwsCallGuard}. The default rates (transactions per second) are
+ * conservative; set {@code aws.resilience.<operation>.tps} to the account's quota.
+ */
+public enum AwsOperation {
+    DETECT_DOCUMENT_TEXT(AwsService.TEXTRACT, "DetectDocumentText", 10),
+    ANALYZE_EXPENSE(AwsService.TEXTRACT, "AnalyzeExpense", 5),
+    START_DOCUMENT_TEXT_DETECTION(AwsService.TEXTRACT, "StartDocumentTextDetection", 10),
+    GET_DOCUMENT_TEXT_DETECTION(AwsService.TEXTRACT, "GetDocumentTextDetection", 10),
+    DETECT_LABELS(AwsService.REKOGNITION, "DetectLabels", 5),
+    RECOGNIZE_CELEBRITIES(AwsService.REKOGNITION, "RecognizeCelebrities", 5);
+
+    private final AwsService service;
+    private final String id;
+    private final double defaultTps;
+
+    AwsOperation(AwsService service, String id, double defaultTps) {
+        this.service = service;
+        this.id = id;
+        this.defaultTps = defaultTps;
+    }
+
+    public AwsService service() {
+        return service;
+    }
+
+    /**
+     * The AWS operation name, as used in the {@code operation} tag of {@code aws.call.duration}.
+     */
+    public String id() {
+        return id;
+    }
+
+    public double defaultTps() {
+        return defaultTps;
+    }
+
+    /**
+     * Key of the operation's settings below {@code aws.resilience}, e.g. {@code detect-document-text}.
+     */
+    public String propertyKey() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
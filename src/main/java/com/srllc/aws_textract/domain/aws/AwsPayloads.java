@@ -0,0 +1,24 @@
+package com.srllc.aws_textract.domain.aws;
+
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Request payload helpers. The SDK needs a heap array for JSON marshalling, so
+ * {@link SdkBytes#fromByteBuffer} always copies; a buffer that wraps a whole array is handed
+ * over without that copy.
+ */
+public final class AwsPayloads {
+
+    private AwsPayloads() {
+    }
+
+    public static SdkBytes toSdkBytes(ByteBuffer content) {
+        if (content.hasArray() && content.arrayOffset() == 0 && content.position() == 0
+                && content.remaining() == content.array().length) {
+            return SdkBytes.fromByteArrayUnsafe(content.array());
+        }
+        return SdkBytes.fromByteBuffer(content.duplicate());
+    }
+}
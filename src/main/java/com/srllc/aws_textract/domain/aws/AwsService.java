@@ -0,0 +1,16 @@
+package com.srllc.aws_textract.domain.aws;
+
+public enum AwsService {
+    TEXTRACT("textract"),
+    REKOGNITION("rekognition");
+
+    private final String id;
+
+    AwsService(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+}
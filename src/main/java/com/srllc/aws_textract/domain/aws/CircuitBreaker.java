@@ -0,0 +1,92 @@
+package com.srllc.aws_textract.domain.aws;
+
+/**
+ * Opens after a run of consecutive failed calls and rejects calls while open. Once the open
+ * duration has passed, a single trial call is let through (half-open): its success closes the
+ * circuit, its failure opens it again. Only the holder of the {@link Permit#TRIAL} permit can
+ * end the trial, so calls admitted while the circuit was closed never let a second probe through.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    enum Permit {
+        REJECTED, CLOSED, TRIAL;
+
+        boolean granted() {
+            return this != REJECTED;
+        }
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    synchronized Permit tryAcquire(long now) {
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return Permit.CLOSED;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return Permit.TRIAL;
+        }
+        return Permit.REJECTED;
+    }
+
+    /**
+     * Gives back a permit whose call never reached AWS.
+     */
+    synchronized void release(Permit permit) {
+        endTrial(permit);
+    }
+
+    synchronized void onSuccess(Permit permit) {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        endTrial(permit);
+    }
+
+    /**
+     * Returns whether this failure opened the circuit.
+     */
+    synchronized boolean onFailure(Permit permit, long now) {
+        consecutiveFailures++;
+        endTrial(permit);
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = now;
+            return true;
+        }
+        return false;
+    }
+
+    private void endTrial(Permit permit) {
+        if (permit == Permit.TRIAL) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Time until the next trial call may be let through.
+     */
+    synchronized long retryAfterNanos(long now) {
+        return state == State.OPEN ? Math.max(0, openedAt + openNanos - now) : 0;
+    }
+}
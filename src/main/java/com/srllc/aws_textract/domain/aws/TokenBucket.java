@@ -0,0 +1,74 @@
+package com.srllc.aws_textract.domain.aws;
+
+/**
+ * Client-side rate limiter. Tokens refill continuously at the current rate up to the burst size,
+ * and a call may reserve a token that is not there yet and wait for it. The rate is adaptive:
+ * each throttling response from AWS cuts it by 30% (down to a tenth of the configured rate), and
+ * each successful call wins back 5% of the configured rate.
+ */
+final class TokenBucket {
+
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final double INCREASE_STEP = 0.05;
+    private static final double MIN_RATE_FACTOR = 0.1;
+
+    private final double configuredRate;
+    private final double burst;
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, double burst, long now) {
+        this.configuredRate = permitsPerSecond;
+        this.burst = burst;
+        this.rate = permitsPerSecond;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Reserves a token and returns how long to wait for it, or -1 without reserving anything
+     * when that would take longer than {@code maxWaitNanos}.
+     */
+    synchronized long reserve(long now, long maxWaitNanos) {
+        long wait = waitNanos(now);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    synchronized long waitNanos(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * 1e9 / rate);
+    }
+
+    synchronized void onThrottled(long now) {
+        refill(now);
+        rate = Math.max(configuredRate * MIN_RATE_FACTOR, rate * DECREASE_FACTOR);
+    }
+
+    synchronized void onSuccess(long now) {
+        if (rate < configuredRate) {
+            refill(now);
+            rate = Math.min(configuredRate, rate + configuredRate * INCREASE_STEP);
+        }
+    }
+
+    synchronized double rate() {
+        return rate;
+    }
+
+    synchronized double tokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+        }
+    }
+}
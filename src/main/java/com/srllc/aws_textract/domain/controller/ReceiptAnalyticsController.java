@@ -0,0 +1,99 @@
+package com.srllc.aws_textract.domain.controller;
+
+import com.srllc.aws_textract.domain.dto.CashierThroughputDTO;
+import com.srllc.aws_textract.domain.dto.ProductRanking;
+import com.srllc.aws_textract.domain.dto.ProductSalesDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsGrouping;
+import com.srllc.aws_textract.domain.dto.RollupRebuildDTO;
+import com.srllc.aws_textract.domain.service.ReceiptAnalyticsService;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/textract/receipts/analytics")
+@Tag(name = "Receipt Analytics Controller", description = "Aggregates over stored receipts")
+@RequiredArgsConstructor
+public class ReceiptAnalyticsController {
+
+    private final ReceiptAnalyticsService receiptAnalyticsService;
+    private final ReceiptRollupService receiptRollupService;
+
+    @GetMapping("/totals")
+    @Operation(summary = "Receipt count and subtotal per company, branch or day")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Totals computed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid grouping or time window"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<List<ReceiptTotalsDTO>> getTotals(
+            @Parameter(description = "Grouping: COMPANY, BRANCH (company and branch) or DAY")
+            @RequestParam(defaultValue = "COMPANY") ReceiptTotalsGrouping groupBy,
+            @Parameter(description = "Only receipts saved at or after this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Only receipts saved before this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return ResponseEntity.ok(receiptAnalyticsService.getTotals(groupBy, from, to));
+    }
+
+    @GetMapping("/top-products")
+    @Operation(summary = "Best-selling products by quantity or revenue")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Top products computed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ranking, limit or time window"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<List<ProductSalesDTO>> getTopProducts(
+            @Parameter(description = "Ranking: QUANTITY or REVENUE")
+            @RequestParam(defaultValue = "REVENUE") ProductRanking by,
+            @Parameter(description = "Number of products (defaults to receipt.analytics.top-products.default-limit)")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Only receipts saved at or after this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Only receipts saved before this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return ResponseEntity.ok(receiptAnalyticsService.getTopProducts(by, limit, from, to));
+    }
+
+    @GetMapping("/cashiers")
+    @Operation(summary = "Receipts, items and subtotal handled per cashier")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Cashier throughput computed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid time window"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<List<CashierThroughputDTO>> getCashierThroughput(
+            @Parameter(description = "Exact company name")
+            @RequestParam(required = false) String companyName,
+            @Parameter(description = "Only receipts saved at or after this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Only receipts saved before this instant (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return ResponseEntity.ok(receiptAnalyticsService.getCashierThroughput(companyName, from, to));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Recompute the hourly and daily rollups from the stored receipts")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rollups rebuilt successfully"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<RollupRebuildDTO> rebuildRollups() {
+        return ResponseEntity.ok(receiptRollupService.rebuild());
+    }
+}
@@ -1,20 +1,44 @@
 package com.srllc.aws_textract.domain.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
 import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptExportFormat;
+import com.srllc.aws_textract.domain.dto.ReceiptJobDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptPageDTO;
 import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import com.srllc.aws_textract.domain.record.SerializedReceipt;
+import com.srllc.aws_textract.domain.record.SerializedReceiptPage;
+import com.srllc.aws_textract.domain.service.ReceiptBatchService;
+import com.srllc.aws_textract.domain.service.ReceiptDocumentService;
+import com.srllc.aws_textract.domain.service.ReceiptExportService;
+import com.srllc.aws_textract.domain.service.ReceiptJobService;
 import com.srllc.aws_textract.domain.service.TextractService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("api/v1/textract")
@@ -23,18 +47,28 @@ import java.util.List;
 public class TextractController {
 
     private final TextractService textractService;
+    private final ReceiptJobService receiptJobService;
+    private final ReceiptBatchService receiptBatchService;
+    private final ReceiptDocumentService receiptDocumentService;
+    private final ReceiptExportService receiptExportService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * With {@code aws.client.mode=async} the future completes once Textract answers; otherwise the
+     * text is extracted on the request thread and the future is already completed.
+     */
     @PostMapping(value = "/extract", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Extract raw text from an uploaded image or document")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Text extracted successfully"),
+            @ApiResponse(responseCode = "200", description = "Text extracted successfully",
+                    content = @Content(schema = @Schema(implementation = ExtractTextResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid file or request"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<ExtractTextResponse> extractText(
+    public CompletableFuture<ResponseEntity<ExtractTextResponse>> extractText(
             @Parameter(description = "Input file to extract text from", required = true)
             @RequestPart("file") MultipartFile file) {
-        return ResponseEntity.ok(textractService.extractTextFromImage(file));
+        return textractService.extractTextFromImageAsync(file).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping(value = "/receipts/process", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -42,6 +76,7 @@ public class TextractController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Receipt processed and saved successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid file or parsing error"),
+            @ApiResponse(responseCode = "422", description = "Image holds several receipts; use /receipts/process-all"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
     public ResponseEntity<ReceiptDTO> processReceipt(
@@ -50,26 +85,168 @@ public class TextractController {
         return ResponseEntity.ok(textractService.processAndSaveReceipt(file));
     }
 
-    @GetMapping("/receipts")
-    @Operation(summary = "Get all stored receipts")
+    @PostMapping(value = "/receipts/process-all", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Process an image holding one or more receipts and save each as its own receipt")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Receipts retrieved successfully"),
+            @ApiResponse(responseCode = "200", description = "Receipts processed and saved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid file or parsing error"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<List<ReceiptDTO>> processReceipts(
+            @Parameter(description = "Image with one or more receipts (PNG, JPG, PDF)", required = true)
+            @RequestPart("file") MultipartFile file) {
+        return ResponseEntity.ok(textractService.processAndSaveReceipts(file));
+    }
+
+    @PostMapping(value = "/receipts/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Submit receipt image for asynchronous processing")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Receipt job accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid file or request"),
+            @ApiResponse(responseCode = "429", description = "Processing queue is full"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<ReceiptJobDTO> submitReceiptJob(
+            @Parameter(description = "Receipt image file (PNG, JPG, PDF)", required = true)
+            @RequestPart("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(receiptJobService.submitReceipt(file));
+    }
+
+    @PostMapping(value = "/receipts/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Process a batch of receipt images and zip archives, streaming one JSON result per file")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch accepted; per-file results are streamed as NDJSON"),
+            @ApiResponse(responseCode = "400", description = "Invalid files or request"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<List<ReceiptDTO>> getAllReceipts() {
-        return ResponseEntity.ok(textractService.getAllReceipts());
+    public ResponseEntity<StreamingResponseBody> processReceiptBatch(
+            @Parameter(description = "Receipt image files and/or zip archives of receipt images", required = true)
+            @RequestPart("files") List<MultipartFile> files) {
+        StreamingResponseBody body = outputStream ->
+                receiptBatchService.processBatch(files, result -> writeLine(outputStream, result));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
-    @GetMapping("/receipts/{id}")
+    @PostMapping(value = "/receipts/document", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Process a multi-page document through an S3-staged Textract job, streaming one JSON result per page")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Document accepted; per-page results are streamed as NDJSON"),
+            @ApiResponse(responseCode = "400", description = "Invalid file or request"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<StreamingResponseBody> processReceiptDocument(
+            @Parameter(description = "Multi-page PDF or TIFF with one receipt per page", required = true)
+            @RequestPart("file") MultipartFile file) {
+        StreamingResponseBody body = outputStream ->
+                receiptDocumentService.processDocument(file, result -> writeLine(outputStream, result));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/receipts/jobs/{jobId}")
+    @Operation(summary = "Get status and result of an asynchronous receipt job")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Receipt job found"),
+            @ApiResponse(responseCode = "404", description = "Receipt job not found"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<ReceiptJobDTO> getReceiptJob(
+            @Parameter(description = "Receipt job ID", required = true)
+            @PathVariable String jobId) {
+        return ResponseEntity.ok(receiptJobService.getJob(jobId));
+    }
+
+    /**
+     * Writes the page from the receipts' stored JSON. Answers 304 when If-None-Match holds the page's ETag.
+     */
+    @GetMapping(value = "/receipts", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "List stored receipts page by page, ordered by ID")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Receipts retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ReceiptPageDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or filter"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<byte[]> getReceipts(
+            @Parameter(description = "Cursor: return receipts with an ID greater than this (nextCursor of the previous page)")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Page size (defaults to receipt.page.default-size)")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Exact company name")
+            @RequestParam(required = false) String companyName,
+            @Parameter(description = "Exact branch")
+            @RequestParam(required = false) String branch,
+            @Parameter(description = "Minimum subtotal (inclusive)")
+            @RequestParam(required = false) BigDecimal minSubTotal,
+            @Parameter(description = "Maximum subtotal (inclusive)")
+            @RequestParam(required = false) BigDecimal maxSubTotal,
+            WebRequest request) {
+        ReceiptSearchCriteria criteria = new ReceiptSearchCriteria(companyName, branch, minSubTotal, maxSubTotal);
+        SerializedReceiptPage page = textractService.getSerializedReceipts(criteria, afterId, size);
+        String etag = page.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(page.toJson());
+    }
+
+    @GetMapping("/receipts/export")
+    @Operation(summary = "Stream every stored receipt with its items as NDJSON or CSV")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown export format"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<StreamingResponseBody> exportReceipts(
+            @Parameter(description = "Export format: NDJSON (one receipt per line) or CSV (one item per row)")
+            @RequestParam(defaultValue = "NDJSON") ReceiptExportFormat format) {
+        MediaType contentType = format == ReceiptExportFormat.CSV
+                ? new MediaType("text", "csv")
+                : MediaType.APPLICATION_NDJSON;
+        String fileName = "receipts." + format.name().toLowerCase();
+        StreamingResponseBody body = outputStream -> receiptExportService.exportReceipts(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Writes the receipt's stored JSON. Answers 304 when If-None-Match holds the receipt's ETag.
+     */
+    @GetMapping(value = "/receipts/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get receipt by ID")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Receipt found"),
+            @ApiResponse(responseCode = "200", description = "Receipt found",
+                    content = @Content(schema = @Schema(implementation = ReceiptDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Receipt unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Receipt not found"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<ReceiptDTO> getReceiptById(
+    public ResponseEntity<byte[]> getReceiptById(
             @Parameter(description = "Receipt ID", required = true)
-            @PathVariable Long id) {
-        return ResponseEntity.ok(textractService.getReceiptById(id));
+            @PathVariable Long id,
+            WebRequest request) {
+        SerializedReceipt receipt = textractService.getSerializedReceipt(id);
+        if (request.checkNotModified(receipt.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(receipt.etag()).contentType(MediaType.APPLICATION_JSON).body(receipt.json());
+    }
+
+    private void writeLine(OutputStream outputStream, ReceiptBatchItemDTO result) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(result));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
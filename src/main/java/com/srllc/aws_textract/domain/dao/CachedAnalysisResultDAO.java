@@ -0,0 +1,19 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.CachedAnalysisResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CachedAnalysisResultDAO extends JpaRepository<CachedAnalysisResult, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from CachedAnalysisResult c where c.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -2,8 +2,26 @@ package com.srllc.aws_textract.domain.dao;
 
 import com.srllc.aws_textract.domain.entity.Receipt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface ReceiptDAO extends JpaRepository<Receipt, Long> {
-}
\ No newline at end of file
+public interface ReceiptDAO extends JpaRepository<Receipt, Long>, JpaSpecificationExecutor<Receipt> {
+
+    @Query("select min(r.id), max(r.id) from Receipt r")
+    List<Object[]> findIdRange();
+
+    /**
+     * Receipts in {@code [fromId, toId)}, leaving out those still in the rollup outbox; the outbox
+     * consumer adds them.
+     */
+    @Query("""
+            select r from Receipt r
+            where r.id >= :fromId and r.id < :toId
+              and not exists (select o.id from ReceiptRollupOutbox o where o.receiptId = r.id)
+            order by r.id""")
+    List<Receipt> findRollupChunk(long fromId, long toId);
+}
@@ -0,0 +1,23 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.ReceiptJob;
+import com.srllc.aws_textract.domain.entity.ReceiptJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ReceiptJobDAO extends JpaRepository<ReceiptJob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("update ReceiptJob j set j.status = :status, j.errorMessage = :errorMessage, j.updatedAt = :now " +
+            "where j.status in :unfinished and (j.owner = :owner or j.updatedAt < :staleBefore)")
+    int failUnfinished(Collection<ReceiptJobStatus> unfinished, String owner, LocalDateTime staleBefore,
+                       ReceiptJobStatus status, String errorMessage, LocalDateTime now);
+}
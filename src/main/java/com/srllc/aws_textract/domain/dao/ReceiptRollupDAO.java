@@ -0,0 +1,19 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.ReceiptRollup;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReceiptRollupDAO extends JpaRepository<ReceiptRollup, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReceiptRollup> findByGranularityAndBucketStartIn(RollupGranularity granularity, Collection<Instant> bucketStarts);
+}
@@ -0,0 +1,14 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.ReceiptRollupOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReceiptRollupOutboxDAO extends JpaRepository<ReceiptRollupOutbox, Long> {
+
+    List<ReceiptRollupOutbox> findByOrderByIdAsc(Limit limit);
+}
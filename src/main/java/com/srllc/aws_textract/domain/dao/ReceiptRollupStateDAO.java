@@ -0,0 +1,9 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.ReceiptRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReceiptRollupStateDAO extends JpaRepository<ReceiptRollupState, Integer> {
+}
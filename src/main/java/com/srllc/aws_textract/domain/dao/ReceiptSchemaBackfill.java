@@ -0,0 +1,179 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fills columns that {@code ddl-auto=update} added to existing tables from the data the rows
+ * already hold. Runs once the schema is up to date and before requests are served. Every step
+ * only touches rows it has not filled yet, so on later startups, and on databases created after
+ * the change, it finds nothing to do.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptSchemaBackfill implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Value("${receipt.schema.backfill.enabled:true}")
+    private boolean enabled;
+
+    // The zone receipt job times were recorded in
+    ZoneId zone = ZoneId.systemDefault();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        run("amounts", this::backfillAmounts);
+        run("creation times", this::backfillCreatedAt);
+    }
+
+    private void run(String columns, Runnable step) {
+        try {
+            step.run();
+        } catch (DataAccessException e) {
+            log.error("Could not backfill receipt {}: {}", columns, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Amounts moved from {@code DOUBLE} columns to whole cents. Rows saved before that only have
+     * the former columns, which are copied over rounded to cents, and no currency, which was
+     * always dollars.
+     */
+    void backfillAmounts() {
+        int receipts = 0;
+        if (hasColumns("receipts", "sub_total", "cash", "change_amount")) {
+            receipts = jdbcTemplate.update("""
+                    UPDATE receipts
+                    SET sub_total_minor = ROUND(sub_total * 100), cash_minor = ROUND(cash * 100),
+                        change_amount_minor = ROUND(change_amount * 100)
+                    WHERE sub_total_minor IS NULL AND cash_minor IS NULL AND change_amount_minor IS NULL
+                      AND (sub_total IS NOT NULL OR cash IS NOT NULL OR change_amount IS NOT NULL)
+                    """);
+        }
+        int items = 0;
+        if (hasColumns("receipt_items", "price")) {
+            items = jdbcTemplate.update(
+                    "UPDATE receipt_items SET price_minor = ROUND(price * 100) WHERE price_minor IS NULL AND price IS NOT NULL");
+        }
+        int currencies = jdbcTemplate.update("UPDATE receipts SET currency = ? WHERE currency IS NULL",
+                Receipt.DEFAULT_CURRENCY);
+        if (receipts > 0 || items > 0 || currencies > 0) {
+            log.info("Backfilled amounts in cents for {} receipts and {} items, currency for {} receipts",
+                    receipts, items, currencies);
+            invalidateRollups();
+        }
+    }
+
+    /**
+     * Receipts saved before {@code created_at} existed have none. Those saved by a receipt job get
+     * the time the job finished, which is when it saved them. Job times are wall-clock times of
+     * the application's time zone while {@code created_at} is an instant, so each time is
+     * converted before it is written. Other receipts keep no creation time and are reported
+     * without a day.
+     */
+    void backfillCreatedAt() {
+        List<Object[]> updates = new ArrayList<>(BACKFILL_BATCH_SIZE);
+        int[] receipts = {0};
+        jdbcTemplate.query("""
+                SELECT r.id,
+                       (SELECT MIN(j.updated_at) FROM receipt_jobs j
+                        WHERE j.receipt_id = r.id
+                           OR j.id IN (SELECT jr.job_id FROM receipt_job_receipts jr WHERE jr.receipt_id = r.id))
+                       AS finished_at
+                FROM receipts r
+                WHERE r.created_at IS NULL
+                  AND EXISTS (SELECT 1 FROM receipt_jobs j
+                              WHERE j.receipt_id = r.id
+                                 OR j.id IN (SELECT jr.job_id FROM receipt_job_receipts jr WHERE jr.receipt_id = r.id))
+                """, (RowCallbackHandler) rs -> {
+            LocalDateTime finishedAt = rs.getObject("finished_at", LocalDateTime.class);
+            if (finishedAt == null) {
+                return;
+            }
+            updates.add(new Object[]{Timestamp.from(finishedAt.atZone(zone).toInstant()), rs.getLong("id")});
+            if (updates.size() == BACKFILL_BATCH_SIZE) {
+                receipts[0] += updateCreatedAt(updates);
+            }
+        });
+        receipts[0] += updateCreatedAt(updates);
+        if (receipts[0] > 0) {
+            log.info("Backfilled creation times of {} receipts from their receipt jobs", receipts[0]);
+            invalidateRollups();
+        }
+    }
+
+    private int updateCreatedAt(List<Object[]> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(
+                "UPDATE receipts SET created_at = ? WHERE id = ? AND created_at IS NULL", updates)) {
+            updated += Math.max(count, 0);
+        }
+        updates.clear();
+        return updated;
+    }
+
+    /**
+     * The rollups were computed from the values just changed, so they are no longer read until a
+     * rebuild has recomputed them.
+     */
+    private void invalidateRollups() {
+        if (jdbcTemplate.update("DELETE FROM receipt_rollup_state") > 0) {
+            log.warn("Receipt rollups are out of date after the backfill; analytics read the receipts until a rebuild");
+        }
+    }
+
+    private boolean hasColumns(String table, String... columns) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String column : columns) {
+                if (!hasColumn(metaData, connection.getCatalog(), connection.getSchema(), table, column)) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+    }
+
+    // Identifiers are stored lower case by MySQL and upper case by H2
+    private static boolean hasColumn(DatabaseMetaData metaData, String catalog, String schema, String table,
+                                     String column) throws SQLException {
+        String[][] candidates = {{table, column},
+                {table.toUpperCase(Locale.ROOT), column.toUpperCase(Locale.ROOT)}};
+        for (String[] candidate : candidates) {
+            try (ResultSet columns = metaData.getColumns(catalog, schema, candidate[0], candidate[1])) {
+                if (columns.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
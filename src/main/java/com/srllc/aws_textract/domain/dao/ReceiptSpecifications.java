@@ -0,0 +1,42 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query predicates for receipt listing. Only the filters that are set end up in the
+ * WHERE clause, so the database can use the matching index for each combination.
+ */
+public final class ReceiptSpecifications {
+
+    private ReceiptSpecifications() {
+    }
+
+    public static Specification<Receipt> keysetPage(Long afterId, ReceiptSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (afterId != null) {
+                predicates.add(cb.greaterThan(root.get("id"), afterId));
+            }
+            if (criteria.companyName() != null) {
+                predicates.add(cb.equal(root.get("companyName"), criteria.companyName()));
+            }
+            if (criteria.branch() != null) {
+                predicates.add(cb.equal(root.get("branch"), criteria.branch()));
+            }
+            if (criteria.minSubTotal() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("subTotal"), Money.of(criteria.minSubTotal())));
+            }
+            if (criteria.maxSubTotal() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("subTotal"), Money.of(criteria.maxSubTotal())));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
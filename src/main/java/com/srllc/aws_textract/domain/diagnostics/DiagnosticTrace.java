@@ -0,0 +1,53 @@
+package com.srllc.aws_textract.domain.diagnostics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured diagnostic record of one sampled request: what came in and the events its stages
+ * reported, each with its offset from the start of the request. Events hold raw values; nothing
+ * is formatted until the writer serializes the finished trace.
+ */
+public final class DiagnosticTrace {
+
+    private final String traceId = UUID.randomUUID().toString();
+    private final String startedAt = Instant.now().toString();
+    private final long startNanos = System.nanoTime();
+    private final String method;
+    private final String uri;
+    private final String trigger;
+    private final List<Event> events = new ArrayList<>();
+
+    DiagnosticTrace(String method, String uri, String trigger) {
+        this.method = method;
+        this.uri = uri;
+        this.trigger = trigger;
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public synchronized void event(String name, Map<String, ?> fields) {
+        events.add(new Event(name, elapsedMillis(), fields));
+    }
+
+    synchronized Record finish(int status) {
+        return new Record(traceId, startedAt, method, uri, trigger, status, elapsedMillis(), List.copyOf(events));
+    }
+
+    private double elapsedMillis() {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record Event(String name, double atMs, Map<String, ?> fields) {
+    }
+
+    public record Record(String traceId, String startedAt, String method, String uri, String trigger,
+                         int status, double durationMs, List<Event> events) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.srllc.aws_textract.domain.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts a {@link DiagnosticTrace} for a sampled share of requests ({@code diagnostics.trace.sample-rate},
+ * 0 to 1) or when the client sends {@code X-Diagnostic-Trace: true}. The trace id is returned in the
+ * {@code X-Diagnostic-Trace-Id} response header and the record is handed to the writer when the
+ * request thread is done.
+ */
+@Component
+public class DiagnosticTraceFilter extends OncePerRequestFilter {
+
+    static final String TRACE_HEADER = "X-Diagnostic-Trace";
+    static final String TRACE_ID_HEADER = "X-Diagnostic-Trace-Id";
+
+    private final DiagnosticTraceWriter writer;
+    private final double sampleRate;
+    private final boolean headerEnabled;
+
+    public DiagnosticTraceFilter(DiagnosticTraceWriter writer,
+                                 @Value("${diagnostics.trace.sample-rate:0}") double sampleRate,
+                                 @Value("${diagnostics.trace.header-enabled:true}") boolean headerEnabled) {
+        this.writer = writer;
+        this.sampleRate = sampleRate;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String trigger = trigger(request);
+        if (trigger == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        DiagnosticTrace trace = new DiagnosticTrace(request.getMethod(), request.getRequestURI(), trigger);
+        response.setHeader(TRACE_ID_HEADER, trace.traceId());
+        DiagnosticTraces.set(trace);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DiagnosticTraces.clear();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                trace.event("handler", Map.of("uri", pattern.toString()));
+            }
+            writer.submit(trace.finish(response.getStatus()));
+        }
+    }
+
+    private String trigger(HttpServletRequest request) {
+        if (headerEnabled && "true".equalsIgnoreCase(request.getHeader(TRACE_HEADER))) {
+            return "header";
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return "sampled";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.srllc.aws_textract.domain.diagnostics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Serializes finished traces to JSON on a background thread and writes one line per trace to
+ * the {@code diagnostics.trace} logger, so request threads never format or write them. When
+ * the queue is full new traces are dropped rather than slowing requests down.
+ */
+@Component
+@Slf4j
+public class DiagnosticTraceWriter {
+
+    private final BlockingQueue<DiagnosticTrace.Record> queue;
+    private final ObjectMapper objectMapper;
+    private final Consumer<String> sink;
+    private final Counter written;
+    private final Counter dropped;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    @Autowired
+    public DiagnosticTraceWriter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${diagnostics.trace.queue-capacity:1000}") int queueCapacity) {
+        this(objectMapper, meterRegistry, queueCapacity, LoggerFactory.getLogger("diagnostics.trace")::info);
+    }
+
+    DiagnosticTraceWriter(ObjectMapper objectMapper, MeterRegistry meterRegistry, int queueCapacity,
+                          Consumer<String> sink) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+        this.written = meterRegistry.counter("diagnostics.trace.records", "result", "written");
+        this.dropped = meterRegistry.counter("diagnostics.trace.records", "result", "dropped");
+        this.worker = Thread.ofPlatform().name("diagnostic-trace-writer").daemon().start(this::drain);
+    }
+
+    public void submit(DiagnosticTrace.Record trace) {
+        if (!queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                DiagnosticTrace.Record trace = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (trace != null) {
+                    sink.accept(objectMapper.writeValueAsString(trace));
+                    written.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Failed to write diagnostic trace: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,26 @@
+package com.srllc.aws_textract.domain.diagnostics;
+
+/**
+ * Holds the trace of the request running on the current thread. Stages check {@link #current()}
+ * and only build event fields when it is not null, so untraced requests pay for one
+ * thread-local lookup. Work handed to other threads is not traced.
+ */
+public final class DiagnosticTraces {
+
+    private static final ThreadLocal<DiagnosticTrace> CURRENT = new ThreadLocal<>();
+
+    private DiagnosticTraces() {
+    }
+
+    public static DiagnosticTrace current() {
+        return CURRENT.get();
+    }
+
+    static void set(DiagnosticTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
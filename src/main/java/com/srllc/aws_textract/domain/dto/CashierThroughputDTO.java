@@ -0,0 +1,21 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashierThroughputDTO {
+    private String companyName;
+    private String cashierNumber;
+    private String currency;
+    private long receiptCount;
+    private long itemQuantity;
+    private BigDecimal subTotal;
+}
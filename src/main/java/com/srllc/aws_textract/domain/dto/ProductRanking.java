@@ -0,0 +1,6 @@
+package com.srllc.aws_textract.domain.dto;
+
+public enum ProductRanking {
+    QUANTITY,
+    REVENUE
+}
@@ -0,0 +1,19 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDTO {
+    private String productName;
+    private String currency;
+    private long quantity;
+    private BigDecimal revenue;
+}
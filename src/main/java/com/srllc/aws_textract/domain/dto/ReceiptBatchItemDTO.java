@@ -0,0 +1,20 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptBatchItemDTO {
+    private String fileName;
+    private ReceiptBatchItemStatus status;
+    private Long receiptId;
+    private String companyName;
+    private Integer itemCount;
+    private String errorMessage;
+    private Integer skippedCount;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -18,7 +19,8 @@ public class ReceiptDTO {
     private String managerName;
     private String cashierNumber;
     private List<ReceiptItemDTO> items;
-    private Double subTotal;
-    private Double cash;
-    private Double changeAmount;
+    private BigDecimal subTotal;
+    private BigDecimal cash;
+    private BigDecimal changeAmount;
+    private String currency;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.srllc.aws_textract.domain.dto;
+
+import com.srllc.aws_textract.domain.entity.ReceiptJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptJobDTO {
+    private String jobId;
+    private ReceiptJobStatus status;
+    private String fileName;
+    private ReceiptDTO receipt;
+    private List<Long> receiptIds;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
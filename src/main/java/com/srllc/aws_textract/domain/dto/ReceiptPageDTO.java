@@ -0,0 +1,19 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptPageDTO {
+    private List<ReceiptDTO> receipts;
+    private int size;
+    private boolean hasMore;
+    private Long nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Receipt totals for one group. Only the fields of the requested grouping are set.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptTotalsDTO {
+    private String companyName;
+    private String branch;
+    private LocalDate day;
+    private String currency;
+    private long receiptCount;
+    private BigDecimal subTotal;
+}
@@ -0,0 +1,7 @@
+package com.srllc.aws_textract.domain.dto;
+
+public enum ReceiptTotalsGrouping {
+    COMPANY,
+    BRANCH,
+    DAY
+}
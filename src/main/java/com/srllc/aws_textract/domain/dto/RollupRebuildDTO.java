@@ -0,0 +1,16 @@
+package com.srllc.aws_textract.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRebuildDTO {
+    private long receiptCount;
+    private int chunkCount;
+    private long durationMs;
+}
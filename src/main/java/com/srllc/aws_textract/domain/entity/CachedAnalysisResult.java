@@ -0,0 +1,35 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "analysis_result_cache", indexes = {
+        @Index(name = "idx_analysis_result_cache_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedAnalysisResult {
+
+    @Id
+    @Column(name = "cache_key", length = 191)
+    private String cacheKey;
+
+    @Column(name = "operation", nullable = false)
+    private String operation;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.srllc.aws_textract.domain.entity;
+
+import com.srllc.aws_textract.domain.record.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link Money} as its minor units in a {@code BIGINT} column.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money amount) {
+        return amount == null ? null : amount.minorUnits();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minorUnits) {
+        return minorUnits == null ? null : Money.ofMinor(minorUnits);
+    }
+}
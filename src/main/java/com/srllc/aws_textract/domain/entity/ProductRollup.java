@@ -0,0 +1,51 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Units sold and summed item price (in minor units) per product, company, branch and currency
+ * for one hour or day.
+ */
+@Entity
+@Table(name = "product_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_product_rollups_key",
+        columnNames = {"granularity", "bucket_start", "company_name", "branch", "product_name", "currency"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_rollups_seq")
+    @SequenceGenerator(name = "product_rollups_seq", sequenceName = "product_rollups_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "company_name", nullable = false)
+    private String companyName;
+
+    @Column(name = "branch", nullable = false)
+    private String branch;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "quantity", nullable = false)
+    private long quantity;
+
+    @Column(name = "revenue_minor", nullable = false)
+    private long revenueMinor;
+}
@@ -1,22 +1,37 @@
 package com.srllc.aws_textract.domain.entity;
 
+import com.srllc.aws_textract.domain.record.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CreationTimestamp;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "receipts")
+@Table(name = "receipts", indexes = {
+        @Index(name = "idx_receipts_company_id", columnList = "company_name, id"),
+        @Index(name = "idx_receipts_branch_id", columnList = "branch, id"),
+        @Index(name = "idx_receipts_sub_total_minor_id", columnList = "sub_total_minor, id"),
+        @Index(name = "idx_receipts_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Receipt {
 
+    /**
+     * The text parsers only recognise dollar amounts; AnalyzeExpense reports the currency it finds.
+     */
+    public static final String DEFAULT_CURRENCY = "USD";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receipts_seq")
+    @SequenceGenerator(name = "receipts_seq", sequenceName = "receipts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "company_name")
@@ -31,15 +46,29 @@ public class Receipt {
     @Column(name = "cashier_number")
     private String cashierNumber;
 
-    @Column(name = "sub_total")
-    private Double subTotal;
+    /**
+     * ISO 4217 code all amounts on this receipt are in.
+     */
+    @Column(name = "currency", length = 3)
+    private String currency = DEFAULT_CURRENCY;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "sub_total_minor")
+    private Money subTotal;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "cash_minor")
+    private Money cash;
 
-    @Column(name = "cash")
-    private Double cash;
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "change_amount_minor")
+    private Money changeAmount;
 
-    @Column(name = "change_amount")
-    private Double changeAmount;
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "receipt", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ReceiptItem> items = new ArrayList<>();
 
@@ -1,20 +1,22 @@
 package com.srllc.aws_textract.domain.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.srllc.aws_textract.domain.record.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "receipt_items")
+@Table(name = "receipt_items", indexes = @Index(name = "idx_receipt_items_receipt_id", columnList = "receipt_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReceiptItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receipt_items_seq")
+    @SequenceGenerator(name = "receipt_items_seq", sequenceName = "receipt_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "product_name")
@@ -23,8 +25,9 @@ public class ReceiptItem {
     @Column(name = "quantity")
     private Integer quantity;
 
-    @Column(name = "price")
-    private Double price;
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "price_minor")
+    private Money price;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receipt_id")
@@ -0,0 +1,54 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "receipt_jobs", indexes = {
+        @Index(name = "idx_receipt_jobs_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptJob {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ReceiptJobStatus status;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    // Instance that spooled the upload and runs the job; only it can tell the job was interrupted
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    @Column(name = "receipt_id")
+    private Long receiptId;
+
+    // Every receipt saved from the upload; receiptId is the first of them
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "receipt_job_receipts", joinColumns = @JoinColumn(name = "job_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "receipt_id")
+    private List<Long> receiptIds = new ArrayList<>();
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.srllc.aws_textract.domain.entity;
+
+public enum ReceiptJobStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
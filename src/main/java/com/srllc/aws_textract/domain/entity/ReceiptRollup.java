@@ -0,0 +1,47 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Receipt count and subtotal (in minor units) per company, branch and currency for one hour or day.
+ */
+@Entity
+@Table(name = "receipt_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_receipt_rollups_key",
+        columnNames = {"granularity", "bucket_start", "company_name", "branch", "currency"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receipt_rollups_seq")
+    @SequenceGenerator(name = "receipt_rollups_seq", sequenceName = "receipt_rollups_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "company_name", nullable = false)
+    private String companyName;
+
+    @Column(name = "branch", nullable = false)
+    private String branch;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "receipt_count", nullable = false)
+    private long receiptCount;
+
+    @Column(name = "sub_total_minor", nullable = false)
+    private long subTotalMinor;
+}
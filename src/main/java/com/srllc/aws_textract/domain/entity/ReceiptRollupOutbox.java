@@ -0,0 +1,26 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A saved receipt not yet added to the rollups. Written in the transaction that saves the receipt
+ * and deleted in the transaction that adds it.
+ */
+@Entity
+@Table(name = "receipt_rollup_outbox", indexes = @Index(name = "idx_receipt_rollup_outbox_receipt_id", columnList = "receipt_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptRollupOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receipt_rollup_outbox_seq")
+    @SequenceGenerator(name = "receipt_rollup_outbox_seq", sequenceName = "receipt_rollup_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "receipt_id", nullable = false)
+    private Long receiptId;
+}
@@ -0,0 +1,29 @@
+package com.srllc.aws_textract.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Present while the rollups hold every stored receipt: written when a rebuild completes, or at
+ * startup when there are no receipts yet, and removed when a rebuild starts or stored receipts
+ * change outside the outbox. Shared by all instances through the database.
+ */
+@Entity
+@Table(name = "receipt_rollup_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptRollupState {
+
+    public static final int COMPLETE = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+}
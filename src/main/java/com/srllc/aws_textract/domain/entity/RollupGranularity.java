@@ -0,0 +1,26 @@
+package com.srllc.aws_textract.domain.entity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket size of a rollup row. Buckets start on whole UTC hours or days.
+ */
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public Instant bucketStart(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public boolean isBucketStart(Instant instant) {
+        return instant.equals(bucketStart(instant));
+    }
+}
@@ -0,0 +1,28 @@
+package com.srllc.aws_textract.domain.exception;
+
+import java.time.Duration;
+
+public class AwsCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AwsCapacityExceededException(String message) {
+        this(message, null, null);
+    }
+
+    public AwsCapacityExceededException(String message, Duration retryAfter) {
+        this(message, retryAfter, null);
+    }
+
+    protected AwsCapacityExceededException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * When the call may succeed again, or {@code null} if unknown.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
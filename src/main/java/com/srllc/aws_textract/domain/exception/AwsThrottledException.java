@@ -0,0 +1,18 @@
+package com.srllc.aws_textract.domain.exception;
+
+import java.time.Duration;
+
+/**
+ * AWS calls for an operation are over its rate limit: either the client-side limit would have
+ * made the call wait too long, or AWS kept throttling it through every retry.
+ */
+public class AwsThrottledException extends AwsCapacityExceededException {
+
+    public AwsThrottledException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+
+    public AwsThrottledException(String message, Duration retryAfter, Throwable cause) {
+        super(message, retryAfter, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.srllc.aws_textract.domain.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Counts pipeline failures by exception type and by where they surfaced: an HTTP response,
+ * a batch or document line, or a background job.
+ */
+@Component
+@RequiredArgsConstructor
+public class ErrorMetrics {
+
+    public static final String HTTP = "http";
+    public static final String BATCH = "batch";
+    public static final String DOCUMENT = "document";
+    public static final String JOB = "job";
+
+    private final MeterRegistry meterRegistry;
+
+    public void record(String source, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        meterRegistry.counter("receipt.pipeline.errors",
+                "exception", cause.getClass().getSimpleName(),
+                "source", source).increment();
+    }
+}
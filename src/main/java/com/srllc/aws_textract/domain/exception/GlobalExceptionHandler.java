@@ -1,27 +1,36 @@
 package com.srllc.aws_textract.domain.exception;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @RestControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final ErrorMetrics errorMetrics;
+
     @ExceptionHandler(TextractException.class)
     public ResponseEntity<ErrorResponse> handleTextractException(TextractException ex) {
         log.error("Textract exception: {}", ex.getMessage(), ex);
+        errorMetrics.record(ErrorMetrics.HTTP, ex);
         return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Textract Processing Error", ex.getMessage());
     }
 
     @ExceptionHandler(RekognitionException.class)
     public ResponseEntity<ErrorResponse> handleRekognitionException(RekognitionException ex) {
         log.error("Rekognition exception: {}", ex.getMessage(), ex);
+        errorMetrics.record(ErrorMetrics.HTTP, ex);
         return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Rekognition Processing Error", ex.getMessage());
     }
 
@@ -31,11 +40,45 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.NOT_FOUND, "Receipt Not Found", ex.getMessage());
     }
 
+    @ExceptionHandler(ReceiptJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleReceiptJobNotFoundException(ReceiptJobNotFoundException ex) {
+        log.error("Receipt job not found: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.NOT_FOUND, "Receipt Job Not Found", ex.getMessage());
+    }
+
+    @ExceptionHandler(MultipleReceiptsException.class)
+    public ResponseEntity<ErrorResponse> handleMultipleReceiptsException(MultipleReceiptsException ex) {
+        log.warn("Receipt not saved: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY, "Multiple Receipts", ex.getMessage());
+    }
+
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleJobQueueFullException(JobQueueFullException ex) {
+        log.warn("Receipt job rejected: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", ex.getMessage());
+    }
+
+    @ExceptionHandler(AwsThrottledException.class)
+    public ResponseEntity<ErrorResponse> handleAwsThrottledException(AwsThrottledException ex) {
+        log.warn("AWS throttled: {}", ex.getMessage());
+        errorMetrics.record(ErrorMetrics.HTTP, ex);
+        return withRetryAfter(buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", ex.getMessage()),
+                ex.getRetryAfter());
+    }
+
+    @ExceptionHandler(AwsCapacityExceededException.class)
+    public ResponseEntity<ErrorResponse> handleAwsCapacityExceededException(AwsCapacityExceededException ex) {
+        log.warn("AWS capacity exceeded: {}", ex.getMessage());
+        errorMetrics.record(ErrorMetrics.HTTP, ex);
+        return withRetryAfter(buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage()),
+                ex.getRetryAfter());
+    }
+
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex) {
         log.error("File size exceeded: {}", ex.getMessage());
         return buildErrorResponse(HttpStatus.BAD_REQUEST, "File Size Exceeded",
-                "The uploaded file is too large. Maximum file size is 10MB.");
+                "The upload is too large. Maximum file size is 100MB and maximum request size is 500MB.");
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -44,9 +87,17 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        log.error("Invalid value for parameter {}: {}", ex.getName(), ex.getValue());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request",
+                "Invalid value '" + ex.getValue() + "' for parameter '" + ex.getName() + "'");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error: {}", ex.getMessage(), ex);
+        errorMetrics.record(ErrorMetrics.HTTP, ex);
         return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
                 "An unexpected error occurred. Please try again later.");
     }
@@ -60,4 +111,14 @@ public class GlobalExceptionHandler {
                 .build();
         return ResponseEntity.status(status).body(errorResponse);
     }
+
+    private ResponseEntity<ErrorResponse> withRetryAfter(ResponseEntity<ErrorResponse> response, Duration retryAfter) {
+        if (retryAfter == null) {
+            return response;
+        }
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(response.getBody());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.srllc.aws_textract.domain.exception;
+
+public class JobQueueFullException extends RuntimeException {
+    public JobQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
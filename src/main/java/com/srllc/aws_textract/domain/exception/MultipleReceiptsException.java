@@ -0,0 +1,7 @@
+package com.srllc.aws_textract.domain.exception;
+
+public class MultipleReceiptsException extends RuntimeException {
+    public MultipleReceiptsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.srllc.aws_textract.domain.exception;
+
+public class ReceiptJobNotFoundException extends RuntimeException {
+    public ReceiptJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,301 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsOperation;
+import com.srllc.aws_textract.domain.aws.AwsPayloads;
+import com.srllc.aws_textract.domain.aws.AwsService;
+import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptItemDTO;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.image.ImagePreprocessor;
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.service.AnalysisCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.AnalyzeExpenseRequest;
+import software.amazon.awssdk.services.textract.model.AnalyzeExpenseResponse;
+import software.amazon.awssdk.services.textract.model.Document;
+import software.amazon.awssdk.services.textract.model.ExpenseDocument;
+import software.amazon.awssdk.services.textract.model.ExpenseField;
+import software.amazon.awssdk.services.textract.model.LineItemFields;
+import software.amazon.awssdk.services.textract.model.LineItemGroup;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Uses Textract {@code AnalyzeExpense}, which already returns summary fields (vendor, totals,
+ * amount paid) and line items, so no heuristic parsing runs locally. AnalyzeExpense already
+ * returns one expense document per receipt on the image, and each becomes its own receipt.
+ * The mapped result is cached per image as {@link ReceiptDTO}s; fresh {@link Receipt}s are
+ * built for every call.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AnalyzeExpenseExtractionEngine implements ReceiptExtractionEngine {
+
+    private final TextractClient textractClient;
+    private final AnalysisCacheService analysisCacheService;
+    private final AwsCallGuard awsCallGuard;
+    private final ExtractionMetrics extractionMetrics;
+    private final ImagePreprocessor imagePreprocessor;
+
+    // Entries hold every expense document of an image; the former single-document entries are not reused
+    private static final String ANALYZE_EXPENSE = "textract.analyzeExpense.documents";
+
+    @Override
+    public ExtractionEngineType type() {
+        return ExtractionEngineType.ANALYZE_EXPENSE;
+    }
+
+    @Override
+    public List<Receipt> extract(ByteBuffer imageContent) {
+        try {
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, ANALYZE_EXPENSE);
+            ReceiptDTO[] analyzed = analysisCacheService.getOrLoad(cacheKey, ReceiptDTO[].class,
+                    () -> analyzeExpense(imageContent));
+            return Arrays.stream(analyzed).map(this::toReceipt).toList();
+        } catch (TextractException | AwsCapacityExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TextractException("Textract AnalyzeExpense failed: " + e.getMessage(), e);
+        }
+    }
+
+    private ReceiptDTO[] analyzeExpense(ByteBuffer imageContent) {
+        AnalyzeExpenseRequest request = AnalyzeExpenseRequest.builder()
+                .document(Document.builder()
+                        .bytes(AwsPayloads.toSdkBytes(imagePreprocessor.prepare(AwsService.TEXTRACT, imageContent)))
+                        .build())
+                .build();
+        AnalyzeExpenseResponse response = awsCallGuard.call(AwsOperation.ANALYZE_EXPENSE,
+                () -> textractClient.analyzeExpense(request));
+        extractionMetrics.recordAwsCall(type(),
+                response.documentMetadata() == null ? null : response.documentMetadata().pages());
+
+        if (response.expenseDocuments().isEmpty()) {
+            log.info("AnalyzeExpense returned no expense documents");
+            return new ReceiptDTO[]{ReceiptDTO.builder().items(List.of()).build()};
+        }
+        return response.expenseDocuments().stream().map(this::toReceiptDTO).toArray(ReceiptDTO[]::new);
+    }
+
+    private ReceiptDTO toReceiptDTO(ExpenseDocument document) {
+        ReceiptDTO receipt = ReceiptDTO.builder().build();
+        BigDecimal total = null;
+        String address = null;
+
+        for (ExpenseField field : document.summaryFields()) {
+            String value = valueText(field);
+            if (value == null) {
+                continue;
+            }
+            if (receipt.getCurrency() == null && field.currency() != null && field.currency().code() != null) {
+                receipt.setCurrency(field.currency().code());
+            }
+            switch (typeText(field)) {
+                case "VENDOR_NAME", "NAME" -> {
+                    if (receipt.getCompanyName() == null) receipt.setCompanyName(value);
+                }
+                case "CITY" -> receipt.setBranch(value);
+                case "VENDOR_ADDRESS", "ADDRESS" -> {
+                    if (address == null) address = value;
+                }
+                case "SUBTOTAL" -> receipt.setSubTotal(toAmount(value));
+                case "TOTAL" -> total = toAmount(value);
+                case "AMOUNT_PAID" -> receipt.setCash(toAmount(value));
+                case "OTHER" -> mapOtherField(receipt, labelText(field), value);
+                default -> {
+                }
+            }
+        }
+        if (receipt.getBranch() == null && address != null) {
+            receipt.setBranch(address.lines().findFirst().orElse(address));
+        }
+        if (receipt.getSubTotal() == null) {
+            receipt.setSubTotal(total);
+        }
+
+        List<ReceiptItemDTO> items = new ArrayList<>();
+        for (LineItemGroup group : document.lineItemGroups()) {
+            for (LineItemFields lineItem : group.lineItems()) {
+                ReceiptItemDTO item = toItem(lineItem);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }
+        receipt.setItems(items);
+        return receipt;
+    }
+
+    /**
+     * Fields AnalyzeExpense has no type for come back as {@code OTHER} with the printed label.
+     */
+    private void mapOtherField(ReceiptDTO receipt, String label, String value) {
+        if (label == null) {
+            return;
+        }
+        String normalized = label.toLowerCase(Locale.ROOT);
+        if (normalized.contains("cashier")) {
+            receipt.setCashierNumber(value);
+        } else if (normalized.contains("manager")) {
+            receipt.setManagerName(value);
+        } else if (normalized.contains("change")) {
+            receipt.setChangeAmount(toAmount(value));
+        } else if (normalized.contains("cash") && receipt.getCash() == null) {
+            receipt.setCash(toAmount(value));
+        }
+    }
+
+    private ReceiptItemDTO toItem(LineItemFields lineItem) {
+        String name = null;
+        Integer quantity = null;
+        Money price = null;
+        Money unitPrice = null;
+
+        for (ExpenseField field : lineItem.lineItemExpenseFields()) {
+            String value = valueText(field);
+            if (value == null) {
+                continue;
+            }
+            switch (typeText(field)) {
+                case "ITEM" -> name = value;
+                case "QUANTITY" -> quantity = toQuantity(value);
+                case "PRICE" -> price = toMoney(value);
+                case "UNIT_PRICE" -> unitPrice = toMoney(value);
+                default -> {
+                }
+            }
+        }
+        if (name == null) {
+            return null;
+        }
+        int itemQuantity = quantity == null ? 1 : quantity;
+        if (price == null && unitPrice != null) {
+            price = unitPrice.times(itemQuantity);
+        }
+        return ReceiptItemDTO.builder()
+                .productName(name)
+                .quantity(itemQuantity)
+                .price(price == null ? BigDecimal.ZERO : price.toBigDecimal())
+                .build();
+    }
+
+    private Receipt toReceipt(ReceiptDTO analyzed) {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName(analyzed.getCompanyName() == null ? "Unknown Store" : analyzed.getCompanyName());
+        receipt.setBranch(analyzed.getBranch() == null ? "Main Branch" : analyzed.getBranch());
+        receipt.setManagerName(analyzed.getManagerName() == null ? "N/A" : analyzed.getManagerName());
+        receipt.setCashierNumber(analyzed.getCashierNumber() == null ? "N/A" : analyzed.getCashierNumber());
+        receipt.setCurrency(analyzed.getCurrency() == null ? Receipt.DEFAULT_CURRENCY : analyzed.getCurrency());
+        receipt.setSubTotal(toMoney(analyzed.getSubTotal()));
+        receipt.setCash(toMoney(analyzed.getCash()));
+        receipt.setChangeAmount(toMoney(analyzed.getChangeAmount()));
+        if (analyzed.getItems() != null) {
+            for (ReceiptItemDTO itemDTO : analyzed.getItems()) {
+                ReceiptItem item = new ReceiptItem();
+                item.setProductName(itemDTO.getProductName());
+                item.setQuantity(itemDTO.getQuantity());
+                item.setPrice(toMoney(itemDTO.getPrice()));
+                receipt.addItem(item);
+            }
+        }
+        return receipt;
+    }
+
+    private String typeText(ExpenseField field) {
+        return field.type() == null || field.type().text() == null ? "" : field.type().text();
+    }
+
+    private String labelText(ExpenseField field) {
+        return field.labelDetection() == null ? null : field.labelDetection().text();
+    }
+
+    private String valueText(ExpenseField field) {
+        if (field.valueDetection() == null || field.valueDetection().text() == null) {
+            return null;
+        }
+        String text = field.valueDetection().text().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Money toMoney(BigDecimal amount) {
+        return amount == null ? Money.ZERO : Money.of(amount);
+    }
+
+    private BigDecimal toAmount(String value) {
+        Money amount = toMoney(value);
+        return amount == null ? null : amount.toBigDecimal();
+    }
+
+    /**
+     * Reads the one number in the value into minor units. Currency symbols and codes around it and
+     * thousands separators inside it are skipped, so "$1,234.50" and "PHP 99.00" both parse, and a
+     * minus sign before it makes it negative. A value holding more than one number, such as
+     * "2 @ 3.00", is not an amount: joining its digits would read it as 23.00.
+     */
+    private Money toMoney(String value) {
+        int start = -1;
+        int end = -1;
+        for (int i = 0; i < value.length(); i++) {
+            if (!isNumberChar(value, i)) {
+                continue;
+            }
+            if (start >= 0 && end < i) {
+                return null;
+            }
+            if (start < 0) {
+                start = i;
+            }
+            end = i + 1;
+        }
+        if (start < 0) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) != ',') {
+                digits.append(value.charAt(i));
+            }
+        }
+        long units = Money.parseMinorUnits(digits, 0, digits.length());
+        if (units == Money.NOT_AN_AMOUNT) {
+            return null;
+        }
+        return Money.ofMinor(value.lastIndexOf('-', start) >= 0 ? -units : units);
+    }
+
+    /**
+     * Digits, a decimal point next to a digit and a thousands separator between two digits.
+     */
+    private static boolean isNumberChar(String value, int i) {
+        char c = value.charAt(i);
+        if (isDigit(c)) {
+            return true;
+        }
+        boolean digitBefore = i > 0 && isDigit(value.charAt(i - 1));
+        boolean digitAfter = i + 1 < value.length() && isDigit(value.charAt(i + 1));
+        return (c == '.' && (digitBefore || digitAfter)) || (c == ',' && digitBefore && digitAfter);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private Integer toQuantity(String value) {
+        Money amount = toMoney(value);
+        return amount == null || amount.minorUnits() < 100 ? null : (int) ((amount.minorUnits() + 50) / 100);
+    }
+}
@@ -0,0 +1,143 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsOperation;
+import com.srllc.aws_textract.domain.aws.AwsPayloads;
+import com.srllc.aws_textract.domain.aws.AwsService;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTrace;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTraces;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.image.ImagePreprocessor;
+import com.srllc.aws_textract.domain.parser.ReceiptParser;
+import com.srllc.aws_textract.domain.parser.ReceiptSegmenter;
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.service.AnalysisCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.textract.TextractAsyncClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextResponse;
+import software.amazon.awssdk.services.textract.model.Document;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * OCR with {@code DetectDocumentText} followed by the configured {@link ReceiptParser}.
+ * The raw lines are cached per image, so re-parsing an image never calls Textract again.
+ * Images holding several receipts are split by {@link ReceiptSegmenter} and the regions
+ * are parsed one after another on the calling thread.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DetectTextExtractionEngine implements ReceiptExtractionEngine {
+
+    private final TextractClient textractClient;
+    private final AnalysisCacheService analysisCacheService;
+    private final AwsCallGuard awsCallGuard;
+    private final ObjectProvider<TextractAsyncClient> textractAsyncClient;
+    private final ReceiptParser receiptParser;
+    private final ReceiptSegmenter receiptSegmenter;
+    private final ExtractionMetrics extractionMetrics;
+    private final ImagePreprocessor imagePreprocessor;
+
+    private static final String DETECT_DOCUMENT_TEXT = "textract.detectDocumentText";
+
+    @Override
+    public ExtractionEngineType type() {
+        return ExtractionEngineType.DETECT_TEXT;
+    }
+
+    @Override
+    public List<Receipt> extract(ByteBuffer imageContent) {
+        return receiptSegmenter.split(detectText(imageContent)).stream()
+                .map(receiptParser::parse)
+                .toList();
+    }
+
+    public ExtractTextResponse detectText(ByteBuffer imageContent) {
+        try {
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, DETECT_DOCUMENT_TEXT);
+            ExtractTextResponse extracted = analysisCacheService.getOrLoad(cacheKey, ExtractTextResponse.class,
+                    () -> detectDocumentText(imageContent));
+            DiagnosticTrace trace = DiagnosticTraces.current();
+            if (trace != null) {
+                trace.event("textract.lines", Map.of("count", extracted.lines().size(), "lines", extracted.lines()));
+            }
+            return extracted;
+        } catch (Exception e) {
+            throw toTextractException(e);
+        }
+    }
+
+    /**
+     * Non-blocking variant backed by {@link TextractAsyncClient} when {@code aws.client.mode=async}.
+     * Without the async client the synchronous path runs and an already completed future is returned.
+     * On a cache miss the image is prepared on the calling thread, once, before the call is queued;
+     * the guard may start the call, and retry it, on an SDK or timer thread. Failures, including
+     * those raised before the call is queued, complete the returned future.
+     */
+    public CompletableFuture<ExtractTextResponse> detectTextAsync(ByteBuffer imageContent) {
+        TextractAsyncClient asyncClient = textractAsyncClient.getIfAvailable();
+        if (asyncClient == null) {
+            return CompletableFuture.completedFuture(detectText(imageContent));
+        }
+
+        try {
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, DETECT_DOCUMENT_TEXT);
+            return analysisCacheService.getOrLoadAsync(cacheKey, ExtractTextResponse.class, () -> {
+                        DetectDocumentTextRequest request = buildDetectRequest(imageContent);
+                        return awsCallGuard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT,
+                                        () -> asyncClient.detectDocumentText(request))
+                                .thenApply(this::toExtractTextResponse);
+                    })
+                    .exceptionally(error -> {
+                        throw toTextractException(error);
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(toTextractException(e));
+        }
+    }
+
+    private ExtractTextResponse detectDocumentText(ByteBuffer imageContent) {
+        var request = buildDetectRequest(imageContent);
+        var response = awsCallGuard.call(AwsOperation.DETECT_DOCUMENT_TEXT,
+                () -> textractClient.detectDocumentText(request));
+        return toExtractTextResponse(response);
+    }
+
+    private DetectDocumentTextRequest buildDetectRequest(ByteBuffer imageContent) {
+        return DetectDocumentTextRequest.builder()
+                .document(Document.builder()
+                        .bytes(AwsPayloads.toSdkBytes(imagePreprocessor.prepare(AwsService.TEXTRACT, imageContent)))
+                        .build())
+                .build();
+    }
+
+    private ExtractTextResponse toExtractTextResponse(DetectDocumentTextResponse response) {
+        extractionMetrics.recordAwsCall(type(),
+                response.documentMetadata() == null ? null : response.documentMetadata().pages());
+
+        ExtractTextResponse extracted = TextractLines.fromBlocks(response.blocks());
+        log.debug("Textract returned {} lines", extracted.lines().size());
+        return extracted;
+    }
+
+    private RuntimeException toTextractException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TextractException || cause instanceof AwsCapacityExceededException) {
+            return (RuntimeException) cause;
+        }
+        return new TextractException("Textract Failed: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,272 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsOperation;
+import com.srllc.aws_textract.domain.exception.AwsThrottledException;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.record.DocumentPage;
+import com.srllc.aws_textract.domain.upload.ByteBufferInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.DocumentLocation;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionResponse;
+import software.amazon.awssdk.services.textract.model.JobStatus;
+import software.amazon.awssdk.services.textract.model.S3Object;
+import software.amazon.awssdk.services.textract.model.StartDocumentTextDetectionRequest;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Text detection for documents the synchronous API cannot take (multi-page PDFs and TIFFs).
+ * The document is staged in S3, {@code StartDocumentTextDetection} is started, and the job is
+ * polled until it finishes. Results are then read page by page through
+ * {@code GetDocumentTextDetection} pagination, and each page is handed to the listener as soon
+ * as its last block has arrived, so the whole document is never held at once.
+ * <p>
+ * Polling adapts to observed job durations: the first poll waits for about half of the
+ * running average completion time, and later polls back off exponentially up to a cap.
+ */
+@Component
+@Slf4j
+public class DocumentTextJobDetector {
+
+    private final TextractClient textractClient;
+    private final S3Client s3Client;
+    private final AwsCallGuard awsCallGuard;
+    private final ExtractionMetrics extractionMetrics;
+    private final String stagingBucket;
+    private final String stagingPrefix;
+    private final long minPollDelayMs;
+    private final long maxPollDelayMs;
+    private final long jobTimeoutMs;
+    private final int maxResults;
+    private final AtomicLong averageCompletionMs;
+
+    public DocumentTextJobDetector(
+            TextractClient textractClient,
+            S3Client s3Client,
+            AwsCallGuard awsCallGuard,
+            ExtractionMetrics extractionMetrics,
+            @Value("${aws.s3.staging-bucket:}") String stagingBucket,
+            @Value("${aws.s3.staging-prefix:textract-staging/}") String stagingPrefix,
+            @Value("${receipt.document.poll.min-delay-ms:1000}") long minPollDelayMs,
+            @Value("${receipt.document.poll.max-delay-ms:15000}") long maxPollDelayMs,
+            @Value("${receipt.document.job-timeout:PT15M}") Duration jobTimeout,
+            @Value("${receipt.document.max-results:1000}") int maxResults) {
+        this.textractClient = textractClient;
+        this.s3Client = s3Client;
+        this.awsCallGuard = awsCallGuard;
+        this.extractionMetrics = extractionMetrics;
+        this.stagingBucket = stagingBucket;
+        this.stagingPrefix = stagingPrefix;
+        this.minPollDelayMs = minPollDelayMs;
+        this.maxPollDelayMs = maxPollDelayMs;
+        this.jobTimeoutMs = jobTimeout.toMillis();
+        this.maxResults = maxResults;
+        this.averageCompletionMs = new AtomicLong(minPollDelayMs * 4);
+    }
+
+    /**
+     * Runs text detection on a staged copy of {@code content} and returns the number of pages.
+     */
+    public int detectPages(ByteBuffer content, String fileName, Consumer<DocumentPage> pageListener) {
+        if (stagingBucket.isBlank()) {
+            throw new TextractException("Multi-page documents need an S3 staging bucket (aws.s3.staging-bucket)");
+        }
+
+        String key = stagingPrefix + UUID.randomUUID() + extension(fileName);
+        stage(key, content, contentType(fileName));
+        try {
+            String jobId = awsCallGuard.call(AwsOperation.START_DOCUMENT_TEXT_DETECTION,
+                    () -> textractClient.startDocumentTextDetection(StartDocumentTextDetectionRequest.builder()
+                            .documentLocation(DocumentLocation.builder()
+                                    .s3Object(S3Object.builder().bucket(stagingBucket).name(key).build())
+                                    .build())
+                            .build())).jobId();
+            log.info("Started text detection job {} for {}", jobId, fileName);
+            return collectPages(jobId, pageListener);
+        } catch (SdkException e) {
+            throw new TextractException("Textract document job failed: " + e.getMessage(), e);
+        } finally {
+            unstage(key);
+        }
+    }
+
+    private int collectPages(String jobId, Consumer<DocumentPage> pageListener) {
+        GetDocumentTextDetectionResponse response = awaitCompletion(jobId);
+        if (response.documentMetadata() != null) {
+            extractionMetrics.recordAwsCall(ExtractionEngineType.DETECT_TEXT, response.documentMetadata().pages());
+        }
+
+        PageAssembler pages = new PageAssembler(pageListener);
+        while (true) {
+            pages.accept(response.blocks());
+            String nextToken = response.nextToken();
+            if (nextToken == null) {
+                break;
+            }
+            response = getResults(jobId, nextToken);
+        }
+        return pages.finish();
+    }
+
+    private GetDocumentTextDetectionResponse awaitCompletion(String jobId) {
+        long started = System.nanoTime();
+        long delay = Math.max(minPollDelayMs, Math.min(maxPollDelayMs, averageCompletionMs.get() / 2));
+
+        while (true) {
+            sleep(delay);
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            GetDocumentTextDetectionResponse response;
+            try {
+                response = getResults(jobId, null);
+            } catch (AwsThrottledException e) {
+                if (elapsedMs > jobTimeoutMs) {
+                    throw e;
+                }
+                delay = nextDelay(delay);
+                continue;
+            }
+
+            JobStatus status = response.jobStatus();
+            if (status == JobStatus.SUCCEEDED || status == JobStatus.PARTIAL_SUCCESS) {
+                averageCompletionMs.updateAndGet(average -> (average * 4 + elapsedMs) / 5);
+                log.info("Text detection job {} finished with {} after {} ms", jobId, status, elapsedMs);
+                return response;
+            }
+            if (status == JobStatus.FAILED) {
+                throw new TextractException("Textract document job " + jobId + " failed: " + response.statusMessage());
+            }
+            if (elapsedMs > jobTimeoutMs) {
+                throw new TextractException("Textract document job " + jobId + " did not finish within "
+                        + Duration.ofMillis(jobTimeoutMs));
+            }
+            delay = nextDelay(delay);
+        }
+    }
+
+    private GetDocumentTextDetectionResponse getResults(String jobId, String nextToken) {
+        return awsCallGuard.call(AwsOperation.GET_DOCUMENT_TEXT_DETECTION,
+                () -> textractClient.getDocumentTextDetection(GetDocumentTextDetectionRequest.builder()
+                        .jobId(jobId)
+                        .maxResults(maxResults)
+                        .nextToken(nextToken)
+                        .build()));
+    }
+
+    private long nextDelay(long delay) {
+        return Math.min(maxPollDelayMs, delay + delay / 2);
+    }
+
+    private void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TextractException("Interrupted while waiting for Textract", e);
+        }
+    }
+
+    /**
+     * Streams the buffer into the request body, so a mapped upload is not copied onto the heap.
+     */
+    private void stage(String key, ByteBuffer content, String contentType) {
+        ByteBuffer body = content.duplicate();
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(stagingBucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .build(),
+                    RequestBody.fromContentProvider(() -> new ByteBufferInputStream(body), body.remaining(), contentType));
+        } catch (SdkException e) {
+            throw new TextractException("Failed to stage document in S3: " + e.getMessage(), e);
+        }
+    }
+
+    private void unstage(String key) {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(stagingBucket).key(key).build());
+        } catch (SdkException e) {
+            log.warn("Failed to delete staged document s3://{}/{}: {}", stagingBucket, key, e.getMessage());
+        }
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+    }
+
+    private static String contentType(String fileName) {
+        return switch (extension(fileName)) {
+            case ".pdf" -> "application/pdf";
+            case ".tif", ".tiff" -> "image/tiff";
+            case ".png" -> "image/png";
+            case ".jpg", ".jpeg" -> "image/jpeg";
+            default -> "application/octet-stream";
+        };
+    }
+
+    /**
+     * Collects LINE blocks per page. Results arrive in page order, so a page is complete once a
+     * block from a later page shows up.
+     */
+    private static final class PageAssembler {
+
+        private final Consumer<DocumentPage> pageListener;
+        private final List<Block> lines = new ArrayList<>();
+        private int currentPage = -1;
+        private int emitted;
+
+        private PageAssembler(Consumer<DocumentPage> pageListener) {
+            this.pageListener = pageListener;
+        }
+
+        private void accept(List<Block> blocks) {
+            for (Block block : blocks) {
+                int page = block.page() == null ? 1 : block.page();
+                if (page != currentPage) {
+                    emit();
+                    currentPage = page;
+                }
+                if (block.blockType() == BlockType.LINE) {
+                    lines.add(block);
+                }
+            }
+        }
+
+        private int finish() {
+            emit();
+            return emitted;
+        }
+
+        private void emit() {
+            if (currentPage < 0) {
+                return;
+            }
+            pageListener.accept(new DocumentPage(currentPage, TextractLines.fromBlocks(lines)));
+            lines.clear();
+            emitted++;
+            currentPage = -1;
+        }
+    }
+}
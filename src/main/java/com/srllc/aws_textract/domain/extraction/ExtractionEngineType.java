@@ -0,0 +1,25 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import java.util.Arrays;
+
+public enum ExtractionEngineType {
+    DETECT_TEXT("detect-text"),
+    ANALYZE_EXPENSE("analyze-expense");
+
+    private final String id;
+
+    ExtractionEngineType(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static ExtractionEngineType fromId(String id) {
+        return Arrays.stream(values())
+                .filter(type -> type.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown receipt extraction engine: " + id));
+    }
+}
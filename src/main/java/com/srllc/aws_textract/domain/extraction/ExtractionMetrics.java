@@ -0,0 +1,59 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-engine extraction latency and billing counters. Only calls that actually reach Textract
+ * are billed, so cache hits cost nothing. Prices are per page as listed by AWS and can be overridden.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExtractionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${receipt.extraction.price-per-page.detect-text:0.0015}")
+    private double detectTextPricePerPage;
+
+    @Value("${receipt.extraction.price-per-page.analyze-expense:0.01}")
+    private double analyzeExpensePricePerPage;
+
+    public Timer.Sample startExtraction() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordExtraction(Timer.Sample sample, ExtractionEngineType engine, String outcome) {
+        sample.stop(Timer.builder("receipt.extraction.latency")
+                .description("Time to turn an image into a receipt, including Textract")
+                .tag("engine", engine.id())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    public void recordReceiptsPerImage(ExtractionEngineType engine, int receipts) {
+        DistributionSummary.builder("receipt.extraction.receipts")
+                .description("Receipts found on one image")
+                .tag("engine", engine.id())
+                .register(meterRegistry)
+                .record(receipts);
+    }
+
+    public void recordAwsCall(ExtractionEngineType engine, Integer pages) {
+        int billedPages = pages == null || pages < 1 ? 1 : pages;
+        meterRegistry.counter("receipt.extraction.aws.pages", "engine", engine.id()).increment(billedPages);
+        meterRegistry.counter("receipt.extraction.aws.cost", "engine", engine.id())
+                .increment(billedPages * pricePerPage(engine));
+    }
+
+    private double pricePerPage(ExtractionEngineType engine) {
+        return switch (engine) {
+            case DETECT_TEXT -> detectTextPricePerPage;
+            case ANALYZE_EXPENSE -> analyzeExpensePricePerPage;
+        };
+    }
+}
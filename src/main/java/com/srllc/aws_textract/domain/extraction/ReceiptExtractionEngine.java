@@ -0,0 +1,16 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Turns an uploaded receipt image into unsaved {@link Receipt}s, one per receipt found on the
+ * image (never an empty list). Implementations differ in which Textract API they call and how
+ * much of the structure they derive locally.
+ */
+public interface ReceiptExtractionEngine {
+    ExtractionEngineType type();
+    List<Receipt> extract(ByteBuffer imageContent);
+}
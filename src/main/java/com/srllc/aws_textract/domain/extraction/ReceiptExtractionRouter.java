@@ -0,0 +1,106 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTrace;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTraces;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Chooses the extraction engine for each image. {@code receipt.extraction.engine} sets the
+ * default; {@code receipt.extraction.analyze-expense-percent} sends that share of images to
+ * AnalyzeExpense instead, picked by content hash so a re-upload always takes the same route.
+ * When AnalyzeExpense finds no line items on any receipt the image can fall back to text detection.
+ */
+@Component
+@Slf4j
+public class ReceiptExtractionRouter {
+
+    private final Map<ExtractionEngineType, ReceiptExtractionEngine> engines = new EnumMap<>(ExtractionEngineType.class);
+    private final ExtractionMetrics extractionMetrics;
+    private final ExtractionEngineType defaultEngine;
+    private final int analyzeExpensePercent;
+    private final boolean fallbackOnEmpty;
+
+    public ReceiptExtractionRouter(
+            List<ReceiptExtractionEngine> engines,
+            ExtractionMetrics extractionMetrics,
+            @Value("${receipt.extraction.engine:detect-text}") String defaultEngine,
+            @Value("${receipt.extraction.analyze-expense-percent:0}") int analyzeExpensePercent,
+            @Value("${receipt.extraction.fallback-on-empty:true}") boolean fallbackOnEmpty) {
+        engines.forEach(engine -> this.engines.put(engine.type(), engine));
+        this.extractionMetrics = extractionMetrics;
+        this.defaultEngine = ExtractionEngineType.fromId(defaultEngine);
+        this.analyzeExpensePercent = Math.max(0, Math.min(100, analyzeExpensePercent));
+        this.fallbackOnEmpty = fallbackOnEmpty;
+        log.info("Receipt extraction engine: {} ({}% routed to {})", defaultEngine,
+                this.analyzeExpensePercent, ExtractionEngineType.ANALYZE_EXPENSE.id());
+    }
+
+    /**
+     * All receipts found on the image, in reading order.
+     */
+    public List<Receipt> extract(ByteBuffer imageContent) {
+        ExtractionEngineType engine = select(imageContent);
+        List<Receipt> receipts = extractWith(engine, imageContent);
+
+        if (fallbackOnEmpty && engine == ExtractionEngineType.ANALYZE_EXPENSE && hasNoItems(receipts)) {
+            log.info("AnalyzeExpense found no line items, falling back to {}", ExtractionEngineType.DETECT_TEXT.id());
+            return extractWith(ExtractionEngineType.DETECT_TEXT, imageContent);
+        }
+        return receipts;
+    }
+
+    ExtractionEngineType select(ByteBuffer imageContent) {
+        if (analyzeExpensePercent == 0 || defaultEngine == ExtractionEngineType.ANALYZE_EXPENSE) {
+            return defaultEngine;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(imageContent.duplicate());
+        return crc.getValue() % 100 < analyzeExpensePercent ? ExtractionEngineType.ANALYZE_EXPENSE : defaultEngine;
+    }
+
+    private List<Receipt> extractWith(ExtractionEngineType engine, ByteBuffer imageContent) {
+        Timer.Sample sample = extractionMetrics.startExtraction();
+        try {
+            List<Receipt> receipts = engines.get(engine).extract(imageContent);
+            extractionMetrics.recordExtraction(sample, engine, hasNoItems(receipts) ? "empty" : "success");
+            extractionMetrics.recordReceiptsPerImage(engine, receipts.size());
+            DiagnosticTrace trace = DiagnosticTraces.current();
+            if (trace != null) {
+                trace.event("extraction", Map.of("engine", engine.id(),
+                        "receipts", receipts.stream().map(this::traceFields).toList()));
+            }
+            return receipts;
+        } catch (RuntimeException e) {
+            extractionMetrics.recordExtraction(sample, engine, "error");
+            throw e;
+        }
+    }
+
+    private Map<String, Object> traceFields(Receipt receipt) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("companyName", receipt.getCompanyName());
+        fields.put("branch", receipt.getBranch());
+        fields.put("managerName", receipt.getManagerName());
+        fields.put("cashierNumber", receipt.getCashierNumber());
+        fields.put("items", receipt.getItems().size());
+        fields.put("subTotal", receipt.getSubTotal());
+        fields.put("cash", receipt.getCash());
+        fields.put("changeAmount", receipt.getChangeAmount());
+        return fields;
+    }
+
+    private boolean hasNoItems(List<Receipt> receipts) {
+        return receipts.stream().allMatch(receipt -> receipt.getItems().isEmpty());
+    }
+}
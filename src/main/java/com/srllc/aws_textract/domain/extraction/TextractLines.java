@@ -0,0 +1,45 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts Textract text-detection blocks into the lines and line geometry the parsers read.
+ */
+final class TextractLines {
+
+    private TextractLines() {
+    }
+
+    static ExtractTextResponse fromBlocks(List<Block> blocks) {
+        List<Block> lineBlocks = blocks.stream()
+                .filter(block -> block.blockType() == BlockType.LINE)
+                .toList();
+        List<String> lines = lineBlocks.stream()
+                .map(Block::text)
+                .toList();
+        return new ExtractTextResponse(lines, toLayout(lineBlocks));
+    }
+
+    /**
+     * Line geometry for the layout-aware parser; empty if any line lacks a bounding box.
+     */
+    private static List<LayoutLine> toLayout(List<Block> lineBlocks) {
+        List<LayoutLine> layout = new ArrayList<>(lineBlocks.size());
+        for (Block block : lineBlocks) {
+            if (block.geometry() == null || block.geometry().boundingBox() == null) {
+                return List.of();
+            }
+            BoundingBox box = block.geometry().boundingBox();
+            layout.add(new LayoutLine(block.text(), block.page() == null ? 1 : block.page(),
+                    box.left(), box.top(), box.width(), box.height()));
+        }
+        return layout;
+    }
+}
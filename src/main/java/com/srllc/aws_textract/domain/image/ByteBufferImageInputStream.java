@@ -0,0 +1,46 @@
+package com.srllc.aws_textract.domain.image;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.nio.ByteBuffer;
+
+/**
+ * Seekable ImageIO stream over a buffer. Unlike wrapping an {@code InputStream}, nothing is
+ * cached to a temp file or copied into memory; reads go straight to the (possibly mapped) buffer.
+ */
+final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferImageInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() {
+        bitOffset = 0;
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        return buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) {
+        bitOffset = 0;
+        if (length == 0) {
+            return 0;
+        }
+        int count = (int) Math.min(length, buffer.limit() - streamPos);
+        if (count <= 0) {
+            return -1;
+        }
+        buffer.get((int) streamPos, target, offset, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+}
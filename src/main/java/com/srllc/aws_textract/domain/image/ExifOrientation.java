@@ -0,0 +1,106 @@
+package com.srllc.aws_textract.domain.image;
+
+import java.awt.geom.AffineTransform;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the EXIF orientation tag (0x0112) straight from the JPEG APP1 segment, without a
+ * metadata library, and maps it to the transform that turns the stored pixels upright.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * Orientation 1-8, or {@link #NORMAL} when the image is not a JPEG or carries no tag.
+     */
+    static int read(ByteBuffer content) {
+        ByteBuffer jpeg = content.slice();
+        if (jpeg.limit() < 4 || (jpeg.get(0) & 0xFF) != 0xFF || (jpeg.get(1) & 0xFF) != 0xD8) {
+            return NORMAL;
+        }
+        int offset = 2;
+        while (offset + 4 <= jpeg.limit() && (jpeg.get(offset) & 0xFF) == 0xFF) {
+            int marker = jpeg.get(offset + 1) & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                return NORMAL;
+            }
+            int length = readShort(jpeg, offset + 2, false);
+            int segmentStart = offset + 4;
+            if (marker == 0xE1 && isExifHeader(jpeg, segmentStart)) {
+                return readTiffOrientation(jpeg, segmentStart + 6, offset + 2 + length);
+            }
+            offset += 2 + length;
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Maps stored pixel coordinates onto the upright image for a {@code width} x {@code height}
+     * source. Orientations 5-8 swap width and height.
+     */
+    static AffineTransform transform(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+    }
+
+    static boolean swapsDimensions(int orientation) {
+        return orientation >= 5 && orientation <= 8;
+    }
+
+    private static boolean isExifHeader(ByteBuffer data, int offset) {
+        return offset + 6 <= data.limit()
+                && data.get(offset) == 'E' && data.get(offset + 1) == 'x' && data.get(offset + 2) == 'i'
+                && data.get(offset + 3) == 'f' && data.get(offset + 4) == 0 && data.get(offset + 5) == 0;
+    }
+
+    private static int readTiffOrientation(ByteBuffer data, int tiffStart, int segmentEnd) {
+        int end = Math.min(segmentEnd, data.limit());
+        if (tiffStart + 8 > end) {
+            return NORMAL;
+        }
+        boolean littleEndian = data.get(tiffStart) == 'I' && data.get(tiffStart + 1) == 'I';
+        long ifdOffset = readInt(data, tiffStart + 4, littleEndian);
+        int ifdStart = tiffStart + (int) ifdOffset;
+        if (ifdOffset < 8 || ifdStart + 2 > end) {
+            return NORMAL;
+        }
+        int entries = readShort(data, ifdStart, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifdStart + 2 + i * 12;
+            if (entry + 12 > end) {
+                return NORMAL;
+            }
+            if (readShort(data, entry, littleEndian) == TAG_ORIENTATION) {
+                int orientation = readShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static int readShort(ByteBuffer data, int offset, boolean littleEndian) {
+        int b0 = data.get(offset) & 0xFF;
+        int b1 = data.get(offset + 1) & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static long readInt(ByteBuffer data, int offset, boolean littleEndian) {
+        long first = readShort(data, offset, littleEndian);
+        long second = readShort(data, offset + 2, littleEndian);
+        return littleEndian ? (second << 16) | first : (first << 16) | second;
+    }
+}
@@ -0,0 +1,194 @@
+package com.srllc.aws_textract.domain.image;
+
+import com.srllc.aws_textract.domain.aws.AwsService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * Shrinks uploaded photos before they are sent to AWS. Large images are decoded with source
+ * subsampling, turned upright according to their EXIF orientation, scaled down to a pixel
+ * budget, converted to grayscale for Textract, and re-encoded as JPEG. Rotation, scaling and
+ * grayscale conversion happen in a single draw.
+ * <p>
+ * Small images, formats ImageIO cannot decode (PDF, HEIC, multi-page TIFF) and results that
+ * would not be smaller are passed through unchanged.
+ */
+@Component
+@Slf4j
+public class ImagePreprocessor {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long minBytes;
+    private final long maxPixels;
+    private final boolean grayscaleForText;
+    private final float jpegQuality;
+
+    public ImagePreprocessor(
+            MeterRegistry meterRegistry,
+            @Value("${image.preprocess.enabled:true}") boolean enabled,
+            @Value("${image.preprocess.min-bytes:524288}") long minBytes,
+            @Value("${image.preprocess.max-pixels:4000000}") long maxPixels,
+            @Value("${image.preprocess.textract.grayscale:true}") boolean grayscaleForText,
+            @Value("${image.preprocess.jpeg-quality:0.85}") float jpegQuality) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minBytes = minBytes;
+        this.maxPixels = maxPixels;
+        this.grayscaleForText = grayscaleForText;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Content to send to {@code service}: either a smaller re-encoded JPEG or the original buffer.
+     */
+    public ByteBuffer prepare(AwsService service, ByteBuffer imageContent) {
+        int originalSize = imageContent.remaining();
+        if (!enabled || originalSize < minBytes) {
+            return imageContent;
+        }
+        try {
+            byte[] prepared = process(service, imageContent);
+            if (prepared == null) {
+                skipped(service, "unsupported");
+                return imageContent;
+            }
+            if (prepared.length >= originalSize) {
+                skipped(service, "not_smaller");
+                return imageContent;
+            }
+            DistributionSummary.builder("image.preprocess.bytes.saved")
+                    .description("Bytes removed from an upload before it is sent to AWS")
+                    .baseUnit("bytes")
+                    .tag("service", service.id())
+                    .register(meterRegistry)
+                    .record(originalSize - prepared.length);
+            log.debug("Preprocessed image for {}: {} -> {} bytes", service.id(), originalSize, prepared.length);
+            return ByteBuffer.wrap(prepared);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image preprocessing failed, sending original: {}", e.getMessage());
+            skipped(service, "error");
+            return imageContent;
+        }
+    }
+
+    private byte[] process(AwsService service, ByteBuffer imageContent) throws IOException {
+        Timer.Sample decode = Timer.start(meterRegistry);
+        BufferedImage source = decode(imageContent);
+        stop(decode, service, "decode");
+        if (source == null) {
+            return null;
+        }
+
+        Timer.Sample transform = Timer.start(meterRegistry);
+        int orientation = ExifOrientation.read(imageContent);
+        BufferedImage upright = transform(source, orientation, service == AwsService.TEXTRACT && grayscaleForText);
+        stop(transform, service, "transform");
+
+        Timer.Sample encode = Timer.start(meterRegistry);
+        byte[] encoded = encodeJpeg(upright);
+        stop(encode, service, "encode");
+        return encoded;
+    }
+
+    /**
+     * Decodes the first image, skipping rows and columns while reading when the image is at least
+     * twice the pixel budget so the full-size bitmap is never held in memory.
+     */
+    private BufferedImage decode(ByteBuffer imageContent) throws IOException {
+        try (ImageInputStream input = new ByteBufferImageInputStream(imageContent)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = (int) Math.floor(Math.sqrt((double) pixels / maxPixels));
+                if (subsampling >= 2) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage transform(BufferedImage source, int orientation, boolean grayscale) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, Math.sqrt((double) maxPixels / ((long) width * height)));
+        boolean swap = ExifOrientation.swapsDimensions(orientation);
+        int targetWidth = Math.max(1, (int) Math.round((swap ? height : width) * scale));
+        int targetHeight = Math.max(1, (int) Math.round((swap ? width : height) * scale));
+
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+                grayscale ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+        transform.concatenate(ExifOrientation.transform(orientation, width, height));
+
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private void stop(Timer.Sample sample, AwsService service, String stage) {
+        sample.stop(Timer.builder("image.preprocess.duration")
+                .description("Time spent per image preprocessing stage")
+                .tag("service", service.id())
+                .tag("stage", stage)
+                .register(meterRegistry));
+    }
+
+    private void skipped(AwsService service, String reason) {
+        meterRegistry.counter("image.preprocess.skipped", "service", service.id(), "reason", reason).increment();
+    }
+}
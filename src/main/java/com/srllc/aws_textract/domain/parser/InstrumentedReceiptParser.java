@@ -0,0 +1,53 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+
+/**
+ * Wraps the selected parser engine and records parse time plus the number of lines read and
+ * items found per receipt, all tagged with the engine name.
+ */
+public class InstrumentedReceiptParser implements ReceiptParser {
+
+    private final ReceiptParser delegate;
+    private final Timer parseTimer;
+    private final DistributionSummary linesPerReceipt;
+    private final DistributionSummary itemsPerReceipt;
+
+    public InstrumentedReceiptParser(ReceiptParser delegate, String engine, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.parseTimer = Timer.builder("receipt.parse.duration")
+                .description("Time to parse detected text into a receipt")
+                .tag("engine", engine)
+                .register(meterRegistry);
+        this.linesPerReceipt = DistributionSummary.builder("receipt.parse.lines")
+                .description("Text lines per parsed receipt")
+                .tag("engine", engine)
+                .register(meterRegistry);
+        this.itemsPerReceipt = DistributionSummary.builder("receipt.parse.items")
+                .description("Line items found per parsed receipt")
+                .tag("engine", engine)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Receipt parse(List<String> lines) {
+        return record(lines.size(), parseTimer.record(() -> delegate.parse(lines)));
+    }
+
+    @Override
+    public Receipt parse(ExtractTextResponse extractedText) {
+        return record(extractedText.lines().size(), parseTimer.record(() -> delegate.parse(extractedText)));
+    }
+
+    private Receipt record(int lines, Receipt receipt) {
+        linesPerReceipt.record(lines);
+        itemsPerReceipt.record(receipt.getItems().size());
+        return receipt;
+    }
+}
@@ -0,0 +1,464 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+import com.srllc.aws_textract.domain.record.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Parses receipts from line geometry instead of reading order. Textract lines are grouped into
+ * visual rows by their vertical center using a sorted index, and each row is read left to right,
+ * so an item's name, quantity and price are resolved from one row instead of a lookahead window.
+ * This also works on wide receipts where Textract returns the columns one after another.
+ * Documents without geometry are handed to {@link SinglePassReceiptParser}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LayoutAwareReceiptParser implements ReceiptParser {
+
+    private static final int DEFAULT_QUANTITY = 1;
+
+    private final SinglePassReceiptParser singlePassReceiptParser;
+
+    @Override
+    public Receipt parse(List<String> lines) {
+        return singlePassReceiptParser.parse(lines);
+    }
+
+    @Override
+    public Receipt parse(ExtractTextResponse extractedText) {
+        if (extractedText.layout() == null || extractedText.layout().isEmpty()) {
+            return singlePassReceiptParser.parse(extractedText.lines());
+        }
+        List<Row> rows = groupIntoRows(extractedText.layout());
+        List<RowTokens> tokens = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            tokens.add(RowTokens.of(row));
+        }
+        return parseRows(rows, tokens);
+    }
+
+    /**
+     * Assigns every line to the row whose vertical center is within half a line height of its own,
+     * looking up only the nearest rows above and below in the index.
+     */
+    List<Row> groupIntoRows(List<LayoutLine> layout) {
+        TreeMap<Double, Row> rows = new TreeMap<>();
+        for (LayoutLine line : layout) {
+            double key = line.page() + (double) line.centerY();
+            Row row = nearestRow(rows, key, line.height());
+            if (row == null) {
+                row = new Row(line.height());
+                rows.put(key, row);
+            }
+            row.add(line);
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    private Row nearestRow(TreeMap<Double, Row> rows, double key, float height) {
+        Map.Entry<Double, Row> above = rows.floorEntry(key);
+        Map.Entry<Double, Row> below = rows.ceilingEntry(key);
+        Map.Entry<Double, Row> nearest;
+        if (above == null) {
+            nearest = below;
+        } else if (below == null) {
+            nearest = above;
+        } else {
+            nearest = key - above.getKey() <= below.getKey() - key ? above : below;
+        }
+        if (nearest == null) {
+            return null;
+        }
+        double tolerance = Math.max(height, nearest.getValue().height) / 2;
+        return Math.abs(nearest.getKey() - key) <= tolerance ? nearest.getValue() : null;
+    }
+
+    private Receipt parseRows(List<Row> rows, List<RowTokens> tokens) {
+        Receipt receipt = new Receipt();
+        boolean inItems = false;
+        boolean itemsDone = false;
+        String pendingName = null;
+
+        for (int r = 0; r < rows.size(); r++) {
+            RowTokens row = tokens.get(r);
+            if (row.isEmpty()) {
+                continue;
+            }
+
+            if (receipt.getCompanyName() == null) {
+                receipt.setCompanyName(row.text());
+                continue;
+            }
+            if (receipt.getBranch() == null && ReceiptTextScanner.isBranch(row.text(), row.text().length())) {
+                receipt.setBranch(row.text());
+            }
+
+            if (readLabels(rows, tokens, r, receipt)) {
+                continue;
+            }
+
+            if (!inItems && row.isSectionHeader()) {
+                inItems = true;
+                continue;
+            }
+
+            TotalType total = TotalType.of(row.label());
+            if (total != null) {
+                if (inItems) {
+                    itemsDone = true;
+                }
+                long amount = row.hasAmount() ? row.lastAmount() : nextRowAmount(tokens, r);
+                if (ReceiptTextScanner.isAmount(amount)) {
+                    total.apply(receipt, amount);
+                }
+                continue;
+            }
+
+            if (inItems && !itemsDone) {
+                pendingName = parseItemRow(row, pendingName, receipt);
+            }
+        }
+
+        applyDefaults(receipt);
+        log.debug("Parsed receipt from {} rows: company={}, items={}, subTotal={}",
+                rows.size(), receipt.getCompanyName(), receipt.getItems().size(), receipt.getSubTotal());
+        return receipt;
+    }
+
+    /**
+     * Reads one item row: the last amount is the price, a short number at the start or right before
+     * the price is the quantity, and the remaining tokens form the name. A name row without a price
+     * is kept and joined with the next row, for names that wrap onto a second line.
+     */
+    private String parseItemRow(RowTokens row, String pendingName, Receipt receipt) {
+        if (row.isSeparator()) {
+            return pendingName;
+        }
+        int priceIndex = row.lastAmountIndex();
+        if (priceIndex < 0) {
+            String name = row.nameTokens(-1, -1);
+            if (name.isEmpty()) {
+                return pendingName;
+            }
+            return pendingName == null ? name : pendingName + " " + name;
+        }
+
+        int quantityIndex = -1;
+        int firstPrice = row.firstAmountIndex();
+        if (firstPrice > 0 && row.isQuantity(firstPrice - 1)) {
+            quantityIndex = firstPrice - 1;
+        } else if (row.isQuantity(0) && firstPrice > 1) {
+            quantityIndex = 0;
+        }
+
+        String name = row.nameTokens(quantityIndex, priceIndex);
+        if (pendingName != null) {
+            name = name.isEmpty() ? pendingName : pendingName + " " + name;
+        }
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        ReceiptItem item = new ReceiptItem();
+        item.setProductName(name);
+        item.setQuantity(quantityIndex >= 0 ? row.quantity(quantityIndex) : DEFAULT_QUANTITY);
+        item.setPrice(Money.ofMinor(row.amount(priceIndex)));
+        receipt.addItem(item);
+        return null;
+    }
+
+    /**
+     * Reads {@code Cashier:} and {@code Manager:} cells of a row. The value is the rest of the cell,
+     * the next cell in the row, or the following row.
+     */
+    private boolean readLabels(List<Row> rows, List<RowTokens> tokens, int index, Receipt receipt) {
+        List<LayoutLine> cells = rows.get(index).cells();
+        boolean found = false;
+        for (int c = 0; c < cells.size(); c++) {
+            String cell = cellText(cells.get(c));
+            boolean cashier = startsWithLabel(cell, "cashier");
+            boolean manager = !cashier && startsWithLabel(cell, "manager");
+            if (!cashier && !manager) {
+                continue;
+            }
+            found = true;
+
+            String value = valueAfterLabel(cell, cashier ? "cashier" : "manager");
+            if (value == null && c + 1 < cells.size()) {
+                value = blankToNull(cellText(cells.get(c + 1)));
+            } else if (value == null && cells.size() == 1 && index + 1 < rows.size()) {
+                value = blankToNull(tokens.get(index + 1).text());
+            }
+
+            if (cashier && value != null && isHashNumeric(value)) {
+                receipt.setCashierNumber(value);
+            } else if (manager && value != null && !isNumeric(value)
+                    && !ReceiptTextScanner.isPriceOnly(value, 0, value.length())) {
+                receipt.setManagerName(value);
+            }
+        }
+        return found;
+    }
+
+    private long nextRowAmount(List<RowTokens> tokens, int index) {
+        if (index + 1 >= tokens.size()) {
+            return Money.NOT_AN_AMOUNT;
+        }
+        RowTokens next = tokens.get(index + 1);
+        return next.hasAmount() && next.label().isEmpty() ? next.lastAmount() : Money.NOT_AN_AMOUNT;
+    }
+
+    private static boolean startsWithLabel(String label, String keyword) {
+        return label.regionMatches(true, 0, keyword, 0, keyword.length())
+                && (label.length() == keyword.length() || label.charAt(keyword.length()) == ':'
+                || label.charAt(keyword.length()) == ' ');
+    }
+
+    private static String valueAfterLabel(String text, String keyword) {
+        String value = text.substring(keyword.length()).trim();
+        if (value.startsWith(":")) {
+            value = value.substring(1).trim();
+        }
+        return blankToNull(value);
+    }
+
+    private static String cellText(LayoutLine cell) {
+        return cell.text() == null ? "" : cell.text().trim();
+    }
+
+    private static String blankToNull(String text) {
+        return text == null || text.isBlank() ? null : text.trim();
+    }
+
+    private static boolean isNumeric(String text) {
+        return !text.isEmpty() && ReceiptTextScanner.allDigits(text, 0, text.length());
+    }
+
+    private static boolean isHashNumeric(String text) {
+        int from = text.startsWith("#") ? 1 : 0;
+        return from < text.length() && ReceiptTextScanner.allDigits(text, from, text.length());
+    }
+
+    private void applyDefaults(Receipt receipt) {
+        if (receipt.getCompanyName() == null) receipt.setCompanyName("Unknown Store");
+        if (receipt.getBranch() == null) receipt.setBranch("Main Branch");
+        if (receipt.getManagerName() == null) receipt.setManagerName("N/A");
+        if (receipt.getCashierNumber() == null) receipt.setCashierNumber("N/A");
+        if (receipt.getSubTotal() == null) receipt.setSubTotal(Money.ZERO);
+        if (receipt.getCash() == null) receipt.setCash(Money.ZERO);
+        if (receipt.getChangeAmount() == null) receipt.setChangeAmount(Money.ZERO);
+    }
+
+    private enum TotalType {
+        SUBTOTAL, CASH, CHANGE, OTHER_TOTAL;
+
+        static TotalType of(String label) {
+            String text = label.endsWith(":") ? label.substring(0, label.length() - 1).trim() : label;
+            if (ReceiptTextScanner.isSubTotal(text, 0, text.length())) {
+                return SUBTOTAL;
+            }
+            if (ReceiptTextScanner.equalsIgnoreCase(text, 0, text.length(), "cash")) {
+                return CASH;
+            }
+            if (ReceiptTextScanner.equalsIgnoreCase(text, 0, text.length(), "change")) {
+                return CHANGE;
+            }
+            if (ReceiptTextScanner.containsIgnoreCase(text, 0, text.length(), "total")) {
+                return OTHER_TOTAL;
+            }
+            return null;
+        }
+
+        void apply(Receipt receipt, long minorUnits) {
+            switch (this) {
+                case SUBTOTAL -> receipt.setSubTotal(Money.ofMinor(minorUnits));
+                case CASH -> receipt.setCash(Money.ofMinor(minorUnits));
+                case CHANGE -> receipt.setChangeAmount(Money.ofMinor(minorUnits));
+                case OTHER_TOTAL -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Lines sharing a vertical position, kept sorted left to right.
+     */
+    static final class Row {
+
+        private final float height;
+        private final List<LayoutLine> cells = new ArrayList<>(4);
+
+        private Row(float height) {
+            this.height = height;
+        }
+
+        private void add(LayoutLine line) {
+            int i = cells.size();
+            while (i > 0 && cells.get(i - 1).left() > line.left()) {
+                i--;
+            }
+            cells.add(i, line);
+        }
+
+        List<LayoutLine> cells() {
+            return cells;
+        }
+    }
+
+    /**
+     * Whitespace-separated tokens of a row with their amounts resolved once.
+     */
+    private static final class RowTokens {
+
+        private final String text;
+        private final List<String> tokens;
+        private final long[] amounts;
+        private final int firstAmount;
+        private final int lastAmount;
+
+        private RowTokens(String text, List<String> tokens) {
+            this.text = text;
+            this.tokens = tokens;
+            this.amounts = new long[tokens.size()];
+            int first = -1;
+            int last = -1;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                amounts[i] = ReceiptTextScanner.isPriceOnly(token, 0, token.length())
+                        ? ReceiptTextScanner.findAmount(token, 0, token.length())
+                        : Money.NOT_AN_AMOUNT;
+                if (ReceiptTextScanner.isAmount(amounts[i])) {
+                    if (first < 0) {
+                        first = i;
+                    }
+                    last = i;
+                }
+            }
+            this.firstAmount = first;
+            this.lastAmount = last;
+        }
+
+        static RowTokens of(Row row) {
+            StringBuilder text = new StringBuilder();
+            List<String> tokens = new ArrayList<>();
+            for (LayoutLine cell : row.cells()) {
+                String cellText = cellText(cell);
+                if (cellText.isEmpty()) {
+                    continue;
+                }
+                if (!text.isEmpty()) {
+                    text.append(' ');
+                }
+                text.append(cellText);
+                addTokens(cellText, tokens);
+            }
+            return new RowTokens(text.toString(), tokens);
+        }
+
+        private static void addTokens(String text, List<String> tokens) {
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && text.charAt(i) <= ' ') {
+                    i++;
+                }
+                int start = i;
+                while (i < length && text.charAt(i) > ' ') {
+                    i++;
+                }
+                if (i > start && !(i - start == 1 && text.charAt(start) == '$')) {
+                    tokens.add(text.substring(start, i));
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return tokens.isEmpty();
+        }
+
+        String text() {
+            return text;
+        }
+
+        /**
+         * The row text before its first amount, e.g. {@code Sub Total} in {@code Sub Total $29.17}.
+         */
+        String label() {
+            if (firstAmount < 0) {
+                return text;
+            }
+            return String.join(" ", tokens.subList(0, firstAmount));
+        }
+
+        boolean hasAmount() {
+            return firstAmount >= 0;
+        }
+
+        int firstAmountIndex() {
+            return firstAmount;
+        }
+
+        int lastAmountIndex() {
+            return lastAmount;
+        }
+
+        long lastAmount() {
+            return amounts[lastAmount];
+        }
+
+        long amount(int index) {
+            return amounts[index];
+        }
+
+        boolean isQuantity(int index) {
+            String token = tokens.get(index);
+            return token.length() <= 3 && isNumeric(token);
+        }
+
+        int quantity(int index) {
+            String token = tokens.get(index);
+            return ReceiptTextScanner.parseSmallInt(token, 0, token.length());
+        }
+
+        boolean isSectionHeader() {
+            for (String token : tokens) {
+                if (ReceiptTextScanner.isSectionHeader(token, 0, token.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isSeparator() {
+            return tokens.size() == 1 && ReceiptTextScanner.isSeparator(text, 0, text.length());
+        }
+
+        /**
+         * Tokens that are neither the quantity nor an amount, joined in reading order.
+         */
+        String nameTokens(int quantityIndex, int priceIndex) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i == quantityIndex || ReceiptTextScanner.isAmount(amounts[i]) || (priceIndex >= 0 && i > priceIndex)) {
+                    continue;
+                }
+                if (!name.isEmpty()) {
+                    name.append(' ');
+                }
+                name.append(tokens.get(i));
+            }
+            return name.toString();
+        }
+    }
+}
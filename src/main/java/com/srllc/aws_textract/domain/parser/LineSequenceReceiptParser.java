@@ -0,0 +1,304 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Heuristic receipt parser that works on the OCR lines in reading order. Header fields,
+ * the items section and the financial totals are located by keyword and pattern matching.
+ */
+@Component
+@Slf4j
+public class LineSequenceReceiptParser implements ReceiptParser {
+
+    private static final Pattern PRICE_PATTERN = Pattern.compile("\\$?\\s*(\\d+\\.\\d{2})");
+    private static final Pattern QUANTITY_PATTERN = Pattern.compile("^(\\d{1,3})$");
+    private static final Pattern SECTION_HEADER = Pattern.compile("^(name|qty|quantity|price)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SUBTOTAL_PATTERN = Pattern.compile("^(sub\\s*total|subtotal)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CASH_PATTERN = Pattern.compile("^cash$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CHANGE_PATTERN = Pattern.compile("^change$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CASHIER_PATTERN = Pattern.compile("^cashier:?$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MANAGER_PATTERN = Pattern.compile("^manager:?$", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public Receipt parse(List<String> lines) {
+        Receipt receipt = new Receipt();
+
+        extractHeaderInfo(lines, receipt);
+        int itemsSectionStart = findItemsSectionStart(lines);
+        int itemsSectionEnd = findItemsSectionEnd(lines);
+
+        if (itemsSectionStart >= 0 && itemsSectionEnd > itemsSectionStart) {
+            List<ReceiptItem> items = parseItemsFromSection(lines, itemsSectionStart, itemsSectionEnd);
+            items.forEach(receipt::addItem);
+        }
+
+        extractFinancialData(lines, receipt);
+        applyDefaults(receipt);
+
+        return receipt;
+    }
+
+    private void extractHeaderInfo(List<String> lines, Receipt receipt) {
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            String lowerLine = line.toLowerCase();
+
+            if (receipt.getCompanyName() == null && isLikelyCompanyName(line, i)) {
+                receipt.setCompanyName(line);
+                log.debug("✓ Company: {}", line);
+            }
+
+            if (receipt.getBranch() == null && isLikelyBranch(line)) {
+                receipt.setBranch(line);
+                log.debug("✓ Branch: {}", line);
+            }
+
+            if (CASHIER_PATTERN.matcher(lowerLine).matches()) {
+                String cashierValue = extractValueFromSameLine(line, "cashier");
+                if (cashierValue == null) {
+                    cashierValue = extractNextNumericValue(lines, i);
+                }
+                if (cashierValue != null) {
+                    receipt.setCashierNumber(cashierValue);
+                    log.debug("✓ Cashier: {}", cashierValue);
+                }
+            }
+
+            if (MANAGER_PATTERN.matcher(lowerLine).matches()) {
+                String managerValue = extractValueFromSameLine(line, "manager");
+                if (managerValue == null) {
+                    managerValue = extractNextNonNumericValue(lines, i);
+                }
+                if (managerValue != null) {
+                    receipt.setManagerName(managerValue);
+                    log.debug("✓ Manager: {}", managerValue);
+                }
+            }
+        }
+    }
+
+    private int findItemsSectionStart(List<String> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (SECTION_HEADER.matcher(lines.get(i).toLowerCase()).matches()) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int findItemsSectionEnd(List<String> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            String lowerLine = lines.get(i).toLowerCase();
+            if (SUBTOTAL_PATTERN.matcher(lowerLine).matches() ||
+                    lowerLine.contains("total") ||
+                    CASH_PATTERN.matcher(lowerLine).matches()) {
+                return i;
+            }
+        }
+        return lines.size();
+    }
+
+    private List<ReceiptItem> parseItemsFromSection(List<String> lines, int start, int end) {
+        List<ReceiptItem> items = new ArrayList<>();
+        int i = start;
+
+        while (i < end) {
+            String line = lines.get(i).trim();
+
+            if (line.isEmpty() || SECTION_HEADER.matcher(line.toLowerCase()).matches() ||
+                    SUBTOTAL_PATTERN.matcher(line.toLowerCase()).matches() ||
+                    isLikelySeparator(line) || isNumericOnly(line) || isPriceOnly(line)) {
+                i++;
+                continue;
+            }
+
+            ReceiptItem item = tryParseItem(lines, i, end);
+            if (item != null) {
+                items.add(item);
+                log.debug("✓ Item: {} x{} = ${}", item.getProductName(), item.getQuantity(), item.getPrice());
+                i = findNextProductStart(lines, i + 1, end);
+            } else {
+                i++;
+            }
+        }
+
+        return items;
+    }
+
+    private ReceiptItem tryParseItem(List<String> lines, int startIdx, int endIdx) {
+        String productName = lines.get(startIdx).trim();
+        Integer quantity = null;
+        Money price = null;
+
+        for (int i = startIdx + 1; i < Math.min(startIdx + 5, endIdx); i++) {
+            String line = lines.get(i).trim();
+
+            if (quantity == null && QUANTITY_PATTERN.matcher(line).matches()) {
+                try {
+                    quantity = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    log.debug("Failed to parse quantity: {}", line);
+                }
+            }
+
+            if (price == null) {
+                Matcher priceMatcher = PRICE_PATTERN.matcher(line);
+                if (priceMatcher.find()) {
+                    price = toMoney(line, priceMatcher);
+                    if (price == null) {
+                        log.debug("Failed to parse price: {}", line);
+                    }
+                }
+            }
+
+            if (quantity != null && price != null) {
+                ReceiptItem item = new ReceiptItem();
+                item.setProductName(productName);
+                item.setQuantity(quantity);
+                item.setPrice(price);
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    private void extractFinancialData(List<String> lines, Receipt receipt) {
+        for (int i = 0; i < lines.size(); i++) {
+            String lowerLine = lines.get(i).toLowerCase();
+
+            if (SUBTOTAL_PATTERN.matcher(lowerLine).matches()) {
+                Money value = extractNextPriceValue(lines, i);
+                if (value != null) {
+                    receipt.setSubTotal(value);
+                    log.debug("✓ SubTotal: ${}", value);
+                }
+            }
+
+            if (CASH_PATTERN.matcher(lowerLine).matches()) {
+                Money value = extractNextPriceValue(lines, i);
+                if (value != null) {
+                    receipt.setCash(value);
+                    log.debug("✓ Cash: ${}", value);
+                }
+            }
+
+            if (CHANGE_PATTERN.matcher(lowerLine).matches()) {
+                Money value = extractNextPriceValue(lines, i);
+                if (value != null) {
+                    receipt.setChangeAmount(value);
+                    log.debug("✓ Change: ${}", value);
+                }
+            }
+        }
+    }
+
+    private boolean isLikelyCompanyName(String line, int idx) {
+        return idx == 0 || (line.length() > 3 && !isPriceOnly(line) && !isNumericOnly(line) &&
+                !line.toLowerCase().contains("city") && !line.toLowerCase().contains("address"));
+    }
+
+    private boolean isLikelyBranch(String line) {
+        String lower = line.toLowerCase();
+        return (lower.contains("city") && !lower.contains("index")) ||
+                lower.contains("branch") || lower.contains("store") ||
+                lower.contains("location") || lower.contains("outlet");
+    }
+
+    private boolean isLikelySeparator(String line) {
+        return line.matches("^[-=*_]{3,}$");
+    }
+
+    private boolean isNumericOnly(String line) {
+        return line.matches("^\\d+$");
+    }
+
+    private boolean isPriceOnly(String line) {
+        return PRICE_PATTERN.matcher(line).matches();
+    }
+
+    private String extractNextNumericValue(List<String> lines, int startIdx) {
+        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
+            String line = lines.get(i).trim();
+            if (line.matches("^#?\\d+$")) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private String extractNextNonNumericValue(List<String> lines, int startIdx) {
+        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
+            String line = lines.get(i).trim();
+            if (!line.isEmpty() && !isNumericOnly(line) && !isPriceOnly(line)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private String extractValueFromSameLine(String line, String label) {
+        String lowerLine = line.toLowerCase();
+        int labelPos = lowerLine.indexOf(label);
+        if (labelPos >= 0) {
+            String remainder = line.substring(labelPos + label.length()).trim();
+            remainder = remainder.replaceFirst("^:\\s*", "");
+            if (!remainder.isEmpty()) {
+                return remainder;
+            }
+        }
+        return null;
+    }
+
+    private Money extractNextPriceValue(List<String> lines, int startIdx) {
+        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
+            String line = lines.get(i).trim();
+            Matcher matcher = PRICE_PATTERN.matcher(line);
+            if (matcher.find()) {
+                Money value = toMoney(line, matcher);
+                if (value != null) {
+                    return value;
+                }
+                log.debug("Failed to parse price value: {}", line);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the matched amount in place, without copying the group out of the line.
+     */
+    private Money toMoney(String line, Matcher matcher) {
+        long minorUnits = Money.parseMinorUnits(line, matcher.start(1), matcher.end(1));
+        return minorUnits == Money.NOT_AN_AMOUNT ? null : Money.ofMinor(minorUnits);
+    }
+
+    private int findNextProductStart(List<String> lines, int startIdx, int endIdx) {
+        for (int i = startIdx; i < endIdx; i++) {
+            String line = lines.get(i).trim();
+            if (!line.isEmpty() && !isNumericOnly(line) && !isPriceOnly(line)) {
+                return i;
+            }
+        }
+        return startIdx;
+    }
+
+    private void applyDefaults(Receipt receipt) {
+        if (receipt.getCompanyName() == null) receipt.setCompanyName("Unknown Store");
+        if (receipt.getBranch() == null) receipt.setBranch("Main Branch");
+        if (receipt.getManagerName() == null) receipt.setManagerName("N/A");
+        if (receipt.getCashierNumber() == null) receipt.setCashierNumber("N/A");
+        if (receipt.getSubTotal() == null) receipt.setSubTotal(Money.ZERO);
+        if (receipt.getCash() == null) receipt.setCash(Money.ZERO);
+        if (receipt.getChangeAmount() == null) receipt.setChangeAmount(Money.ZERO);
+    }
+}
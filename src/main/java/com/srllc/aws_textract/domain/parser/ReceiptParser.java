@@ -0,0 +1,17 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+
+import java.util.List;
+
+public interface ReceiptParser {
+    Receipt parse(List<String> lines);
+
+    /**
+     * Parses detected text; engines that use line geometry override this.
+     */
+    default Receipt parse(ExtractTextResponse extractedText) {
+        return parse(extractedText.lines());
+    }
+}
@@ -0,0 +1,324 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits the text of one image into one region per photographed receipt, so a sheet with several
+ * receipts is not parsed as a single receipt. A receipt is taken to end with a grand total line, a
+ * line whose label is exactly {@code Total}, {@code Sub Total}, {@code Grand Total}, {@code Total Due},
+ * {@code Amount Due} or {@code Balance Due}; lines such as {@code Total Qty} or {@code Total Savings}
+ * do not end a receipt. A new receipt must also hold a {@code Name}/{@code Qty}/{@code Price} header.
+ * <p>
+ * With geometry, lines are first split into columns at vertical strips of empty page at least
+ * {@code receipt.segmentation.column-gap} wide, then each column into bands at vertical gaps over
+ * {@code receipt.segmentation.row-gap-factor} line heights. Columns and bands without a total line
+ * are joined to a neighbour: an amounts-only column to the column on its left, a header band to the
+ * band below it, and a footer band to whichever neighbour is closer. A total without an items header
+ * since the previous receipt closes that receipt's totals instead of starting a receipt. Without
+ * geometry, the text is split after a run of total/cash/change lines when a further items section
+ * and total follow.
+ * <p>
+ * Each region keeps Textract's reading order. Text with a single receipt is returned unchanged.
+ */
+@Component
+@Slf4j
+public class ReceiptSegmenter {
+
+    private final boolean enabled;
+    private final float columnGap;
+    private final float rowGapFactor;
+
+    public ReceiptSegmenter(
+            @Value("${receipt.segmentation.enabled:false}") boolean enabled,
+            @Value("${receipt.segmentation.column-gap:0.04}") float columnGap,
+            @Value("${receipt.segmentation.row-gap-factor:3.0}") float rowGapFactor) {
+        this.enabled = enabled;
+        this.columnGap = columnGap;
+        this.rowGapFactor = rowGapFactor;
+    }
+
+    public List<ExtractTextResponse> split(ExtractTextResponse extractedText) {
+        List<String> lines = extractedText.lines();
+        if (!enabled || lines.isEmpty()) {
+            return List.of(extractedText);
+        }
+        boolean hasLayout = extractedText.layout() != null && extractedText.layout().size() == lines.size();
+        List<List<Integer>> segments = hasLayout ? splitByGeometry(extractedText.layout()) : splitByMarkers(lines);
+        if (segments.size() <= 1) {
+            return List.of(extractedText);
+        }
+
+        log.debug("Split text of {} lines into {} receipts", lines.size(), segments.size());
+        List<ExtractTextResponse> receipts = new ArrayList<>(segments.size());
+        for (List<Integer> segment : segments) {
+            segment.sort(null);
+            List<String> segmentLines = new ArrayList<>(segment.size());
+            List<LayoutLine> segmentLayout = new ArrayList<>(hasLayout ? segment.size() : 0);
+            for (int index : segment) {
+                segmentLines.add(lines.get(index));
+                if (hasLayout) {
+                    segmentLayout.add(extractedText.layout().get(index));
+                }
+            }
+            receipts.add(new ExtractTextResponse(segmentLines, segmentLayout));
+        }
+        return receipts;
+    }
+
+    private List<List<Integer>> splitByGeometry(List<LayoutLine> layout) {
+        List<List<Integer>> receipts = new ArrayList<>();
+        for (List<Integer> column : joinColumns(columns(layout), layout)) {
+            receipts.addAll(joinBands(column, layout));
+        }
+        return receipts;
+    }
+
+    /**
+     * Groups lines whose horizontal extents overlap or lie closer than the column gap.
+     */
+    private List<List<Integer>> columns(List<LayoutLine> layout) {
+        Integer[] byLeft = new Integer[layout.size()];
+        Arrays.setAll(byLeft, i -> i);
+        Arrays.sort(byLeft, Comparator.comparingDouble(i -> layout.get(i).left()));
+
+        List<List<Integer>> columns = new ArrayList<>();
+        List<Integer> column = null;
+        float right = 0;
+        for (int index : byLeft) {
+            LayoutLine line = layout.get(index);
+            if (column == null || line.left() - right > columnGap) {
+                column = new ArrayList<>();
+                columns.add(column);
+                right = line.left() + line.width();
+            } else {
+                right = Math.max(right, line.left() + line.width());
+            }
+            column.add(index);
+        }
+        return columns;
+    }
+
+    /**
+     * Receipt labels ("Sub Total", "Cash") are left of their amounts, so a column without a total
+     * line and items header belongs to the receipt on its left; only a leading one is carried to the right.
+     */
+    private List<List<Integer>> joinColumns(List<List<Integer>> columns, List<LayoutLine> layout) {
+        List<List<Integer>> joined = new ArrayList<>();
+        List<Integer> carried = new ArrayList<>();
+        for (List<Integer> column : columns) {
+            if (hasTotal(column, layout) && hasHeader(column, layout)) {
+                column.addAll(carried);
+                carried.clear();
+                joined.add(column);
+            } else if (joined.isEmpty()) {
+                carried.addAll(column);
+            } else {
+                joined.get(joined.size() - 1).addAll(column);
+            }
+        }
+        if (joined.isEmpty()) {
+            joined.add(carried);
+        }
+        return joined;
+    }
+
+    private List<List<Integer>> joinBands(List<Integer> column, List<LayoutLine> layout) {
+        column.sort(Comparator.comparingInt((Integer i) -> layout.get(i).page())
+                .thenComparingDouble(i -> layout.get(i).top()));
+        float maxGap = rowGapFactor * medianHeight(column, layout);
+
+        List<List<Integer>> bands = new ArrayList<>();
+        List<Float> gapsBefore = new ArrayList<>();
+        List<Integer> band = null;
+        LayoutLine previous = null;
+        float bottom = 0;
+        for (int index : column) {
+            LayoutLine line = layout.get(index);
+            float gap = previous == null || previous.page() != line.page() ? Float.MAX_VALUE : line.top() - bottom;
+            if (band == null || gap > maxGap) {
+                band = new ArrayList<>();
+                bands.add(band);
+                gapsBefore.add(gap);
+                bottom = line.top() + line.height();
+            } else {
+                bottom = Math.max(bottom, line.top() + line.height());
+            }
+            band.add(index);
+            previous = line;
+        }
+
+        List<List<Integer>> receipts = new ArrayList<>();
+        List<Integer> open = new ArrayList<>();
+        boolean openHasHeader = false;
+        for (int i = 0; i < bands.size(); i++) {
+            List<Integer> current = bands.get(i);
+            boolean total = hasTotal(current, layout);
+            float gapAfter = i + 1 < bands.size() ? gapsBefore.get(i + 1) : Float.MAX_VALUE;
+            if (!total && open.isEmpty() && !receipts.isEmpty() && gapsBefore.get(i) <= gapAfter) {
+                receipts.get(receipts.size() - 1).addAll(current);
+                continue;
+            }
+            open.addAll(current);
+            openHasHeader |= hasHeader(current, layout);
+            if (total) {
+                if (openHasHeader || receipts.isEmpty()) {
+                    receipts.add(open);
+                } else {
+                    receipts.get(receipts.size() - 1).addAll(open);
+                }
+                open = new ArrayList<>();
+                openHasHeader = false;
+            }
+        }
+        if (!open.isEmpty()) {
+            if (receipts.isEmpty()) {
+                receipts.add(open);
+            } else {
+                receipts.get(receipts.size() - 1).addAll(open);
+            }
+        }
+        return receipts;
+    }
+
+    private float medianHeight(List<Integer> indices, List<LayoutLine> layout) {
+        float[] heights = new float[indices.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = layout.get(indices.get(i)).height();
+        }
+        Arrays.sort(heights);
+        return heights[heights.length / 2];
+    }
+
+    private boolean hasTotal(List<Integer> indices, List<LayoutLine> layout) {
+        for (int index : indices) {
+            if (isTotal(layout.get(index).text())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasHeader(List<Integer> indices, List<LayoutLine> layout) {
+        for (int index : indices) {
+            String line = layout.get(index).text().trim();
+            if (ReceiptTextScanner.isSectionHeader(line, 0, line.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reading-order fallback: a receipt ends after its totals run (total, cash and change lines
+     * with their amounts) if the remaining lines hold another items header and total.
+     */
+    private List<List<Integer>> splitByMarkers(List<String> lines) {
+        List<List<Integer>> segments = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < lines.size()) {
+            if (!isTotal(lines.get(i))) {
+                i++;
+                continue;
+            }
+            int end = endOfTotals(lines, i + 1);
+            if (end < lines.size() && startsAnotherReceipt(lines, end)) {
+                segments.add(range(start, end));
+                start = end;
+            }
+            i = end;
+        }
+        segments.add(range(start, lines.size()));
+        return segments;
+    }
+
+    private int endOfTotals(List<String> lines, int from) {
+        int i = from;
+        while (i < lines.size()) {
+            String line = lines.get(i);
+            int trimFrom = 0;
+            int trimTo = line.length();
+            while (trimFrom < trimTo && line.charAt(trimFrom) <= ' ') {
+                trimFrom++;
+            }
+            while (trimTo > trimFrom && line.charAt(trimTo - 1) <= ' ') {
+                trimTo--;
+            }
+            boolean partOfTotals = trimFrom == trimTo
+                    || ReceiptTextScanner.containsIgnoreCase(line, trimFrom, trimTo, "total")
+                    || ReceiptTextScanner.isLabel(line, trimFrom, trimTo, "cash")
+                    || ReceiptTextScanner.isLabel(line, trimFrom, trimTo, "change")
+                    || ReceiptTextScanner.isSeparator(line, trimFrom, trimTo)
+                    || ReceiptTextScanner.isAmount(ReceiptTextScanner.findAmount(line, trimFrom, trimTo));
+            if (!partOfTotals) {
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private boolean startsAnotherReceipt(List<String> lines, int from) {
+        boolean header = false;
+        for (int i = from; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (ReceiptTextScanner.isSectionHeader(line, 0, line.length())) {
+                header = true;
+            } else if (header && isTotal(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A grand total label covering the whole line, optionally followed by a colon and its amount,
+     * as in {@code Total}, {@code Sub Total: $29.17} or {@code AMOUNT DUE 12.00}.
+     */
+    private boolean isTotal(String line) {
+        int from = 0;
+        int to = line.length();
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        int amountFrom = to;
+        while (amountFrom > from && line.charAt(amountFrom - 1) > ' ') {
+            amountFrom--;
+        }
+        if (amountFrom > from && ReceiptTextScanner.isPriceOnly(line, amountFrom, to)) {
+            to = amountFrom;
+            while (to > from && line.charAt(to - 1) <= ' ') {
+                to--;
+            }
+        }
+        if (to > from && line.charAt(to - 1) == ':') {
+            to--;
+        }
+        return ReceiptTextScanner.isSubTotal(line, from, to)
+                || ReceiptTextScanner.equalsIgnoreCase(line, from, to, "total")
+                || ReceiptTextScanner.equalsIgnoreCase(line, from, to, "grand total")
+                || ReceiptTextScanner.equalsIgnoreCase(line, from, to, "total due")
+                || ReceiptTextScanner.equalsIgnoreCase(line, from, to, "amount due")
+                || ReceiptTextScanner.equalsIgnoreCase(line, from, to, "balance due");
+    }
+
+    private List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+}
@@ -0,0 +1,150 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.record.Money;
+
+/**
+ * Allocation-free scanners over a {@code [from, to)} range of an OCR line, matching what the
+ * line-sequence parser's regular expressions match on the lowercased line.
+ */
+final class ReceiptTextScanner {
+
+    private ReceiptTextScanner() {
+    }
+
+    /**
+     * Finds the first {@code digits.dd} amount in the line, matching the group the legacy
+     * {@code \$?\s*(\d+\.\d{2})} pattern captures with {@code find()}, and returns it in minor
+     * units, or {@link Money#NOT_AN_AMOUNT} if there is none.
+     */
+    static long findAmount(String line, int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (!isDigit(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < to && isDigit(line.charAt(i))) {
+                i++;
+            }
+            if (i + 2 < to && line.charAt(i) == '.' && isDigit(line.charAt(i + 1)) && isDigit(line.charAt(i + 2))) {
+                return Money.parseMinorUnits(line, runStart, i + 3);
+            }
+        }
+        return Money.NOT_AN_AMOUNT;
+    }
+
+    static boolean isAmount(long minorUnits) {
+        return minorUnits != Money.NOT_AN_AMOUNT;
+    }
+
+    static boolean isPriceOnly(String line, int from, int to) {
+        int i = from;
+        if (line.charAt(i) == '$') {
+            i++;
+        }
+        while (i < to && isRegexWhitespace(line.charAt(i))) {
+            i++;
+        }
+        int digitsStart = i;
+        while (i < to && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i > digitsStart && i + 3 == to && line.charAt(i) == '.'
+                && isDigit(line.charAt(i + 1)) && isDigit(line.charAt(i + 2));
+    }
+
+    static boolean isSectionHeader(String line, int from, int to) {
+        return equalsIgnoreCase(line, from, to, "name")
+                || equalsIgnoreCase(line, from, to, "qty")
+                || equalsIgnoreCase(line, from, to, "quantity")
+                || equalsIgnoreCase(line, from, to, "price");
+    }
+
+    /**
+     * {@code sub\s*total}, case-insensitive, covering the whole range.
+     */
+    static boolean isSubTotal(String line, int from, int to) {
+        if (to - from < 8 || !line.regionMatches(true, from, "sub", 0, 3)
+                || !line.regionMatches(true, to - 5, "total", 0, 5)) {
+            return false;
+        }
+        for (int i = from + 3; i < to - 5; i++) {
+            if (!isRegexWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@code label} optionally followed by a colon, case-insensitive, covering the whole range.
+     */
+    static boolean isLabel(String line, int from, int to, String label) {
+        int length = to - from;
+        if (length == label.length() + 1 && line.charAt(to - 1) == ':') {
+            to--;
+        }
+        return equalsIgnoreCase(line, from, to, label);
+    }
+
+    static boolean isSeparator(String line, int from, int to) {
+        if (to - from < 3) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c != '-' && c != '=' && c != '*' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isBranch(String line, int length) {
+        return (containsIgnoreCase(line, 0, length, "city") && !containsIgnoreCase(line, 0, length, "index"))
+                || containsIgnoreCase(line, 0, length, "branch")
+                || containsIgnoreCase(line, 0, length, "store")
+                || containsIgnoreCase(line, 0, length, "location")
+                || containsIgnoreCase(line, 0, length, "outlet");
+    }
+
+    static boolean equalsIgnoreCase(String line, int from, int to, String value) {
+        return to - from == value.length() && line.regionMatches(true, from, value, 0, value.length());
+    }
+
+    static boolean containsIgnoreCase(String line, int from, int to, String value) {
+        int last = to - value.length();
+        for (int i = from; i <= last; i++) {
+            if (line.regionMatches(true, i, value, 0, value.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean allDigits(String line, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int parseSmallInt(String line, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
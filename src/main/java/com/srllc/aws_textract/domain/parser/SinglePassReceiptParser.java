@@ -0,0 +1,305 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Produces the same {@link Receipt} as {@link LineSequenceReceiptParser}, but reads each line only
+ * once. A single classification pass records what every line is (section header, subtotal, cash,
+ * price, quantity, ...) in flag and value arrays using hand-written scanners, without lowercasing,
+ * regex matching or substring copies. Header fields, the items section and totals are then resolved
+ * from those arrays; only values that end up on the receipt are materialized as strings.
+ */
+@Component
+@Slf4j
+public class SinglePassReceiptParser implements ReceiptParser {
+
+    // Properties of the raw line (the legacy parser matches these without trimming)
+    private static final int RAW_SECTION_HEADER = 1;
+    private static final int RAW_SUBTOTAL = 1 << 1;
+    private static final int RAW_CONTAINS_TOTAL = 1 << 2;
+    private static final int RAW_CASH = 1 << 3;
+    private static final int RAW_CHANGE = 1 << 4;
+    private static final int BRANCH = 1 << 5;
+
+    // Properties of the trimmed line
+    private static final int EMPTY = 1 << 6;
+    private static final int SECTION_HEADER = 1 << 7;
+    private static final int SUBTOTAL = 1 << 8;
+    private static final int CASHIER = 1 << 9;
+    private static final int MANAGER = 1 << 10;
+    private static final int SEPARATOR = 1 << 11;
+    private static final int NUMERIC_ONLY = 1 << 12;
+    private static final int HASH_NUMERIC = 1 << 13;
+    private static final int QUANTITY = 1 << 14;
+    private static final int PRICE_ONLY = 1 << 15;
+    private static final int HAS_PRICE = 1 << 16;
+
+    private static final int SKIPPED_IN_ITEMS = EMPTY | SECTION_HEADER | SUBTOTAL | SEPARATOR | NUMERIC_ONLY | PRICE_ONLY;
+
+    @Override
+    public Receipt parse(List<String> lines) {
+        ClassifiedLines classified = classify(lines);
+        Receipt receipt = new Receipt();
+
+        if (!lines.isEmpty()) {
+            receipt.setCompanyName(classified.trimmed(0));
+        }
+        if (classified.branchLine >= 0) {
+            receipt.setBranch(classified.trimmed(classified.branchLine));
+        }
+
+        int size = classified.size;
+        for (int i = 0; i < size; i++) {
+            int flags = classified.flags[i];
+            if ((flags & CASHIER) != 0) {
+                int valueLine = nextLine(classified, i, HASH_NUMERIC, 0);
+                if (valueLine >= 0) {
+                    receipt.setCashierNumber(classified.trimmed(valueLine));
+                }
+            }
+            if ((flags & MANAGER) != 0) {
+                int valueLine = nextLine(classified, i, 0, EMPTY | NUMERIC_ONLY | PRICE_ONLY);
+                if (valueLine >= 0) {
+                    receipt.setManagerName(classified.trimmed(valueLine));
+                }
+            }
+            if ((flags & RAW_SUBTOTAL) != 0) {
+                int valueLine = nextLine(classified, i, HAS_PRICE, 0);
+                if (valueLine >= 0) {
+                    receipt.setSubTotal(Money.ofMinor(classified.prices[valueLine]));
+                }
+            }
+            if ((flags & RAW_CASH) != 0) {
+                int valueLine = nextLine(classified, i, HAS_PRICE, 0);
+                if (valueLine >= 0) {
+                    receipt.setCash(Money.ofMinor(classified.prices[valueLine]));
+                }
+            }
+            if ((flags & RAW_CHANGE) != 0) {
+                int valueLine = nextLine(classified, i, HAS_PRICE, 0);
+                if (valueLine >= 0) {
+                    receipt.setChangeAmount(Money.ofMinor(classified.prices[valueLine]));
+                }
+            }
+        }
+
+        int itemsStart = classified.itemsStart;
+        int itemsEnd = classified.itemsEnd;
+        if (itemsStart >= 0 && itemsEnd > itemsStart) {
+            parseItems(classified, itemsStart, itemsEnd, receipt);
+        }
+
+        applyDefaults(receipt);
+        log.debug("Parsed receipt: company={}, items={}, subTotal={}",
+                receipt.getCompanyName(), receipt.getItems().size(), receipt.getSubTotal());
+        return receipt;
+    }
+
+    private void parseItems(ClassifiedLines classified, int start, int end, Receipt receipt) {
+        int i = start;
+        while (i < end) {
+            if ((classified.flags[i] & SKIPPED_IN_ITEMS) != 0) {
+                i++;
+                continue;
+            }
+
+            int quantityLine = -1;
+            int priceLine = -1;
+            int windowEnd = Math.min(i + 5, end);
+            for (int j = i + 1; j < windowEnd; j++) {
+                int flags = classified.flags[j];
+                if (quantityLine < 0 && (flags & QUANTITY) != 0) {
+                    quantityLine = j;
+                }
+                if (priceLine < 0 && (flags & HAS_PRICE) != 0) {
+                    priceLine = j;
+                }
+                if (quantityLine >= 0 && priceLine >= 0) {
+                    break;
+                }
+            }
+
+            if (quantityLine >= 0 && priceLine >= 0) {
+                ReceiptItem item = new ReceiptItem();
+                item.setProductName(classified.trimmed(i));
+                item.setQuantity(classified.quantities[quantityLine]);
+                item.setPrice(Money.ofMinor(classified.prices[priceLine]));
+                receipt.addItem(item);
+                i = nextProductStart(classified, i + 1, end);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private int nextProductStart(ClassifiedLines classified, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((classified.flags[i] & (EMPTY | NUMERIC_ONLY | PRICE_ONLY)) == 0) {
+                return i;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * First of the two lines after {@code index} that has all {@code required} flags and none of
+     * the {@code excluded} ones, or -1.
+     */
+    private int nextLine(ClassifiedLines classified, int index, int required, int excluded) {
+        int end = Math.min(index + 3, classified.size);
+        for (int i = index + 1; i < end; i++) {
+            int flags = classified.flags[i];
+            if ((flags & required) == required && (flags & excluded) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ClassifiedLines classify(List<String> lines) {
+        ClassifiedLines classified = new ClassifiedLines(lines);
+        for (int i = 0; i < classified.size; i++) {
+            String line = lines.get(i);
+            int length = line.length();
+
+            int from = 0;
+            int to = length;
+            while (from < to && line.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && line.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            classified.trimFrom[i] = from;
+            classified.trimTo[i] = to;
+
+            int flags = 0;
+            if (ReceiptTextScanner.isSectionHeader(line, 0, length)) {
+                flags |= RAW_SECTION_HEADER;
+                if (classified.itemsStart < 0) {
+                    classified.itemsStart = i + 1;
+                }
+            }
+            if (ReceiptTextScanner.isSubTotal(line, 0, length)) {
+                flags |= RAW_SUBTOTAL;
+            }
+            if (ReceiptTextScanner.containsIgnoreCase(line, 0, length, "total")) {
+                flags |= RAW_CONTAINS_TOTAL;
+            }
+            if (ReceiptTextScanner.equalsIgnoreCase(line, 0, length, "cash")) {
+                flags |= RAW_CASH;
+            }
+            if (ReceiptTextScanner.equalsIgnoreCase(line, 0, length, "change")) {
+                flags |= RAW_CHANGE;
+            }
+            if (classified.itemsEnd < 0 && (flags & (RAW_SUBTOTAL | RAW_CONTAINS_TOTAL | RAW_CASH)) != 0) {
+                classified.itemsEnd = i;
+            }
+            if (ReceiptTextScanner.isBranch(line, length)) {
+                flags |= BRANCH;
+                if (classified.branchLine < 0) {
+                    classified.branchLine = i;
+                }
+            }
+
+            if (from == to) {
+                flags |= EMPTY;
+            } else {
+                flags |= classifyTrimmed(classified, i, line, from, to);
+            }
+            classified.flags[i] = flags;
+        }
+        if (classified.itemsEnd < 0) {
+            classified.itemsEnd = classified.size;
+        }
+        return classified;
+    }
+
+    private int classifyTrimmed(ClassifiedLines classified, int index, String line, int from, int to) {
+        int flags = 0;
+        if (ReceiptTextScanner.isSectionHeader(line, from, to)) {
+            flags |= SECTION_HEADER;
+        }
+        if (ReceiptTextScanner.isSubTotal(line, from, to)) {
+            flags |= SUBTOTAL;
+        }
+        if (ReceiptTextScanner.isLabel(line, from, to, "cashier")) {
+            flags |= CASHIER;
+        }
+        if (ReceiptTextScanner.isLabel(line, from, to, "manager")) {
+            flags |= MANAGER;
+        }
+        if (ReceiptTextScanner.isSeparator(line, from, to)) {
+            flags |= SEPARATOR;
+        }
+
+        int digitsFrom = line.charAt(from) == '#' ? from + 1 : from;
+        if (digitsFrom < to && ReceiptTextScanner.allDigits(line, digitsFrom, to)) {
+            flags |= HASH_NUMERIC;
+            if (digitsFrom == from) {
+                flags |= NUMERIC_ONLY;
+                if (to - from <= 3) {
+                    flags |= QUANTITY;
+                    classified.quantities[index] = ReceiptTextScanner.parseSmallInt(line, from, to);
+                }
+            }
+        }
+
+        long price = ReceiptTextScanner.findAmount(line, from, to);
+        if (ReceiptTextScanner.isAmount(price)) {
+            classified.prices[index] = price;
+            flags |= HAS_PRICE;
+            if (ReceiptTextScanner.isPriceOnly(line, from, to)) {
+                flags |= PRICE_ONLY;
+            }
+        }
+        return flags;
+    }
+
+    private void applyDefaults(Receipt receipt) {
+        if (receipt.getCompanyName() == null) receipt.setCompanyName("Unknown Store");
+        if (receipt.getBranch() == null) receipt.setBranch("Main Branch");
+        if (receipt.getManagerName() == null) receipt.setManagerName("N/A");
+        if (receipt.getCashierNumber() == null) receipt.setCashierNumber("N/A");
+        if (receipt.getSubTotal() == null) receipt.setSubTotal(Money.ZERO);
+        if (receipt.getCash() == null) receipt.setCash(Money.ZERO);
+        if (receipt.getChangeAmount() == null) receipt.setChangeAmount(Money.ZERO);
+    }
+
+    /**
+     * Per-line classification results, indexed by line number.
+     */
+    private static final class ClassifiedLines {
+
+        private final List<String> lines;
+        private final int size;
+        private final int[] flags;
+        private final int[] trimFrom;
+        private final int[] trimTo;
+        private final int[] quantities;
+        private final long[] prices;
+        private int itemsStart = -1;
+        private int itemsEnd = -1;
+        private int branchLine = -1;
+
+        private ClassifiedLines(List<String> lines) {
+            this.lines = lines;
+            this.size = lines.size();
+            this.flags = new int[size];
+            this.trimFrom = new int[size];
+            this.trimTo = new int[size];
+            this.quantities = new int[size];
+            this.prices = new long[size];
+        }
+
+        private String trimmed(int index) {
+            return lines.get(index).substring(trimFrom[index], trimTo[index]);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.srllc.aws_textract.domain.record;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Collectors;
+
+/**
+ * Identifies a cached AWS analysis result by the SHA-256 of the uploaded bytes,
+ * the operation that produced it and the parameters the operation was called with.
+ */
+public record AnalysisCacheKey(String contentHash, String operation, String parameters) {
+
+    public static AnalysisCacheKey of(byte[] content, String operation, Object... parameters) {
+        return of(ByteBuffer.wrap(content), operation, parameters);
+    }
+
+    /**
+     * Hashes the remaining bytes in place, so mapped uploads are never copied onto the heap.
+     */
+    public static AnalysisCacheKey of(ByteBuffer content, String operation, Object... parameters) {
+        String params = Arrays.stream(parameters)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return new AnalysisCacheKey(sha256(content), operation, params);
+    }
+
+    public String asString() {
+        return operation + ":" + contentHash + (parameters.isEmpty() ? "" : ":" + parameters);
+    }
+
+    private static String sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.srllc.aws_textract.domain.record;
+
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+
+/**
+ * One document of a batch upload; {@code upload} is null when it could not be read or is too large.
+ */
+public record BatchDocument(String fileName, SpooledUpload upload) {
+}
@@ -0,0 +1,4 @@
+package com.srllc.aws_textract.domain.record;
+
+public record DocumentPage(int pageNumber, ExtractTextResponse text) {
+}
@@ -1,6 +1,17 @@
 package com.srllc.aws_textract.domain.record;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
-public record ExtractTextResponse(List<String> lines) {
+/**
+ * Text detected in a document: the LINE texts in Textract's reading order and, when available,
+ * the same lines with their geometry for layout-aware parsing.
+ */
+public record ExtractTextResponse(List<String> lines,
+                                  @JsonInclude(JsonInclude.Include.NON_EMPTY) List<LayoutLine> layout) {
+
+    public ExtractTextResponse(List<String> lines) {
+        this(lines, List.of());
+    }
 }
@@ -0,0 +1,12 @@
+package com.srllc.aws_textract.domain.record;
+
+/**
+ * A Textract LINE block with its position. Coordinates are ratios of the page size,
+ * origin top-left, as returned in the block's bounding box.
+ */
+public record LayoutLine(String text, int page, float left, float top, float width, float height) {
+
+    public float centerY() {
+        return top + height / 2;
+    }
+}
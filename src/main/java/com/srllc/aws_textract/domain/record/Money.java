@@ -0,0 +1,120 @@
+package com.srllc.aws_textract.domain.record;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount held as a whole number of minor units (cents) with a fixed scale of two, so sums and
+ * comparisons are exact and an amount costs one {@code long}. The currency is not part of the
+ * value: every amount on a receipt is in the receipt's currency, which is stored once per receipt.
+ * In JSON an amount is a plain decimal number, for example {@code 12.50}.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    /**
+     * Returned by {@link #parseMinorUnits} when the text is not an amount.
+     */
+    public static final long NOT_AN_AMOUNT = Long.MIN_VALUE;
+
+    // More integer digits than this could overflow once scaled to minor units
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Rounds half up to cents.
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Reads {@code digits[.digits]} in {@code [from, to)} straight into minor units, without
+     * creating a {@code String} or going through {@code double}. Fraction digits past the second
+     * are dropped. Returns {@link #NOT_AN_AMOUNT} if anything else is in the range or the amount
+     * is too large.
+     */
+    public static long parseMinorUnits(CharSequence text, int from, int to) {
+        long units = 0;
+        int integerDigits = 0;
+        int fractionDigits = -1;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c < '0' || c > '9') {
+                return NOT_AN_AMOUNT;
+            } else if (fractionDigits < 0) {
+                if (++integerDigits > MAX_INTEGER_DIGITS) {
+                    return NOT_AN_AMOUNT;
+                }
+                units = units * 10 + (c - '0');
+            } else if (fractionDigits < SCALE) {
+                units = units * 10 + (c - '0');
+                fractionDigits++;
+            }
+        }
+        if (integerDigits == 0 && fractionDigits <= 0) {
+            return NOT_AN_AMOUNT;
+        }
+        for (int i = Math.max(fractionDigits, 0); i < SCALE; i++) {
+            units *= 10;
+        }
+        return units;
+    }
+
+    /**
+     * Formats minor units as a plain decimal ({@code -1234} becomes {@code -12.34}) without boxing.
+     */
+    public static String toPlainString(long minorUnits) {
+        StringBuilder text = new StringBuilder(24);
+        appendTo(text, minorUnits);
+        return text.toString();
+    }
+
+    public static void appendTo(StringBuilder text, long minorUnits) {
+        if (minorUnits < 0) {
+            text.append('-');
+        }
+        // Negating Long.MIN_VALUE overflows, so format the magnitude through unsigned division
+        long whole = Long.divideUnsigned(Math.abs(minorUnits), 100);
+        int cents = (int) Long.remainderUnsigned(Math.abs(minorUnits), 100);
+        text.append(Long.toUnsignedString(whole)).append('.');
+        if (cents < 10) {
+            text.append('0');
+        }
+        text.append(cents);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(int quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString(minorUnits);
+    }
+}
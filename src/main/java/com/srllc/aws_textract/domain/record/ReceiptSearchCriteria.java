@@ -0,0 +1,10 @@
+package com.srllc.aws_textract.domain.record;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional filters for receipt listing. {@code null} fields are not applied.
+ */
+public record ReceiptSearchCriteria(String companyName, String branch, BigDecimal minSubTotal,
+                                    BigDecimal maxSubTotal) {
+}
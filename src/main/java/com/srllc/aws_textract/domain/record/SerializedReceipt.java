@@ -0,0 +1,42 @@
+package com.srllc.aws_textract.domain.record;
+
+import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A saved receipt with its JSON, serialized once, and a strong ETag over that JSON. Receipts do
+ * not change after they are saved, so the bytes can be written to every later response as they are.
+ * The DTO and the bytes are shared and must not be modified.
+ */
+public record SerializedReceipt(ReceiptDTO receipt, byte[] json, String etag) {
+
+    public static SerializedReceipt of(ReceiptDTO receipt, byte[] json) {
+        MessageDigest digest = sha256();
+        digest.update(json);
+        return new SerializedReceipt(receipt, json, etag(digest));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Quoted hex of the first 128 bits of the digest.
+     */
+    static String etag(MessageDigest digest) {
+        byte[] hash = digest.digest();
+        return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+    }
+
+    static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
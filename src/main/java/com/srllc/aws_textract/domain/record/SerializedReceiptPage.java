@@ -0,0 +1,52 @@
+package com.srllc.aws_textract.domain.record;
+
+import com.srllc.aws_textract.domain.dto.ReceiptPageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * A page of receipts in serialized form. The page JSON is assembled from the receipts' stored
+ * bytes and has the same shape as {@link ReceiptPageDTO}. Its ETag is derived from the receipts'
+ * ETags and the paging fields, so it can be compared without building the body.
+ */
+public record SerializedReceiptPage(List<SerializedReceipt> receipts, boolean hasMore, Long nextCursor) {
+
+    public String etag() {
+        MessageDigest digest = SerializedReceipt.sha256();
+        for (SerializedReceipt receipt : receipts) {
+            SerializedReceipt.update(digest, receipt.etag());
+        }
+        SerializedReceipt.update(digest, hasMore + ":" + nextCursor);
+        return SerializedReceipt.etag(digest);
+    }
+
+    public byte[] toJson() {
+        int length = 64;
+        for (SerializedReceipt receipt : receipts) {
+            length += receipt.json().length + 1;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.writeBytes("{\"receipts\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < receipts.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(receipts.get(i).json());
+        }
+        out.writeBytes(("],\"size\":" + receipts.size() + ",\"hasMore\":" + hasMore
+                + ",\"nextCursor\":" + nextCursor + "}").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    public ReceiptPageDTO toPageDTO() {
+        return ReceiptPageDTO.builder()
+                .receipts(receipts.stream().map(SerializedReceipt::receipt).toList())
+                .size(receipts.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
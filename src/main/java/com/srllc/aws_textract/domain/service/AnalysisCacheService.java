@@ -0,0 +1,11 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface AnalysisCacheService {
+    <T> T getOrLoad(AnalysisCacheKey key, Class<T> type, Supplier<T> loader);
+    <T> CompletableFuture<T> getOrLoadAsync(AnalysisCacheKey key, Class<T> type, Supplier<CompletableFuture<T>> loader);
+}
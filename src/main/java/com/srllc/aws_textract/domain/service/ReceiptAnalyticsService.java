@@ -0,0 +1,23 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.CashierThroughputDTO;
+import com.srllc.aws_textract.domain.dto.ProductRanking;
+import com.srllc.aws_textract.domain.dto.ProductSalesDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsGrouping;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aggregates over stored receipts. {@code from} (inclusive) and {@code to} (exclusive) limit the
+ * receipts by creation time; {@code null} leaves that side open.
+ */
+public interface ReceiptAnalyticsService {
+
+    List<ReceiptTotalsDTO> getTotals(ReceiptTotalsGrouping grouping, Instant from, Instant to);
+
+    List<ProductSalesDTO> getTopProducts(ProductRanking ranking, Integer limit, Instant from, Instant to);
+
+    List<CashierThroughputDTO> getCashierThroughput(String companyName, Instant from, Instant to);
+}
@@ -0,0 +1,11 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ReceiptBatchService {
+    void processBatch(List<MultipartFile> files, Consumer<ReceiptBatchItemDTO> resultListener);
+}
@@ -0,0 +1,10 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.function.Consumer;
+
+public interface ReceiptDocumentService {
+    void processDocument(MultipartFile file, Consumer<ReceiptBatchItemDTO> resultListener);
+}
@@ -0,0 +1,10 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.ReceiptExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ReceiptExportService {
+    void exportReceipts(ReceiptExportFormat format, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,9 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.ReceiptJobDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ReceiptJobService {
+    ReceiptJobDTO submitReceipt(MultipartFile file);
+    ReceiptJobDTO getJob(String jobId);
+}
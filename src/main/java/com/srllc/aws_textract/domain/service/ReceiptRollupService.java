@@ -0,0 +1,37 @@
+package com.srllc.aws_textract.domain.service;
+
+import com.srllc.aws_textract.domain.dto.RollupRebuildDTO;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hourly and daily rollups per company, branch and product, kept up to date from an outbox that
+ * is written together with every saved receipt.
+ */
+public interface ReceiptRollupService {
+
+    /**
+     * Records saved receipts for the rollups. Must run in the transaction that saves them.
+     */
+    void enqueue(List<Receipt> receipts);
+
+    /**
+     * Adds every receipt waiting in the outbox to the rollups.
+     */
+    void drainOutbox();
+
+    /**
+     * Recomputes all rollups from the stored receipts.
+     */
+    RollupRebuildDTO rebuild();
+
+    /**
+     * The rollups that can answer a query over {@code [from, to)}, or empty if the bounds do not
+     * fall on bucket starts or the rollups are being rebuilt or have not been completed by a rebuild.
+     */
+    Optional<RollupGranularity> granularityFor(Instant from, Instant to);
+}
@@ -3,7 +3,11 @@ package com.srllc.aws_textract.domain.service;
 import com.srllc.aws_textract.domain.dto.ImageAnalysisDTO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RekognitionService {
     ImageAnalysisDTO detectLabels(MultipartFile file, Float minConfidence);
     ImageAnalysisDTO recognizeCelebrities(MultipartFile file);
+    CompletableFuture<ImageAnalysisDTO> detectLabelsAsync(MultipartFile file, Float minConfidence);
+    CompletableFuture<ImageAnalysisDTO> recognizeCelebritiesAsync(MultipartFile file);
 }
\ No newline at end of file
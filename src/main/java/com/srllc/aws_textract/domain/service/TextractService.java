@@ -1,14 +1,26 @@
 package com.srllc.aws_textract.domain.service;
 
 import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptPageDTO;
 import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import com.srllc.aws_textract.domain.record.SerializedReceipt;
+import com.srllc.aws_textract.domain.record.SerializedReceiptPage;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface TextractService {
     ExtractTextResponse extractTextFromImage(MultipartFile file);
+    ExtractTextResponse extractTextFromImage(ByteBuffer imageContent);
+    CompletableFuture<ExtractTextResponse> extractTextFromImageAsync(MultipartFile file);
     ReceiptDTO processAndSaveReceipt(MultipartFile file);
-    List<ReceiptDTO> getAllReceipts();
+    List<ReceiptDTO> processAndSaveReceipts(MultipartFile file);
+    List<ReceiptDTO> processAndSaveReceipts(ByteBuffer imageContent, String fileName);
+    ReceiptPageDTO getReceipts(ReceiptSearchCriteria criteria, Long afterId, Integer size);
+    SerializedReceiptPage getSerializedReceipts(ReceiptSearchCriteria criteria, Long afterId, Integer size);
     ReceiptDTO getReceiptById(Long id);
+    SerializedReceipt getSerializedReceipt(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.srllc.aws_textract.domain.dao.CachedAnalysisResultDAO;
+import com.srllc.aws_textract.domain.entity.CachedAnalysisResult;
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+import com.srllc.aws_textract.domain.service.AnalysisCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for AWS analysis results. The memory tier is a bounded Caffeine cache,
+ * the optional database tier keeps results across restarts in the application datasource.
+ * The database tier runs in its own transaction, and its failures are logged and treated as a miss
+ * so they never fail or roll back the calling request.
+ * <p>
+ * Loads are single-flight: while a result is being loaded, identical requests (same content hash,
+ * operation and parameters) wait for that load instead of calling AWS again, and get its result
+ * or its error. This also applies with the cache disabled. A lookup counts as a miss only on the
+ * request that starts the load; requests joining it count as coalesced.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AnalysisCacheServiceImpl implements AnalysisCacheService {
+
+    private static final String LOOKUP_METRIC = "analysis.cache.lookups";
+
+    private final Cache<String, Object> analysisResultCache;
+    private final CachedAnalysisResultDAO cachedAnalysisResultDAO;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${analysis.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analysis.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+
+    @Value("${analysis.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${analysis.cache.coalesce-in-flight:true}")
+    private boolean coalesceInFlight;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> T getOrLoad(AnalysisCacheKey key, Class<T> type, Supplier<T> loader) {
+        if (enabled) {
+            Optional<T> cached = lookup(key, type);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        if (!coalesceInFlight) {
+            return load(key, loader);
+        }
+
+        String cacheKey = key.asString();
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(cacheKey, load);
+        if (leader != null) {
+            lookupCounter(key, "coalesced").increment();
+            return type.cast(await(leader));
+        }
+        try {
+            // The previous load may have finished between the lookup and taking over
+            Object stored = enabled ? analysisResultCache.getIfPresent(cacheKey) : null;
+            T result = type.isInstance(stored) ? memoryHit(key, type.cast(stored)) : load(key, loader);
+            load.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, load);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getOrLoadAsync(AnalysisCacheKey key, Class<T> type,
+                                                   Supplier<CompletableFuture<T>> loader) {
+        if (enabled) {
+            Optional<T> cached = lookup(key, type);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        }
+        if (!coalesceInFlight) {
+            return loadAsync(key, loader);
+        }
+
+        String cacheKey = key.asString();
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(cacheKey, load);
+        if (leader != null) {
+            lookupCounter(key, "coalesced").increment();
+            return leader.thenApply(type::cast);
+        }
+
+        Object stored = enabled ? analysisResultCache.getIfPresent(cacheKey) : null;
+        CompletableFuture<T> loaded;
+        try {
+            loaded = type.isInstance(stored)
+                    ? CompletableFuture.completedFuture(memoryHit(key, type.cast(stored)))
+                    : loadAsync(key, loader);
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            inFlight.remove(cacheKey, load);
+            throw e;
+        }
+        loaded.whenComplete((result, error) -> {
+            inFlight.remove(cacheKey, load);
+            if (error == null) {
+                load.complete(result);
+            } else {
+                load.completeExceptionally(error);
+            }
+        });
+        return load.thenApply(type::cast);
+    }
+
+    private <T> T load(AnalysisCacheKey key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        lookupCounter(key, "miss").increment();
+        T result = loader.get();
+        store(key, result);
+        return result;
+    }
+
+    private <T> CompletableFuture<T> loadAsync(AnalysisCacheKey key, Supplier<CompletableFuture<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        lookupCounter(key, "miss").increment();
+        return loader.get().thenApply(result -> {
+            store(key, result);
+            return result;
+        });
+    }
+
+    /**
+     * Waits for another request's load and rethrows its failure as is.
+     */
+    private static Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private <T> Optional<T> lookup(AnalysisCacheKey key, Class<T> type) {
+        String cacheKey = key.asString();
+
+        Object cached = analysisResultCache.getIfPresent(cacheKey);
+        if (type.isInstance(cached)) {
+            lookupCounter(key, "memory_hit").increment();
+            return Optional.of(type.cast(cached));
+        }
+
+        Optional<T> stored = readPersistent(cacheKey, type);
+        if (stored.isPresent()) {
+            lookupCounter(key, "database_hit").increment();
+            analysisResultCache.put(cacheKey, stored.get());
+            return stored;
+        }
+        return Optional.empty();
+    }
+
+    private <T> T memoryHit(AnalysisCacheKey key, T result) {
+        lookupCounter(key, "memory_hit").increment();
+        return result;
+    }
+
+    private void store(AnalysisCacheKey key, Object result) {
+        String cacheKey = key.asString();
+        analysisResultCache.put(cacheKey, result);
+        writePersistent(key, cacheKey, result);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.cache.persistent.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!persistentEnabled) {
+            return;
+        }
+        try {
+            int removed = cachedAnalysisResultDAO.deleteExpired(LocalDateTime.now());
+            if (removed > 0) {
+                log.info("Purged {} expired analysis cache entries", removed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to purge expired analysis cache entries: {}", e.getMessage());
+        }
+    }
+
+    private <T> Optional<T> readPersistent(String cacheKey, Class<T> type) {
+        if (!persistentEnabled) {
+            return Optional.empty();
+        }
+        try {
+            Optional<CachedAnalysisResult> entry = cacheTransaction().execute(status ->
+                    cachedAnalysisResultDAO.findById(cacheKey)
+                            .filter(result -> result.getExpiresAt().isAfter(LocalDateTime.now())));
+            if (entry == null || entry.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(objectMapper.readValue(entry.get().getPayload(), type));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Analysis cache read failed for {}: {}", cacheKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writePersistent(AnalysisCacheKey key, String cacheKey, Object result) {
+        if (!persistentEnabled) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            CachedAnalysisResult entry = new CachedAnalysisResult(
+                    cacheKey,
+                    key.operation(),
+                    objectMapper.writeValueAsString(result),
+                    now,
+                    now.plusMinutes(ttlMinutes));
+            cacheTransaction().executeWithoutResult(status -> cachedAnalysisResultDAO.save(entry));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Analysis cache write failed for {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    private TransactionTemplate cacheTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private Counter lookupCounter(AnalysisCacheKey key, String result) {
+        return Counter.builder(LOOKUP_METRIC)
+                .description("AWS analysis result cache lookups")
+                .tag("operation", key.operation())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,283 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dto.CashierThroughputDTO;
+import com.srllc.aws_textract.domain.dto.ProductRanking;
+import com.srllc.aws_textract.domain.dto.ProductSalesDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsGrouping;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.service.ReceiptAnalyticsService;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Every aggregate is a single GROUP BY query, so only the grouped rows leave the database.
+ * Amounts are summed as minor units and totals are kept apart per currency. Totals and top
+ * products for windows on whole hours or days are read from the rollup tables instead of the
+ * receipts; see {@link ReceiptRollupServiceImpl}.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReceiptAnalyticsServiceImpl implements ReceiptAnalyticsService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReceiptRollupService receiptRollupService;
+
+    @Value("${receipt.analytics.max-rows:1000}")
+    private int maxRows;
+
+    @Value("${receipt.analytics.top-products.default-limit:10}")
+    private int defaultTopLimit;
+
+    @Value("${receipt.analytics.top-products.max-limit:100}")
+    private int maxTopLimit;
+
+    @Override
+    public List<ReceiptTotalsDTO> getTotals(ReceiptTotalsGrouping grouping, Instant from, Instant to) {
+        Optional<RollupGranularity> granularity = rollupsFor(from, to);
+        if (granularity.isPresent()) {
+            return getRollupTotals(grouping, granularity.get(), from, to);
+        }
+        List<Object> args = new ArrayList<>();
+        String where = window(from, to, args);
+        String sql = switch (grouping) {
+            case COMPANY -> """
+                    SELECT r.company_name, r.currency, COUNT(*) AS receipt_count,
+                           COALESCE(SUM(r.sub_total_minor), 0) AS sub_total_sum
+                    FROM receipts r %s
+                    GROUP BY r.company_name, r.currency
+                    ORDER BY sub_total_sum DESC, r.company_name
+                    LIMIT ?
+                    """.formatted(where);
+            case BRANCH -> """
+                    SELECT r.company_name, r.branch, r.currency, COUNT(*) AS receipt_count,
+                           COALESCE(SUM(r.sub_total_minor), 0) AS sub_total_sum
+                    FROM receipts r %s
+                    GROUP BY r.company_name, r.branch, r.currency
+                    ORDER BY sub_total_sum DESC, r.company_name, r.branch
+                    LIMIT ?
+                    """.formatted(where);
+            // Receipts with no created_at (saved before it existed, outside a job) are reported with no day
+            case DAY -> """
+                    SELECT CAST(r.created_at AS DATE) AS receipt_day, r.currency, COUNT(*) AS receipt_count,
+                           COALESCE(SUM(r.sub_total_minor), 0) AS sub_total_sum
+                    FROM receipts r %s
+                    GROUP BY CAST(r.created_at AS DATE), r.currency
+                    ORDER BY receipt_day, r.currency
+                    LIMIT ?
+                    """.formatted(where);
+        };
+        args.add(maxRows);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> ReceiptTotalsDTO.builder()
+                .companyName(grouping == ReceiptTotalsGrouping.DAY ? null : rs.getString("company_name"))
+                .branch(grouping == ReceiptTotalsGrouping.BRANCH ? rs.getString("branch") : null)
+                .day(grouping == ReceiptTotalsGrouping.DAY ? rs.getObject("receipt_day", LocalDate.class) : null)
+                .currency(rs.getString("currency"))
+                .receiptCount(rs.getLong("receipt_count"))
+                .subTotal(toAmount(rs.getLong("sub_total_sum")))
+                .build(), args.toArray());
+    }
+
+    @Override
+    public List<ProductSalesDTO> getTopProducts(ProductRanking ranking, Integer limit, Instant from, Instant to) {
+        int topLimit = limit == null ? defaultTopLimit : limit;
+        if (topLimit < 1 || topLimit > maxTopLimit) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxTopLimit);
+        }
+        Optional<RollupGranularity> granularity = rollupsFor(from, to);
+        if (granularity.isPresent()) {
+            return getRollupTopProducts(ranking, topLimit, granularity.get(), from, to);
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT i.product_name, r.currency, COALESCE(SUM(i.quantity), 0) AS quantity_sum,
+                       COALESCE(SUM(i.price_minor), 0) AS revenue_sum
+                FROM receipt_items i
+                JOIN receipts r ON r.id = i.receipt_id %s
+                GROUP BY i.product_name, r.currency
+                ORDER BY %s DESC, i.product_name
+                LIMIT ?
+                """.formatted(window(from, to, args),
+                ranking == ProductRanking.QUANTITY ? "quantity_sum" : "revenue_sum");
+        args.add(topLimit);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> ProductSalesDTO.builder()
+                .productName(rs.getString("product_name"))
+                .currency(rs.getString("currency"))
+                .quantity(rs.getLong("quantity_sum"))
+                .revenue(toAmount(rs.getLong("revenue_sum")))
+                .build(), args.toArray());
+    }
+
+    private List<ReceiptTotalsDTO> getRollupTotals(ReceiptTotalsGrouping grouping, RollupGranularity granularity,
+                                                   Instant from, Instant to) {
+        List<Object> args = new ArrayList<>();
+        String where = rollupWindow(granularity, from, to, args);
+        String sql = switch (grouping) {
+            case COMPANY -> """
+                    SELECT ro.company_name, ro.currency, SUM(ro.receipt_count) AS receipt_count,
+                           SUM(ro.sub_total_minor) AS sub_total_sum
+                    FROM receipt_rollups ro %s
+                    GROUP BY ro.company_name, ro.currency
+                    ORDER BY sub_total_sum DESC, ro.company_name
+                    LIMIT ?
+                    """.formatted(where);
+            case BRANCH -> """
+                    SELECT ro.company_name, ro.branch, ro.currency, SUM(ro.receipt_count) AS receipt_count,
+                           SUM(ro.sub_total_minor) AS sub_total_sum
+                    FROM receipt_rollups ro %s
+                    GROUP BY ro.company_name, ro.branch, ro.currency
+                    ORDER BY sub_total_sum DESC, ro.company_name, ro.branch
+                    LIMIT ?
+                    """.formatted(where);
+            case DAY -> """
+                    SELECT CAST(ro.bucket_start AS DATE) AS receipt_day, ro.currency,
+                           SUM(ro.receipt_count) AS receipt_count, SUM(ro.sub_total_minor) AS sub_total_sum
+                    FROM receipt_rollups ro %s
+                    GROUP BY CAST(ro.bucket_start AS DATE), ro.currency
+                    ORDER BY receipt_day, ro.currency
+                    LIMIT ?
+                    """.formatted(where);
+        };
+        args.add(maxRows);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> ReceiptTotalsDTO.builder()
+                .companyName(grouping == ReceiptTotalsGrouping.DAY ? null : fromRollup(rs.getString("company_name")))
+                .branch(grouping == ReceiptTotalsGrouping.BRANCH ? fromRollup(rs.getString("branch")) : null)
+                .day(grouping == ReceiptTotalsGrouping.DAY ? rs.getObject("receipt_day", LocalDate.class) : null)
+                .currency(rs.getString("currency"))
+                .receiptCount(rs.getLong("receipt_count"))
+                .subTotal(toAmount(rs.getLong("sub_total_sum")))
+                .build(), args.toArray());
+    }
+
+    private List<ProductSalesDTO> getRollupTopProducts(ProductRanking ranking, int topLimit,
+                                                       RollupGranularity granularity, Instant from, Instant to) {
+        List<Object> args = new ArrayList<>();
+        String sql = """
+                SELECT ro.product_name, ro.currency, SUM(ro.quantity) AS quantity_sum,
+                       SUM(ro.revenue_minor) AS revenue_sum
+                FROM product_rollups ro %s
+                GROUP BY ro.product_name, ro.currency
+                ORDER BY %s DESC, ro.product_name
+                LIMIT ?
+                """.formatted(rollupWindow(granularity, from, to, args),
+                ranking == ProductRanking.QUANTITY ? "quantity_sum" : "revenue_sum");
+        args.add(topLimit);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> ProductSalesDTO.builder()
+                .productName(fromRollup(rs.getString("product_name")))
+                .currency(rs.getString("currency"))
+                .quantity(rs.getLong("quantity_sum"))
+                .revenue(toAmount(rs.getLong("revenue_sum")))
+                .build(), args.toArray());
+    }
+
+    /**
+     * Items are summed per receipt first, so a receipt's subtotal is counted once however many
+     * items it has.
+     */
+    @Override
+    public List<CashierThroughputDTO> getCashierThroughput(String companyName, Instant from, Instant to) {
+        List<Object> args = new ArrayList<>();
+        String where = window(from, to, args);
+        if (companyName != null) {
+            where = (where.isEmpty() ? "WHERE " : where + " AND ") + "r.company_name = ?";
+            args.add(companyName);
+        }
+        String sql = """
+                SELECT company_name, cashier_number, currency, COUNT(*) AS receipt_count,
+                       COALESCE(SUM(item_quantity), 0) AS item_quantity_sum,
+                       COALESCE(SUM(sub_total_minor), 0) AS sub_total_sum
+                FROM (
+                    SELECT r.id, r.company_name, r.cashier_number, r.currency, r.sub_total_minor,
+                           COALESCE(SUM(i.quantity), 0) AS item_quantity
+                    FROM receipts r
+                    LEFT JOIN receipt_items i ON i.receipt_id = r.id %s
+                    GROUP BY r.id, r.company_name, r.cashier_number, r.currency, r.sub_total_minor
+                ) per_receipt
+                GROUP BY company_name, cashier_number, currency
+                ORDER BY receipt_count DESC, company_name, cashier_number
+                LIMIT ?
+                """.formatted(where);
+        args.add(maxRows);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> CashierThroughputDTO.builder()
+                .companyName(rs.getString("company_name"))
+                .cashierNumber(rs.getString("cashier_number"))
+                .currency(rs.getString("currency"))
+                .receiptCount(rs.getLong("receipt_count"))
+                .itemQuantity(rs.getLong("item_quantity_sum"))
+                .subTotal(toAmount(rs.getLong("sub_total_sum")))
+                .build(), args.toArray());
+    }
+
+    /**
+     * Rollups have no bucket for receipts without {@code created_at}. Only unwindowed queries
+     * include those, so such queries read the receipts while any are left.
+     */
+    private Optional<RollupGranularity> rollupsFor(Instant from, Instant to) {
+        if (from == null && to == null && !jdbcTemplate.queryForList(
+                "SELECT id FROM receipts WHERE created_at IS NULL LIMIT 1", Long.class).isEmpty()) {
+            return Optional.empty();
+        }
+        return receiptRollupService.granularityFor(from, to);
+    }
+
+    private static String window(Instant from, Instant to, List<Object> args) {
+        requireOrdered(from, to);
+        List<String> conditions = new ArrayList<>(2);
+        if (from != null) {
+            conditions.add("r.created_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            conditions.add("r.created_at < ?");
+            args.add(Timestamp.from(to));
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String rollupWindow(RollupGranularity granularity, Instant from, Instant to, List<Object> args) {
+        requireOrdered(from, to);
+        StringBuilder where = new StringBuilder("WHERE ro.granularity = ?");
+        args.add(granularity.name());
+        if (from != null) {
+            where.append(" AND ro.bucket_start >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            where.append(" AND ro.bucket_start < ?");
+            args.add(Timestamp.from(to));
+        }
+        return where.toString();
+    }
+
+    private static void requireOrdered(Instant from, Instant to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+
+    // Rollups keep missing names as empty strings so they match the unique key
+    private static String fromRollup(String name) {
+        return name == null || name.isEmpty() ? null : name;
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, Money.SCALE);
+    }
+}
@@ -0,0 +1,401 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemStatus;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.exception.ErrorMetrics;
+import com.srllc.aws_textract.domain.extraction.ReceiptExtractionRouter;
+import com.srllc.aws_textract.domain.record.BatchDocument;
+import com.srllc.aws_textract.domain.service.ReceiptBatchService;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Processes a batch of receipt uploads (individual files and/or zip archives). Documents are
+ * read lazily and at most {@code receipt.batch.parallelism} are in flight at a time; results
+ * are parsed as they complete and saved in groups of about {@code receipt.batch.persist-size}
+ * receipts, each group in one transaction. Per-file outcomes (one per receipt when a file holds
+ * several) are handed to the listener as soon as they are known.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptBatchServiceImpl implements ReceiptBatchService {
+
+    private final ReceiptExtractionRouter receiptExtractionRouter;
+    private final ReceiptDAO receiptDAO;
+    private final ReceiptRollupService receiptRollupService;
+    private final AsyncTaskExecutor receiptBatchExecutor;
+    private final UploadSpooler uploadSpooler;
+    private final PlatformTransactionManager transactionManager;
+    private final ErrorMetrics errorMetrics;
+
+    @Value("${receipt.batch.parallelism:8}")
+    private int parallelism;
+
+    @Value("${receipt.batch.persist-size:25}")
+    private int persistSize;
+
+    @Value("${receipt.batch.max-files:1000}")
+    private int maxFiles;
+
+    @Value("${receipt.batch.max-entry-bytes:10485760}")
+    private long maxEntryBytes;
+
+    @Override
+    public void processBatch(List<MultipartFile> files, Consumer<ReceiptBatchItemDTO> resultListener) {
+        ExecutorCompletionService<ParsedDocument> completion = new ExecutorCompletionService<>(receiptBatchExecutor);
+        List<ParsedDocument> pending = new ArrayList<>(persistSize);
+        int inFlight = 0;
+        int submitted = 0;
+
+        try (BatchDocumentIterator documents = new BatchDocumentIterator(files, maxEntryBytes, uploadSpooler)) {
+            while (true) {
+                while (inFlight < parallelism && submitted < maxFiles && documents.hasNext()) {
+                    BatchDocument document = documents.next();
+                    completion.submit(() -> parse(document));
+                    inFlight++;
+                    submitted++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                ParsedDocument parsed = takeNext(completion);
+                inFlight--;
+                if (parsed.receipts() == null) {
+                    resultListener.accept(failed(parsed.fileName(), parsed.errorMessage()));
+                } else {
+                    pending.add(parsed);
+                    if (pendingReceipts(pending) >= persistSize) {
+                        persist(pending, resultListener);
+                    }
+                }
+            }
+            persist(pending, resultListener);
+
+            int skipped = documents.skipRemaining();
+            if (skipped > 0) {
+                resultListener.accept(ReceiptBatchItemDTO.builder()
+                        .status(ReceiptBatchItemStatus.SKIPPED)
+                        .skippedCount(skipped)
+                        .errorMessage("Batch limit of " + maxFiles + " files exceeded")
+                        .build());
+            }
+            log.info("Batch finished: {} documents processed, {} skipped over the limit", submitted, skipped);
+        }
+    }
+
+    private ParsedDocument parse(BatchDocument document) {
+        if (document.upload() == null) {
+            return new ParsedDocument(document.fileName(), null, "File could not be read or exceeds the size limit");
+        }
+        try (SpooledUpload upload = document.upload()) {
+            return new ParsedDocument(document.fileName(), receiptExtractionRouter.extract(upload.content()), null);
+        } catch (Exception e) {
+            log.warn("Batch document {} failed: {}", document.fileName(), e.getMessage());
+            errorMetrics.record(ErrorMetrics.BATCH, e);
+            return new ParsedDocument(document.fileName(), null, e.getMessage());
+        }
+    }
+
+    private ParsedDocument takeNext(ExecutorCompletionService<ParsedDocument> completion) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch processing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch document task failed", e.getCause());
+        }
+    }
+
+    /**
+     * Saves the group in one transaction. If that fails, each document is saved in its own
+     * transaction so only the documents whose receipts cannot be saved are reported as failed.
+     */
+    private void persist(List<ParsedDocument> pending, Consumer<ReceiptBatchItemDTO> resultListener) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() == 1) {
+            persistDocument(pending.get(0), resultListener);
+            pending.clear();
+            return;
+        }
+
+        List<Receipt> receipts = pending.stream().flatMap(parsed -> parsed.receipts().stream()).toList();
+        try {
+            save(receipts);
+            pending.forEach(parsed -> reportSaved(parsed, resultListener));
+        } catch (RuntimeException e) {
+            log.warn("Failed to save batch of {} receipts, saving its {} documents one by one: {}",
+                    receipts.size(), pending.size(), e.getMessage());
+            for (ParsedDocument parsed : pending) {
+                parsed.receipts().forEach(ReceiptBatchServiceImpl::clearGeneratedIds);
+                persistDocument(parsed, resultListener);
+            }
+        }
+        pending.clear();
+    }
+
+    private void persistDocument(ParsedDocument parsed, Consumer<ReceiptBatchItemDTO> resultListener) {
+        try {
+            save(parsed.receipts());
+            reportSaved(parsed, resultListener);
+        } catch (RuntimeException e) {
+            log.error("Failed to save receipts of {}: {}", parsed.fileName(), e.getMessage(), e);
+            errorMetrics.record(ErrorMetrics.BATCH, e);
+            resultListener.accept(failed(parsed.fileName(), "Failed to save receipt: " + e.getMessage()));
+        }
+    }
+
+    private void save(List<Receipt> receipts) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> receiptRollupService.enqueue(receiptDAO.saveAllAndFlush(receipts)));
+    }
+
+    // IDs are taken from the sequence before insert and stay set when the transaction rolls back
+    private static void clearGeneratedIds(Receipt receipt) {
+        receipt.setId(null);
+        receipt.getItems().forEach(item -> item.setId(null));
+    }
+
+    private void reportSaved(ParsedDocument parsed, Consumer<ReceiptBatchItemDTO> resultListener) {
+        List<Receipt> documentReceipts = parsed.receipts();
+        for (int i = 0; i < documentReceipts.size(); i++) {
+            Receipt receipt = documentReceipts.get(i);
+            resultListener.accept(ReceiptBatchItemDTO.builder()
+                    .fileName(documentReceipts.size() == 1 ? parsed.fileName() : parsed.fileName() + "#receipt=" + (i + 1))
+                    .status(ReceiptBatchItemStatus.SAVED)
+                    .receiptId(receipt.getId())
+                    .companyName(receipt.getCompanyName())
+                    .itemCount(receipt.getItems().size())
+                    .build());
+        }
+    }
+
+    private int pendingReceipts(List<ParsedDocument> pending) {
+        int receipts = 0;
+        for (ParsedDocument parsed : pending) {
+            receipts += parsed.receipts().size();
+        }
+        return receipts;
+    }
+
+    private ReceiptBatchItemDTO failed(String fileName, String errorMessage) {
+        return ReceiptBatchItemDTO.builder()
+                .fileName(fileName)
+                .status(ReceiptBatchItemStatus.FAILED)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private record ParsedDocument(String fileName, List<Receipt> receipts, String errorMessage) {
+    }
+
+    /**
+     * Walks the uploaded files in order, expanding zip archives entry by entry so only the
+     * documents currently being processed are held in memory. Uploaded files are spooled
+     * rather than read onto the heap; archive entries are read into memory as before.
+     * {@link #skipRemaining()} counts what is left without spooling or reading any of it.
+     */
+    private static class BatchDocumentIterator implements Iterator<BatchDocument>, AutoCloseable {
+
+        private final Iterator<MultipartFile> files;
+        private final long maxEntryBytes;
+        private final UploadSpooler uploadSpooler;
+        private ZipInputStream archive;
+        private String archiveName;
+        private BatchDocument next;
+
+        BatchDocumentIterator(List<MultipartFile> files, long maxEntryBytes, UploadSpooler uploadSpooler) {
+            this.files = files.iterator();
+            this.maxEntryBytes = maxEntryBytes;
+            this.uploadSpooler = uploadSpooler;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public BatchDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BatchDocument document = next;
+            next = null;
+            return document;
+        }
+
+        /**
+         * Counts the documents not yet returned and drops them. Archive entries are passed over
+         * without reading their content; an archive that cannot be read counts as at least one document.
+         */
+        int skipRemaining() {
+            int skipped = 0;
+            if (next != null) {
+                if (next.upload() != null) {
+                    next.upload().close();
+                }
+                next = null;
+                skipped++;
+            }
+            if (archive != null) {
+                skipped += skipArchiveEntries();
+            }
+            while (files.hasNext()) {
+                MultipartFile file = files.next();
+                if (!isZip(file)) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    archive = new ZipInputStream(file.getInputStream());
+                    archiveName = file.getOriginalFilename();
+                    skipped += skipArchiveEntries();
+                } catch (IOException e) {
+                    skipped++;
+                }
+            }
+            return skipped;
+        }
+
+        private int skipArchiveEntries() {
+            int entries = 0;
+            try {
+                ZipEntry entry;
+                while ((entry = archive.getNextEntry()) != null) {
+                    if (isDocumentEntry(entry)) {
+                        entries++;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read archive {}: {}", archiveName, e.getMessage());
+                entries = Math.max(entries, 1);
+            } finally {
+                closeArchive();
+            }
+            return entries;
+        }
+
+        private BatchDocument advance() {
+            while (true) {
+                if (archive != null) {
+                    BatchDocument entry = nextArchiveEntry();
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+                if (!files.hasNext()) {
+                    return null;
+                }
+
+                MultipartFile file = files.next();
+                if (isZip(file)) {
+                    try {
+                        archive = new ZipInputStream(file.getInputStream());
+                        archiveName = file.getOriginalFilename();
+                    } catch (IOException e) {
+                        return new BatchDocument(file.getOriginalFilename(), null);
+                    }
+                } else {
+                    return readFile(file);
+                }
+            }
+        }
+
+        private BatchDocument nextArchiveEntry() {
+            try {
+                ZipEntry entry;
+                while ((entry = archive.getNextEntry()) != null) {
+                    if (isDocumentEntry(entry)) {
+                        String fileName = archiveName + "/" + entry.getName();
+                        byte[] content = readLimited(archive);
+                        return new BatchDocument(fileName, content == null ? null : SpooledUpload.ofBytes(fileName, content));
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read archive {}: {}", archiveName, e.getMessage());
+                closeArchive();
+                return new BatchDocument(archiveName, null);
+            }
+            closeArchive();
+            return null;
+        }
+
+        private BatchDocument readFile(MultipartFile file) {
+            if (file.getSize() > maxEntryBytes) {
+                return new BatchDocument(file.getOriginalFilename(), null);
+            }
+            try {
+                return new BatchDocument(file.getOriginalFilename(), uploadSpooler.spool(file));
+            } catch (IOException e) {
+                return new BatchDocument(file.getOriginalFilename(), null);
+            }
+        }
+
+        private byte[] readLimited(InputStream in) throws IOException {
+            byte[] content = in.readNBytes((int) Math.min(maxEntryBytes + 1, Integer.MAX_VALUE - 8));
+            return content.length > maxEntryBytes ? null : content;
+        }
+
+        private boolean isZip(MultipartFile file) {
+            String name = file.getOriginalFilename();
+            String contentType = file.getContentType();
+            return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip"))
+                    || "application/zip".equals(contentType)
+                    || "application/x-zip-compressed".equals(contentType);
+        }
+
+        private boolean isDocumentEntry(ZipEntry entry) {
+            if (entry.isDirectory() || entry.getName().startsWith("__MACOSX/")) {
+                return false;
+            }
+            String name = entry.getName();
+            String baseName = name.substring(name.lastIndexOf('/') + 1);
+            return !baseName.isEmpty() && !baseName.startsWith(".");
+        }
+
+        private void closeArchive() {
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close archive {}: {}", archiveName, e.getMessage());
+                }
+                archive = null;
+                archiveName = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            closeArchive();
+        }
+    }
+}
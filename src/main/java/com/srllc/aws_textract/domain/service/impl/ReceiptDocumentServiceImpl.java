@@ -0,0 +1,105 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemStatus;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.exception.ErrorMetrics;
+import com.srllc.aws_textract.domain.extraction.DocumentTextJobDetector;
+import com.srllc.aws_textract.domain.parser.ReceiptParser;
+import com.srllc.aws_textract.domain.parser.ReceiptSegmenter;
+import com.srllc.aws_textract.domain.record.DocumentPage;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.service.ReceiptDocumentService;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Processes a multi-page document (for example a stack of receipts scanned into one PDF)
+ * through an asynchronous Textract job. Every page is parsed and saved as its own receipt (or
+ * several, when the page holds more than one) as soon as its text arrives, and the outcome is
+ * handed to the listener right away.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptDocumentServiceImpl implements ReceiptDocumentService {
+
+    private final DocumentTextJobDetector documentTextJobDetector;
+    private final ReceiptParser receiptParser;
+    private final ReceiptSegmenter receiptSegmenter;
+    private final ReceiptDAO receiptDAO;
+    private final ReceiptRollupService receiptRollupService;
+    private final PlatformTransactionManager transactionManager;
+    private final UploadSpooler uploadSpooler;
+    private final ErrorMetrics errorMetrics;
+
+    @Override
+    public void processDocument(MultipartFile file, Consumer<ReceiptBatchItemDTO> resultListener) {
+        String fileName = file.getOriginalFilename();
+        try (SpooledUpload upload = uploadSpooler.spool(file)) {
+            int pages = documentTextJobDetector.detectPages(upload.content(), fileName,
+                    page -> savePage(fileName, page, resultListener));
+            log.info("Document {} finished: {} pages processed", fileName, pages);
+        } catch (IOException e) {
+            resultListener.accept(failed(fileName, "Failed to read file bytes"));
+        } catch (RuntimeException e) {
+            log.warn("Document {} failed: {}", fileName, e.getMessage());
+            errorMetrics.record(ErrorMetrics.DOCUMENT, e);
+            resultListener.accept(failed(fileName, e.getMessage()));
+        }
+    }
+
+    private void savePage(String fileName, DocumentPage page, Consumer<ReceiptBatchItemDTO> resultListener) {
+        String pageName = fileName + "#page=" + page.pageNumber();
+        if (page.text().lines().isEmpty()) {
+            resultListener.accept(failed(pageName, "No text found on page"));
+            return;
+        }
+        List<ExtractTextResponse> segments = receiptSegmenter.split(page.text());
+        for (int i = 0; i < segments.size(); i++) {
+            String receiptName = segments.size() == 1 ? pageName : pageName + "&receipt=" + (i + 1);
+            resultListener.accept(saveReceipt(receiptName, segments.get(i)));
+        }
+    }
+
+    private ReceiptBatchItemDTO saveReceipt(String receiptName, ExtractTextResponse text) {
+        try {
+            Receipt saved = new TransactionTemplate(transactionManager).execute(status -> {
+                Receipt receipt = receiptDAO.saveAndFlush(receiptParser.parse(text));
+                receiptRollupService.enqueue(List.of(receipt));
+                return receipt;
+            });
+            return ReceiptBatchItemDTO.builder()
+                    .fileName(receiptName)
+                    .status(ReceiptBatchItemStatus.SAVED)
+                    .receiptId(saved.getId())
+                    .companyName(saved.getCompanyName())
+                    .itemCount(saved.getItems().size())
+                    .build();
+        } catch (RuntimeException e) {
+            log.warn("Receipt {} failed: {}", receiptName, e.getMessage());
+            errorMetrics.record(ErrorMetrics.DOCUMENT, e);
+            return failed(receiptName, e.getMessage());
+        }
+    }
+
+    private ReceiptBatchItemDTO failed(String fileName, String errorMessage) {
+        return ReceiptBatchItemDTO.builder()
+                .fileName(fileName)
+                .status(ReceiptBatchItemStatus.FAILED)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srllc.aws_textract.domain.dto.ReceiptExportFormat;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.service.ReceiptExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams every receipt with its items straight from a forward-only JDBC cursor to the
+ * output stream. Rows arrive ordered by receipt, so only the current receipt is held in
+ * memory and heap use does not grow with the table size.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptExportServiceImpl implements ReceiptExportService {
+
+    private static final String EXPORT_QUERY = """
+            SELECT r.id AS receipt_id, r.company_name, r.branch, r.manager_name, r.cashier_number,
+                   r.currency, r.sub_total_minor, r.cash_minor, r.change_amount_minor,
+                   i.id AS item_id, i.product_name, i.quantity, i.price_minor
+            FROM receipts r
+            LEFT JOIN receipt_items i ON i.receipt_id = r.id
+            ORDER BY r.id, i.id
+            """;
+
+    private static final String CSV_HEADER = "receipt_id,company_name,branch,manager_name,cashier_number,"
+            + "currency,sub_total,cash,change_amount,item_id,product_name,quantity,price";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${receipt.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${receipt.export.flush-every:500}")
+    private int flushEvery;
+
+    @Override
+    public void exportReceipts(ReceiptExportFormat format, OutputStream outputStream) throws IOException {
+        ExportWriter writer = format == ReceiptExportFormat.CSV
+                ? new CsvExportWriter(outputStream)
+                : new NdjsonExportWriter(objectMapper, outputStream);
+
+        long[] receiptCount = {0};
+        Long[] currentReceiptId = {null};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, rs -> {
+                try {
+                    long receiptId = rs.getLong("receipt_id");
+                    if (currentReceiptId[0] == null || currentReceiptId[0] != receiptId) {
+                        if (currentReceiptId[0] != null) {
+                            writer.endReceipt();
+                            if (++receiptCount[0] % flushEvery == 0) {
+                                writer.flush();
+                            }
+                        }
+                        currentReceiptId[0] = receiptId;
+                        writer.startReceipt(rs);
+                    }
+                    writer.item(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            if (currentReceiptId[0] != null) {
+                writer.endReceipt();
+                receiptCount[0]++;
+            }
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} receipts as {}", receiptCount[0], format);
+    }
+
+    /**
+     * Amounts are read as their minor units and formatted without going through {@code double}.
+     */
+    private static String getAmount(ResultSet rs, String column) throws SQLException {
+        long minorUnits = rs.getLong(column);
+        return rs.wasNull() ? null : Money.toPlainString(minorUnits);
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private interface ExportWriter {
+
+        void startReceipt(ResultSet rs) throws SQLException, IOException;
+
+        void item(ResultSet rs) throws SQLException, IOException;
+
+        void endReceipt() throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per receipt per line, items nested as an array.
+     */
+    private static class NdjsonExportWriter implements ExportWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonExportWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(outputStream);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by the newline written after each receipt, not the default space
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void startReceipt(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("receipt_id"));
+            generator.writeStringField("companyName", rs.getString("company_name"));
+            generator.writeStringField("branch", rs.getString("branch"));
+            generator.writeStringField("managerName", rs.getString("manager_name"));
+            generator.writeStringField("cashierNumber", rs.getString("cashier_number"));
+            writeNumber("subTotal", getAmount(rs, "sub_total_minor"));
+            writeNumber("cash", getAmount(rs, "cash_minor"));
+            writeNumber("changeAmount", getAmount(rs, "change_amount_minor"));
+            generator.writeStringField("currency", rs.getString("currency"));
+            generator.writeArrayFieldStart("items");
+        }
+
+        @Override
+        public void item(ResultSet rs) throws SQLException, IOException {
+            if (getLong(rs, "item_id") == null) {
+                return;
+            }
+            generator.writeStartObject();
+            generator.writeStringField("productName", rs.getString("product_name"));
+            Integer quantity = getInteger(rs, "quantity");
+            if (quantity == null) {
+                generator.writeNullField("quantity");
+            } else {
+                generator.writeNumberField("quantity", quantity);
+            }
+            writeNumber("price", getAmount(rs, "price_minor"));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void endReceipt() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+
+        private void writeNumber(String field, String value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeFieldName(field);
+                generator.writeNumber(value);
+            }
+        }
+    }
+
+    /**
+     * One CSV row per item with the receipt columns repeated; receipts without items get a
+     * single row with empty item columns.
+     */
+    private static class CsvExportWriter implements ExportWriter {
+
+        private final Writer writer;
+        private String receiptColumns;
+
+        CsvExportWriter(OutputStream outputStream) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.writer.write(CSV_HEADER);
+            this.writer.write('\n');
+        }
+
+        @Override
+        public void startReceipt(ResultSet rs) throws SQLException {
+            receiptColumns = String.join(",",
+                    String.valueOf(rs.getLong("receipt_id")),
+                    escape(rs.getString("company_name")),
+                    escape(rs.getString("branch")),
+                    escape(rs.getString("manager_name")),
+                    escape(rs.getString("cashier_number")),
+                    escape(rs.getString("currency")),
+                    format(getAmount(rs, "sub_total_minor")),
+                    format(getAmount(rs, "cash_minor")),
+                    format(getAmount(rs, "change_amount_minor")));
+        }
+
+        @Override
+        public void item(ResultSet rs) throws SQLException, IOException {
+            writer.write(receiptColumns);
+            writer.write(',');
+            writer.write(String.join(",",
+                    format(getLong(rs, "item_id")),
+                    escape(rs.getString("product_name")),
+                    format(getInteger(rs, "quantity")),
+                    format(getAmount(rs, "price_minor"))));
+            writer.write('\n');
+        }
+
+        @Override
+        public void endReceipt() {
+            receiptColumns = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String format(Object value) {
+            return value == null ? "" : value.toString();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptJobDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptJobDTO;
+import com.srllc.aws_textract.domain.entity.ReceiptJob;
+import com.srllc.aws_textract.domain.entity.ReceiptJobStatus;
+import com.srllc.aws_textract.domain.exception.ErrorMetrics;
+import com.srllc.aws_textract.domain.exception.JobQueueFullException;
+import com.srllc.aws_textract.domain.exception.ReceiptJobNotFoundException;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.service.ReceiptJobService;
+import com.srllc.aws_textract.domain.service.TextractService;
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptJobServiceImpl implements ReceiptJobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ReceiptJobDAO receiptJobDAO;
+    private final TextractService textractService;
+    private final AsyncTaskExecutor receiptJobExecutor;
+    private final UploadSpooler uploadSpooler;
+    private final ErrorMetrics errorMetrics;
+
+    @Value("${receipt.jobs.instance-id:}")
+    private String configuredInstanceId;
+
+    @Value("${receipt.jobs.stale-after:PT1H}")
+    private Duration staleAfter;
+
+    private String instanceId;
+
+    /**
+     * Jobs are owned by the instance that accepted them. The id defaults to the host name, so it
+     * stays the same across restarts of one instance and differs between instances.
+     */
+    @PostConstruct
+    void resolveInstanceId() {
+        if (!configuredInstanceId.isBlank()) {
+            instanceId = configuredInstanceId;
+            return;
+        }
+        try {
+            instanceId = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            instanceId = UUID.randomUUID().toString();
+            log.warn("Could not resolve host name, receipt jobs are owned by {}", instanceId);
+        }
+    }
+
+    @Override
+    public ReceiptJobDTO submitReceipt(MultipartFile file) {
+        SpooledUpload upload;
+        try {
+            // The multipart temp file is gone once the request completes, so spool it for the worker
+            upload = uploadSpooler.spool(file);
+        } catch (IOException e) {
+            throw new TextractException("Failed to read file bytes", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ReceiptJob job;
+        try {
+            job = receiptJobDAO.save(new ReceiptJob(
+                    UUID.randomUUID().toString(),
+                    ReceiptJobStatus.QUEUED,
+                    file.getOriginalFilename(),
+                    instanceId,
+                    null,
+                    new ArrayList<>(),
+                    null,
+                    now,
+                    now));
+        } catch (RuntimeException e) {
+            upload.close();
+            throw e;
+        }
+
+        try {
+            receiptJobExecutor.execute(() -> runJob(job.getId(), upload));
+        } catch (TaskRejectedException e) {
+            upload.close();
+            receiptJobDAO.delete(job);
+            throw new JobQueueFullException("Receipt processing queue is full. Please retry later.", e);
+        }
+
+        log.info("Queued receipt job {} for {}", job.getId(), job.getFileName());
+        return convertToDTO(job, null);
+    }
+
+    @Override
+    public ReceiptJobDTO getJob(String jobId) {
+        ReceiptJob job = receiptJobDAO.findById(jobId)
+                .orElseThrow(() -> new ReceiptJobNotFoundException("Receipt job not found with id: " + jobId));
+
+        ReceiptDTO receipt = job.getStatus() == ReceiptJobStatus.COMPLETED && job.getReceiptId() != null
+                ? textractService.getReceiptById(job.getReceiptId())
+                : null;
+        return convertToDTO(job, receipt);
+    }
+
+    /**
+     * Spooled uploads are not tracked across restarts, so jobs that were queued or running when
+     * this instance stopped cannot be resumed. Mark them failed so clients stop polling. Jobs of
+     * other instances are left alone unless they have not changed for {@code receipt.jobs.stale-after},
+     * which covers instances that never come back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int interrupted = receiptJobDAO.failUnfinished(
+                EnumSet.of(ReceiptJobStatus.QUEUED, ReceiptJobStatus.PROCESSING),
+                instanceId,
+                now.minus(staleAfter),
+                ReceiptJobStatus.FAILED,
+                "Interrupted by application restart. Please resubmit the receipt.",
+                now);
+        if (interrupted > 0) {
+            log.warn("Marked {} interrupted receipt jobs as failed", interrupted);
+        }
+    }
+
+    private void runJob(String jobId, SpooledUpload upload) {
+        try (upload) {
+            updateJob(jobId, ReceiptJobStatus.PROCESSING, List.of(), null);
+            List<Long> receiptIds = textractService.processAndSaveReceipts(upload.content(), upload.fileName())
+                    .stream().map(ReceiptDTO::getId).toList();
+            updateJob(jobId, ReceiptJobStatus.COMPLETED, receiptIds, null);
+            log.info("Receipt job {} completed with receipt IDs: {}", jobId, receiptIds);
+        } catch (Exception e) {
+            log.error("Receipt job {} failed: {}", jobId, e.getMessage(), e);
+            errorMetrics.record(ErrorMetrics.JOB, e);
+            updateJob(jobId, ReceiptJobStatus.FAILED, List.of(), truncate(e.getMessage()));
+        }
+    }
+
+    private void updateJob(String jobId, ReceiptJobStatus status, List<Long> receiptIds, String errorMessage) {
+        receiptJobDAO.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setReceiptId(receiptIds.isEmpty() ? null : receiptIds.get(0));
+            job.getReceiptIds().clear();
+            job.getReceiptIds().addAll(receiptIds);
+            job.setErrorMessage(errorMessage);
+            job.setUpdatedAt(LocalDateTime.now());
+            receiptJobDAO.save(job);
+        });
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private ReceiptJobDTO convertToDTO(ReceiptJob job, ReceiptDTO receipt) {
+        return ReceiptJobDTO.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .fileName(job.getFileName())
+                .receipt(receipt)
+                .receiptIds(job.getReceiptIds())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
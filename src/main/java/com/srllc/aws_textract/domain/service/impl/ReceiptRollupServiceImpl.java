@@ -0,0 +1,287 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ProductRollupDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptRollupDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptRollupOutboxDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptRollupStateDAO;
+import com.srllc.aws_textract.domain.dto.RollupRebuildDTO;
+import com.srllc.aws_textract.domain.entity.ProductRollup;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptRollup;
+import com.srllc.aws_textract.domain.entity.ReceiptRollupOutbox;
+import com.srllc.aws_textract.domain.entity.ReceiptRollupState;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saving a receipt only adds an outbox row, so ingestion never waits on contended rollup rows.
+ * A scheduled consumer drains the outbox in batches: each batch is summed in memory, the affected
+ * rollup rows are locked and updated, and the outbox rows are deleted in the same transaction.
+ * A receipt is therefore counted exactly once, a few seconds after it is saved.
+ * <p>
+ * A rebuild clears the rollups and recomputes them from the receipts in parallel id-range chunks.
+ * Receipts still in the outbox are left to the consumer, which skips its cycles until the rebuild
+ * has finished. Analytics are read from the raw tables unless the {@link ReceiptRollupState} row
+ * says the rollups are complete. That is the case once a rebuild has completed, or from the start
+ * on a database without receipts; receipts saved before the outbox existed are only counted by a
+ * rebuild.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReceiptRollupServiceImpl implements ReceiptRollupService {
+
+    // Chunks started in parallel can both insert the same new rollup row; the loser retries
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final ReceiptDAO receiptDAO;
+    private final ReceiptRollupDAO receiptRollupDAO;
+    private final ProductRollupDAO productRollupDAO;
+    private final ReceiptRollupOutboxDAO receiptRollupOutboxDAO;
+    private final ReceiptRollupStateDAO receiptRollupStateDAO;
+    private final PlatformTransactionManager transactionManager;
+    private final AsyncTaskExecutor receiptRollupExecutor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean readable;
+
+    @Value("${receipt.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${receipt.rollup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${receipt.rollup.rebuild.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<Receipt> receipts) {
+        if (!enabled || receipts.isEmpty()) {
+            return;
+        }
+        receiptRollupOutboxDAO.saveAll(receipts.stream()
+                .map(receipt -> new ReceiptRollupOutbox(null, receipt.getId()))
+                .toList());
+    }
+
+    /**
+     * Rollups start out complete on a database without receipts. Otherwise they are read only once
+     * a rebuild, on this or another instance, has completed them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkRollupsComplete() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!receiptRollupStateDAO.existsById(ReceiptRollupState.COMPLETE)
+                    && receiptDAO.findIdRange().get(0)[0] == null) {
+                receiptRollupStateDAO.save(new ReceiptRollupState(ReceiptRollupState.COMPLETE, Instant.now()));
+            }
+            readable = receiptRollupStateDAO.existsById(ReceiptRollupState.COMPLETE);
+        } catch (DataAccessException e) {
+            log.warn("Failed to read the receipt rollup state: {}", e.getMessage());
+        }
+        if (!readable) {
+            log.warn("Receipt rollups do not hold every stored receipt; analytics read the receipts "
+                    + "until POST /api/v1/textract/receipts/analytics/rollups/rebuild completes");
+        }
+    }
+
+    /**
+     * Skips the cycle while a rebuild holds the lock rather than holding up the shared scheduler
+     * thread; the outbox is drained on the next cycle after the rebuild.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${receipt.rollup.poll-interval-ms:5000}")
+    public void drainOutbox() {
+        if (!enabled) {
+            return;
+        }
+        if (!lock.tryLock()) {
+            log.debug("Receipt rollup rebuild in progress, outbox left for the next cycle");
+            return;
+        }
+        try {
+            // Picks up rebuilds completed or started by other instances
+            readable = receiptRollupStateDAO.existsById(ReceiptRollupState.COMPLETE);
+            int drained = 0;
+            int batch;
+            do {
+                batch = new TransactionTemplate(transactionManager).execute(status -> drainBatch());
+                drained += batch;
+            } while (batch == batchSize);
+            if (drained > 0) {
+                log.debug("Added {} receipts to the rollups", drained);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to update receipt rollups: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int drainBatch() {
+        List<ReceiptRollupOutbox> pending = receiptRollupOutboxDAO.findByOrderByIdAsc(Limit.of(batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        // Receipts deleted since they were saved are simply not found
+        RollupDeltas deltas = new RollupDeltas();
+        receiptDAO.findAllById(pending.stream().map(ReceiptRollupOutbox::getReceiptId).toList())
+                .forEach(deltas::add);
+        apply(deltas);
+        receiptRollupOutboxDAO.deleteAllInBatch(pending);
+        return pending.size();
+    }
+
+    @Override
+    public RollupRebuildDTO rebuild() {
+        lock.lock();
+        readable = false;
+        long startNanos = System.nanoTime();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                receiptRollupStateDAO.deleteAllInBatch();
+                productRollupDAO.deleteAllInBatch();
+                receiptRollupDAO.deleteAllInBatch();
+            });
+
+            Object[] idRange = receiptDAO.findIdRange().get(0);
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            if (idRange[0] != null) {
+                long minId = ((Number) idRange[0]).longValue();
+                long maxId = ((Number) idRange[1]).longValue();
+                for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+                    long chunkFrom = fromId;
+                    long chunkTo = Math.min(fromId + chunkSize, maxId + 1);
+                    chunks.add(CompletableFuture.supplyAsync(() -> rebuildChunk(chunkFrom, chunkTo),
+                            receiptRollupExecutor));
+                }
+            }
+            long receipts = 0;
+            for (CompletableFuture<Integer> chunk : chunks) {
+                receipts += chunk.join();
+            }
+            receiptRollupStateDAO.save(new ReceiptRollupState(ReceiptRollupState.COMPLETE, Instant.now()));
+            readable = true;
+
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            log.info("Rebuilt receipt rollups from {} receipts in {} chunks in {} ms", receipts, chunks.size(), durationMs);
+            return RollupRebuildDTO.builder()
+                    .receiptCount(receipts)
+                    .chunkCount(chunks.size())
+                    .durationMs(durationMs)
+                    .build();
+        } catch (CompletionException e) {
+            log.error("Receipt rollup rebuild failed, analytics read the raw tables until the next rebuild", e.getCause());
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int rebuildChunk(long fromId, long toId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return new TransactionTemplate(transactionManager).execute(status -> {
+                    RollupDeltas deltas = new RollupDeltas();
+                    receiptDAO.findRollupChunk(fromId, toId).forEach(deltas::add);
+                    apply(deltas);
+                    return deltas.receiptCount();
+                });
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying rollup chunk [{}, {}) after {}", fromId, toId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Optional<RollupGranularity> granularityFor(Instant from, Instant to) {
+        if (!enabled || !readable) {
+            return Optional.empty();
+        }
+        for (RollupGranularity granularity : List.of(RollupGranularity.DAY, RollupGranularity.HOUR)) {
+            if ((from == null || granularity.isBucketStart(from)) && (to == null || granularity.isBucketStart(to))) {
+                return Optional.of(granularity);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds the deltas to their rollup rows, locking existing rows of the affected buckets and
+     * creating the missing ones.
+     */
+    private void apply(RollupDeltas deltas) {
+        Map<RollupDeltas.ReceiptKey, ReceiptRollup> receiptRows = new HashMap<>();
+        Map<RollupDeltas.ProductKey, ProductRollup> productRows = new HashMap<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (!deltas.receiptBuckets(granularity).isEmpty()) {
+                receiptRollupDAO.findByGranularityAndBucketStartIn(granularity, deltas.receiptBuckets(granularity))
+                        .forEach(row -> receiptRows.put(new RollupDeltas.ReceiptKey(row.getGranularity(),
+                                row.getBucketStart(), row.getCompanyName(), row.getBranch(), row.getCurrency()), row));
+            }
+            if (!deltas.productBuckets(granularity).isEmpty()) {
+                productRollupDAO.findByGranularityAndBucketStartIn(granularity, deltas.productBuckets(granularity))
+                        .forEach(row -> productRows.put(new RollupDeltas.ProductKey(row.getGranularity(),
+                                row.getBucketStart(), row.getCompanyName(), row.getBranch(), row.getProductName(),
+                                row.getCurrency()), row));
+            }
+        }
+
+        List<ReceiptRollup> receiptUpdates = new ArrayList<>(deltas.receipts().size());
+        deltas.receipts().forEach((key, totals) -> {
+            ReceiptRollup row = receiptRows.computeIfAbsent(key, k -> new ReceiptRollup(null, k.granularity(),
+                    k.bucketStart(), k.companyName(), k.branch(), k.currency(), 0, 0));
+            row.setReceiptCount(row.getReceiptCount() + totals[0]);
+            row.setSubTotalMinor(row.getSubTotalMinor() + totals[1]);
+            receiptUpdates.add(row);
+        });
+        receiptRollupDAO.saveAll(receiptUpdates);
+
+        List<ProductRollup> productUpdates = new ArrayList<>(deltas.products().size());
+        deltas.products().forEach((key, sales) -> {
+            ProductRollup row = productRows.computeIfAbsent(key, k -> new ProductRollup(null, k.granularity(),
+                    k.bucketStart(), k.companyName(), k.branch(), k.productName(), k.currency(), 0, 0));
+            row.setQuantity(row.getQuantity() + sales[0]);
+            row.setRevenueMinor(row.getRevenueMinor() + sales[1]);
+            productUpdates.add(row);
+        });
+        productRollupDAO.saveAll(productUpdates);
+        // Surface unique key conflicts here, where the chunk retry catches them
+        receiptRollupDAO.flush();
+    }
+}
@@ -1,20 +1,34 @@
 package com.srllc.aws_textract.domain.service.impl;
 
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsOperation;
+import com.srllc.aws_textract.domain.aws.AwsPayloads;
+import com.srllc.aws_textract.domain.aws.AwsService;
 import com.srllc.aws_textract.domain.dto.CelebrityDTO;
 import com.srllc.aws_textract.domain.dto.DetectedLabelDTO;
 import com.srllc.aws_textract.domain.dto.ImageAnalysisDTO;
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
 import com.srllc.aws_textract.domain.exception.RekognitionException;
+import com.srllc.aws_textract.domain.image.ImagePreprocessor;
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+import com.srllc.aws_textract.domain.service.AnalysisCacheService;
 import com.srllc.aws_textract.domain.service.RekognitionService;
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
 import software.amazon.awssdk.services.rekognition.RekognitionClient;
 import software.amazon.awssdk.services.rekognition.model.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,77 +37,178 @@ import java.util.stream.Collectors;
 public class RekognitionServiceImpl implements RekognitionService {
 
     private final RekognitionClient rekognitionClient;
+    private final AnalysisCacheService analysisCacheService;
+    private final AwsCallGuard awsCallGuard;
+    private final ObjectProvider<RekognitionAsyncClient> rekognitionAsyncClient;
+    private final ImagePreprocessor imagePreprocessor;
+    private final UploadSpooler uploadSpooler;
+
+    private static final String DETECT_LABELS = "rekognition.detectLabels";
+    private static final String RECOGNIZE_CELEBRITIES = "rekognition.recognizeCelebrities";
+    private static final int MAX_LABELS = 50;
 
     @Override
     public ImageAnalysisDTO detectLabels(MultipartFile file, Float minConfidence) {
-        try {
-            log.info("Detecting labels in image: {}", file.getOriginalFilename());
-            byte[] imageBytes = file.getBytes();
+        try (SpooledUpload upload = uploadSpooler.spool(file)) {
+            log.debug("Detecting labels in image: {}", file.getOriginalFilename());
+            ByteBuffer imageContent = upload.content();
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, DETECT_LABELS, minConfidence, MAX_LABELS);
+            return analysisCacheService.getOrLoad(cacheKey, ImageAnalysisDTO.class, () -> {
+                DetectLabelsRequest request = buildLabelsRequest(imageContent, minConfidence);
+                return toLabelAnalysis(awsCallGuard.call(AwsOperation.DETECT_LABELS,
+                        () -> rekognitionClient.detectLabels(request)));
+            });
+        } catch (IOException e) {
+            throw new RekognitionException("Failed to read image bytes", e);
+        } catch (Exception e) {
+            throw toRekognitionException("Label detection failed: ", e);
+        }
+    }
 
-            DetectLabelsRequest request = DetectLabelsRequest.builder()
-                    .image(Image.builder()
-                            .bytes(SdkBytes.fromByteArray(imageBytes))
-                            .build())
-                    .minConfidence(minConfidence)
-                    .maxLabels(50)
-                    .build();
+    @Override
+    public ImageAnalysisDTO recognizeCelebrities(MultipartFile file) {
+        try (SpooledUpload upload = uploadSpooler.spool(file)) {
+            log.debug("Recognizing celebrities in image: {}", file.getOriginalFilename());
+            ByteBuffer imageContent = upload.content();
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, RECOGNIZE_CELEBRITIES);
+            return analysisCacheService.getOrLoad(cacheKey, ImageAnalysisDTO.class, () -> {
+                RecognizeCelebritiesRequest request = buildCelebritiesRequest(imageContent);
+                return toCelebrityAnalysis(awsCallGuard.call(AwsOperation.RECOGNIZE_CELEBRITIES,
+                        () -> rekognitionClient.recognizeCelebrities(request)));
+            });
+        } catch (IOException e) {
+            throw new RekognitionException("Failed to read image bytes", e);
+        } catch (Exception e) {
+            throw toRekognitionException("Celebrity recognition failed: ", e);
+        }
+    }
 
-            DetectLabelsResponse response = rekognitionClient.detectLabels(request);
+    /**
+     * Non-blocking variant backed by {@link RekognitionAsyncClient} when {@code aws.client.mode=async}.
+     * Without the async client the synchronous path runs and an already completed future is returned.
+     * The image is prepared on the calling thread before the call is queued, so retries reuse it;
+ * failures raised before the call is queued complete the returned future.
+     */
+    @Override
+    public CompletableFuture<ImageAnalysisDTO> detectLabelsAsync(MultipartFile file, Float minConfidence) {
+        RekognitionAsyncClient asyncClient = rekognitionAsyncClient.getIfAvailable();
+        if (asyncClient == null) {
+            return CompletableFuture.completedFuture(detectLabels(file, minConfidence));
+        }
 
-            List<DetectedLabelDTO> labels = response.labels().stream()
-                    .map(label -> DetectedLabelDTO.builder()
-                            .name(label.name())
-                            .confidence(label.confidence())
-                            .build())
-                    .collect(Collectors.toList());
+        log.debug("Detecting labels in image: {}", file.getOriginalFilename());
+        SpooledUpload upload = spool(file);
+        try {
+            ByteBuffer imageContent = upload.content();
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, DETECT_LABELS, minConfidence, MAX_LABELS);
+            return analysisCacheService.getOrLoadAsync(cacheKey, ImageAnalysisDTO.class, () -> {
+                        DetectLabelsRequest request = buildLabelsRequest(imageContent, minConfidence);
+                        return awsCallGuard.callAsync(AwsOperation.DETECT_LABELS,
+                                        () -> asyncClient.detectLabels(request))
+                                .thenApply(this::toLabelAnalysis);
+                    })
+                    .whenComplete((analysis, error) -> upload.close())
+                    .exceptionally(error -> {
+                        throw toRekognitionException("Label detection failed: ", error);
+                    });
+        } catch (RuntimeException e) {
+            upload.close();
+            return CompletableFuture.failedFuture(toRekognitionException("Label detection failed: ", e));
+        }
+    }
 
-            log.info("Detected {} labels", labels.size());
+    @Override
+    public CompletableFuture<ImageAnalysisDTO> recognizeCelebritiesAsync(MultipartFile file) {
+        RekognitionAsyncClient asyncClient = rekognitionAsyncClient.getIfAvailable();
+        if (asyncClient == null) {
+            return CompletableFuture.completedFuture(recognizeCelebrities(file));
+        }
 
-            return ImageAnalysisDTO.builder()
-                    .labels(labels)
-                    .totalDetections(labels.size())
-                    .build();
+        log.debug("Recognizing celebrities in image: {}", file.getOriginalFilename());
+        SpooledUpload upload = spool(file);
+        try {
+            ByteBuffer imageContent = upload.content();
+            AnalysisCacheKey cacheKey = AnalysisCacheKey.of(imageContent, RECOGNIZE_CELEBRITIES);
+            return analysisCacheService.getOrLoadAsync(cacheKey, ImageAnalysisDTO.class, () -> {
+                        RecognizeCelebritiesRequest request = buildCelebritiesRequest(imageContent);
+                        return awsCallGuard.callAsync(AwsOperation.RECOGNIZE_CELEBRITIES,
+                                        () -> asyncClient.recognizeCelebrities(request))
+                                .thenApply(this::toCelebrityAnalysis);
+                    })
+                    .whenComplete((analysis, error) -> upload.close())
+                    .exceptionally(error -> {
+                        throw toRekognitionException("Celebrity recognition failed: ", error);
+                    });
+        } catch (RuntimeException e) {
+            upload.close();
+            return CompletableFuture.failedFuture(toRekognitionException("Celebrity recognition failed: ", e));
+        }
+    }
 
+    private SpooledUpload spool(MultipartFile file) {
+        try {
+            return uploadSpooler.spool(file);
         } catch (IOException e) {
             throw new RekognitionException("Failed to read image bytes", e);
-        } catch (Exception e) {
-            throw new RekognitionException("Label detection failed: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public ImageAnalysisDTO recognizeCelebrities(MultipartFile file) {
-        try {
-            log.info("Recognizing celebrities in image: {}", file.getOriginalFilename());
-            byte[] imageBytes = file.getBytes();
+    private DetectLabelsRequest buildLabelsRequest(ByteBuffer imageContent, Float minConfidence) {
+        return DetectLabelsRequest.builder()
+                .image(Image.builder()
+                        .bytes(AwsPayloads.toSdkBytes(imagePreprocessor.prepare(AwsService.REKOGNITION, imageContent)))
+                        .build())
+                .minConfidence(minConfidence)
+                .maxLabels(MAX_LABELS)
+                .build();
+    }
 
-            RecognizeCelebritiesRequest request = RecognizeCelebritiesRequest.builder()
-                    .image(Image.builder()
-                            .bytes(SdkBytes.fromByteArray(imageBytes))
-                            .build())
-                    .build();
+    private RecognizeCelebritiesRequest buildCelebritiesRequest(ByteBuffer imageContent) {
+        return RecognizeCelebritiesRequest.builder()
+                .image(Image.builder()
+                        .bytes(AwsPayloads.toSdkBytes(imagePreprocessor.prepare(AwsService.REKOGNITION, imageContent)))
+                        .build())
+                .build();
+    }
 
-            RecognizeCelebritiesResponse response = rekognitionClient.recognizeCelebrities(request);
+    private ImageAnalysisDTO toLabelAnalysis(DetectLabelsResponse response) {
+        List<DetectedLabelDTO> labels = response.labels().stream()
+                .map(label -> DetectedLabelDTO.builder()
+                        .name(label.name())
+                        .confidence(label.confidence())
+                        .build())
+                .collect(Collectors.toList());
 
-            List<CelebrityDTO> celebrities = response.celebrityFaces().stream()
-                    .map(celebrity -> CelebrityDTO.builder()
-                            .name(celebrity.name())
-                            .matchConfidence(celebrity.matchConfidence())
-                            .urls(celebrity.urls())
-                            .build())
-                    .collect(Collectors.toList());
+        log.debug("Detected {} labels", labels.size());
 
-            log.info("Recognized {} celebrities", celebrities.size());
+        return ImageAnalysisDTO.builder()
+                .labels(labels)
+                .totalDetections(labels.size())
+                .build();
+    }
 
-            return ImageAnalysisDTO.builder()
-                    .celebrities(celebrities)
-                    .totalDetections(celebrities.size())
-                    .build();
+    private ImageAnalysisDTO toCelebrityAnalysis(RecognizeCelebritiesResponse response) {
+        List<CelebrityDTO> celebrities = response.celebrityFaces().stream()
+                .map(celebrity -> CelebrityDTO.builder()
+                        .name(celebrity.name())
+                        .matchConfidence(celebrity.matchConfidence())
+                        .urls(celebrity.urls())
+                        .build())
+                .collect(Collectors.toList());
+
+        log.debug("Recognized {} celebrities", celebrities.size());
+
+        return ImageAnalysisDTO.builder()
+                .celebrities(celebrities)
+                .totalDetections(celebrities.size())
+                .build();
+    }
 
-        } catch (IOException e) {
-            throw new RekognitionException("Failed to read image bytes", e);
-        } catch (Exception e) {
-            throw new RekognitionException("Celebrity recognition failed: " + e.getMessage(), e);
+    private RuntimeException toRekognitionException(String message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RekognitionException || cause instanceof AwsCapacityExceededException) {
+            return (RuntimeException) cause;
         }
+        return new RekognitionException(message + cause.getMessage(), cause);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * What a set of receipts adds to each rollup row, summed in memory so every row is written once
+ * per batch. Missing names are kept as empty strings, so they still match the unique keys.
+ */
+final class RollupDeltas {
+
+    record ReceiptKey(RollupGranularity granularity, Instant bucketStart, String companyName, String branch,
+                      String currency) {
+    }
+
+    record ProductKey(RollupGranularity granularity, Instant bucketStart, String companyName, String branch,
+                      String productName, String currency) {
+    }
+
+    // {receipt count, subtotal minor units} and {quantity, revenue minor units}
+    private final Map<ReceiptKey, long[]> receipts = new HashMap<>();
+    private final Map<ProductKey, long[]> products = new HashMap<>();
+    private int receiptCount;
+
+    /**
+     * Receipts saved before {@code created_at} existed have no bucket and are skipped.
+     */
+    void add(Receipt receipt) {
+        if (receipt.getCreatedAt() == null) {
+            return;
+        }
+        receiptCount++;
+        String companyName = orEmpty(receipt.getCompanyName());
+        String branch = orEmpty(receipt.getBranch());
+        String currency = receipt.getCurrency() == null ? Receipt.DEFAULT_CURRENCY : receipt.getCurrency();
+        long subTotal = receipt.getSubTotal() == null ? 0 : receipt.getSubTotal().minorUnits();
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Instant bucketStart = granularity.bucketStart(receipt.getCreatedAt());
+            long[] totals = receipts.computeIfAbsent(
+                    new ReceiptKey(granularity, bucketStart, companyName, branch, currency), key -> new long[2]);
+            totals[0]++;
+            totals[1] += subTotal;
+
+            for (ReceiptItem item : receipt.getItems()) {
+                long[] sales = products.computeIfAbsent(new ProductKey(granularity, bucketStart, companyName, branch,
+                        orEmpty(item.getProductName()), currency), key -> new long[2]);
+                sales[0] += item.getQuantity() == null ? 0 : item.getQuantity();
+                sales[1] += item.getPrice() == null ? 0 : item.getPrice().minorUnits();
+            }
+        }
+    }
+
+    int receiptCount() {
+        return receiptCount;
+    }
+
+    Map<ReceiptKey, long[]> receipts() {
+        return receipts;
+    }
+
+    Map<ProductKey, long[]> products() {
+        return products;
+    }
+
+    Set<Instant> receiptBuckets(RollupGranularity granularity) {
+        return receipts.keySet().stream()
+                .filter(key -> key.granularity() == granularity)
+                .map(ReceiptKey::bucketStart)
+                .collect(Collectors.toSet());
+    }
+
+    Set<Instant> productBuckets(RollupGranularity granularity) {
+        return products.keySet().stream()
+                .filter(key -> key.granularity() == granularity)
+                .map(ProductKey::bucketStart)
+                .collect(Collectors.toSet());
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,30 +1,47 @@
 package com.srllc.aws_textract.domain.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTrace;
+import com.srllc.aws_textract.domain.diagnostics.DiagnosticTraces;
 import com.srllc.aws_textract.domain.dto.ReceiptDTO;
 import com.srllc.aws_textract.domain.dto.ReceiptItemDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptPageDTO;
 import com.srllc.aws_textract.domain.entity.Receipt;
-import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.exception.MultipleReceiptsException;
 import com.srllc.aws_textract.domain.exception.ReceiptNotFoundException;
 import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.extraction.DetectTextExtractionEngine;
+import com.srllc.aws_textract.domain.extraction.ReceiptExtractionRouter;
 import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import com.srllc.aws_textract.domain.record.SerializedReceipt;
+import com.srllc.aws_textract.domain.record.SerializedReceiptPage;
 import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptSpecifications;
+import com.srllc.aws_textract.domain.service.ReceiptRollupService;
 import com.srllc.aws_textract.domain.service.TextractService;
+import com.srllc.aws_textract.domain.upload.SpooledUpload;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.textract.TextractClient;
-import software.amazon.awssdk.services.textract.model.Block;
-import software.amazon.awssdk.services.textract.model.BlockType;
-import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
-import software.amazon.awssdk.services.textract.model.Document;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,356 +49,191 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TextractServiceImpl implements TextractService {
 
-    private final TextractClient textractClient;
     private final ReceiptDAO receiptDAO;
+    private final ReceiptRollupService receiptRollupService;
+    private final DetectTextExtractionEngine detectTextExtractionEngine;
+    private final ReceiptExtractionRouter receiptExtractionRouter;
+    private final UploadSpooler uploadSpooler;
+    private final Cache<Long, SerializedReceipt> receiptCache;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
 
-    private static final Pattern PRICE_PATTERN = Pattern.compile("\\$?\\s*(\\d+\\.\\d{2})");
-    private static final Pattern QUANTITY_PATTERN = Pattern.compile("^(\\d{1,3})$");
-    private static final Pattern SECTION_HEADER = Pattern.compile("^(name|qty|quantity|price)$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SUBTOTAL_PATTERN = Pattern.compile("^(sub\\s*total|subtotal)$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CASH_PATTERN = Pattern.compile("^cash$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CHANGE_PATTERN = Pattern.compile("^change$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CASHIER_PATTERN = Pattern.compile("^cashier:?$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MANAGER_PATTERN = Pattern.compile("^manager:?$", Pattern.CASE_INSENSITIVE);
+    @Value("${receipt.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${receipt.page.max-size:100}")
+    private int maxPageSize;
 
     @Override
     public ExtractTextResponse extractTextFromImage(MultipartFile file) {
-        try {
-            byte[] imageBytes = file.getBytes();
-
-            var request = DetectDocumentTextRequest.builder()
-                    .document(Document.builder()
-                            .bytes(SdkBytes.fromByteArray(imageBytes))
-                            .build())
-                    .build();
-
-            var response = textractClient.detectDocumentText(request);
-
-            List<String> lines = response.blocks().stream()
-                    .filter(block -> block.blockType() == BlockType.LINE)
-                    .map(Block::text)
-                    .toList();
-
-            log.info("=== EXTRACTED {} LINES ===", lines.size());
-            for (int i = 0; i < lines.size(); i++) {
-                log.info("Line {}: '{}'", i, lines.get(i));
-            }
-
-            return new ExtractTextResponse(lines);
-        } catch (IOException e) {
-            throw new TextractException("Failed to read file bytes", e);
-        } catch (Exception e) {
-            throw new TextractException("Textract Failed: " + e.getMessage(), e);
+        try (SpooledUpload upload = spool(file)) {
+            return extractTextFromImage(upload.content());
         }
     }
 
     @Override
-    @Transactional
-    public ReceiptDTO processAndSaveReceipt(MultipartFile file) {
-        log.info("Processing receipt image: {}", file.getOriginalFilename());
-
-        ExtractTextResponse extractedText = extractTextFromImage(file);
-        List<String> lines = extractedText.lines();
-
-        Receipt receipt = parseReceiptData(lines);
-        Receipt savedReceipt = receiptDAO.save(receipt);
-
-        log.info("Receipt saved successfully with ID: {}", savedReceipt.getId());
-
-        return convertToDTO(savedReceipt);
+    public ExtractTextResponse extractTextFromImage(ByteBuffer imageContent) {
+        return detectTextExtractionEngine.detectText(imageContent);
     }
 
+    /**
+     * The upload is released once the returned future completes, or right away when the call
+     * fails before returning one, as the synchronous fallback does.
+     */
     @Override
-    public List<ReceiptDTO> getAllReceipts() {
-        return receiptDAO.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-    }
-
-    @Override
-    public ReceiptDTO getReceiptById(Long id) {
-        Receipt receipt = receiptDAO.findById(id)
-                .orElseThrow(() -> new ReceiptNotFoundException("Receipt not found with id: " + id));
-        return convertToDTO(receipt);
-    }
-
-    private Receipt parseReceiptData(List<String> lines) {
-        Receipt receipt = new Receipt();
-
-        extractHeaderInfo(lines, receipt);
-        int itemsSectionStart = findItemsSectionStart(lines);
-        int itemsSectionEnd = findItemsSectionEnd(lines);
-
-        if (itemsSectionStart >= 0 && itemsSectionEnd > itemsSectionStart) {
-            List<ReceiptItem> items = parseItemsFromSection(lines, itemsSectionStart, itemsSectionEnd);
-            items.forEach(receipt::addItem);
+    public CompletableFuture<ExtractTextResponse> extractTextFromImageAsync(MultipartFile file) {
+        SpooledUpload upload = spool(file);
+        CompletableFuture<ExtractTextResponse> extracted;
+        try {
+            extracted = detectTextExtractionEngine.detectTextAsync(upload.content());
+        } catch (RuntimeException | Error e) {
+            upload.close();
+            throw e;
         }
-
-        extractFinancialData(lines, receipt);
-        applyDefaults(receipt);
-        logParsedReceipt(receipt);
-
-        return receipt;
+        return extracted.whenComplete((response, error) -> upload.close());
     }
 
-    private void extractHeaderInfo(List<String> lines, Receipt receipt) {
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i).trim();
-            String lowerLine = line.toLowerCase();
-
-            if (receipt.getCompanyName() == null && isLikelyCompanyName(line, i)) {
-                receipt.setCompanyName(line);
-                log.info("✓ Company: {}", line);
-            }
-
-            if (receipt.getBranch() == null && isLikelyBranch(line)) {
-                receipt.setBranch(line);
-                log.info("✓ Branch: {}", line);
-            }
-
-            if (CASHIER_PATTERN.matcher(lowerLine).matches()) {
-                String cashierValue = extractValueFromSameLine(line, "cashier");
-                if (cashierValue == null) {
-                    cashierValue = extractNextNumericValue(lines, i);
-                }
-                if (cashierValue != null) {
-                    receipt.setCashierNumber(cashierValue);
-                    log.info("✓ Cashier: {}", cashierValue);
-                }
+    /**
+     * Saves the image's receipt. An image holding several receipts is rejected before anything is
+     * saved, so callers wanting all of them use {@link #processAndSaveReceipts(MultipartFile)}.
+     */
+    @Override
+    @Transactional
+    public ReceiptDTO processAndSaveReceipt(MultipartFile file) {
+        try (SpooledUpload upload = spool(file)) {
+            List<Receipt> receipts = receiptExtractionRouter.extract(upload.content());
+            if (receipts.isEmpty()) {
+                throw new TextractException("No receipt found in " + upload.fileName());
             }
-
-            if (MANAGER_PATTERN.matcher(lowerLine).matches()) {
-                String managerValue = extractValueFromSameLine(line, "manager");
-                if (managerValue == null) {
-                    managerValue = extractNextNonNumericValue(lines, i);
-                }
-                if (managerValue != null) {
-                    receipt.setManagerName(managerValue);
-                    log.info("✓ Manager: {}", managerValue);
-                }
+            if (receipts.size() > 1) {
+                throw new MultipleReceiptsException("Image holds " + receipts.size()
+                        + " receipts; use /api/v1/textract/receipts/process-all to save each of them");
             }
+            return saveReceipts(receipts, upload.fileName()).get(0);
         }
     }
 
-    private int findItemsSectionStart(List<String> lines) {
-        for (int i = 0; i < lines.size(); i++) {
-            if (SECTION_HEADER.matcher(lines.get(i).toLowerCase()).matches()) {
-                return i + 1;
-            }
+    @Override
+    @Transactional
+    public List<ReceiptDTO> processAndSaveReceipts(MultipartFile file) {
+        try (SpooledUpload upload = spool(file)) {
+            return processAndSaveReceipts(upload.content(), upload.fileName());
         }
-        return -1;
     }
 
-    private int findItemsSectionEnd(List<String> lines) {
-        for (int i = 0; i < lines.size(); i++) {
-            String lowerLine = lines.get(i).toLowerCase();
-            if (SUBTOTAL_PATTERN.matcher(lowerLine).matches() ||
-                    lowerLine.contains("total") ||
-                    CASH_PATTERN.matcher(lowerLine).matches()) {
-                return i;
-            }
-        }
-        return lines.size();
+    @Override
+    @Transactional
+    public List<ReceiptDTO> processAndSaveReceipts(ByteBuffer imageContent, String fileName) {
+        return saveReceipts(receiptExtractionRouter.extract(imageContent), fileName);
     }
 
-    private List<ReceiptItem> parseItemsFromSection(List<String> lines, int start, int end) {
-        List<ReceiptItem> items = new ArrayList<>();
-        int i = start;
-
-        while (i < end) {
-            String line = lines.get(i).trim();
+    private List<ReceiptDTO> saveReceipts(List<Receipt> receipts, String fileName) {
+        // Flushing here keeps the inserts inside the timed repository call
+        List<Receipt> savedReceipts = receiptDAO.saveAllAndFlush(receipts);
+        receiptRollupService.enqueue(savedReceipts);
 
-            if (line.isEmpty() || SECTION_HEADER.matcher(line.toLowerCase()).matches() ||
-                    SUBTOTAL_PATTERN.matcher(line.toLowerCase()).matches() ||
-                    isLikelySeparator(line) || isNumericOnly(line) || isPriceOnly(line)) {
-                i++;
-                continue;
-            }
-
-            ReceiptItem item = tryParseItem(lines, i, end);
-            if (item != null) {
-                items.add(item);
-                log.info("✓ Item: {} x{} = ${}", item.getProductName(), item.getQuantity(), item.getPrice());
-                i = findNextProductStart(lines, i + 1, end);
-            } else {
-                i++;
-            }
+        log.debug("Saved {} receipts from {}", savedReceipts.size(), fileName);
+        DiagnosticTrace trace = DiagnosticTraces.current();
+        if (trace != null) {
+            trace.event("receipts.saved", Map.of("fileName", String.valueOf(fileName),
+                    "receiptIds", savedReceipts.stream().map(Receipt::getId).toList()));
         }
 
-        return items;
+        List<SerializedReceipt> saved = savedReceipts.stream()
+                .map(receipt -> serialize(convertToDTO(receipt)))
+                .toList();
+        cacheAfterCommit(saved);
+        return saved.stream().map(SerializedReceipt::receipt).collect(Collectors.toList());
     }
 
-    private ReceiptItem tryParseItem(List<String> lines, int startIdx, int endIdx) {
-        String productName = lines.get(startIdx).trim();
-        Integer quantity = null;
-        Double price = null;
-
-        for (int i = startIdx + 1; i < Math.min(startIdx + 5, endIdx); i++) {
-            String line = lines.get(i).trim();
-
-            if (quantity == null && QUANTITY_PATTERN.matcher(line).matches()) {
-                try {
-                    quantity = Integer.parseInt(line);
-                } catch (NumberFormatException e) {
-                    log.debug("Failed to parse quantity: {}", line);
-                }
-            }
-
-            if (price == null) {
-                Matcher priceMatcher = PRICE_PATTERN.matcher(line);
-                if (priceMatcher.find()) {
-                    try {
-                        price = Double.parseDouble(priceMatcher.group(1));
-                    } catch (NumberFormatException e) {
-                        log.debug("Failed to parse price: {}", line);
-                    }
-                }
-            }
-
-            if (quantity != null && price != null) {
-                ReceiptItem item = new ReceiptItem();
-                item.setProductName(productName);
-                item.setQuantity(quantity);
-                item.setPrice(price);
-                return item;
-            }
-        }
-
-        return null;
+    @Override
+    @Transactional(readOnly = true)
+    public ReceiptPageDTO getReceipts(ReceiptSearchCriteria criteria, Long afterId, Integer size) {
+        return getSerializedReceipts(criteria, afterId, size).toPageDTO();
     }
 
-    private void extractFinancialData(List<String> lines, Receipt receipt) {
-        for (int i = 0; i < lines.size(); i++) {
-            String lowerLine = lines.get(i).toLowerCase();
-
-            if (SUBTOTAL_PATTERN.matcher(lowerLine).matches()) {
-                Double value = extractNextPriceValue(lines, i);
-                if (value != null) {
-                    receipt.setSubTotal(value);
-                    log.info("✓ SubTotal: ${}", value);
-                }
-            }
-
-            if (CASH_PATTERN.matcher(lowerLine).matches()) {
-                Double value = extractNextPriceValue(lines, i);
-                if (value != null) {
-                    receipt.setCash(value);
-                    log.info("✓ Cash: ${}", value);
-                }
-            }
-
-            if (CHANGE_PATTERN.matcher(lowerLine).matches()) {
-                Double value = extractNextPriceValue(lines, i);
-                if (value != null) {
-                    receipt.setChangeAmount(value);
-                    log.info("✓ Change: ${}", value);
-                }
-            }
+    /**
+     * Keyset pagination ordered by id: the page after {@code afterId} is read with one bounded
+     * query, and items for the whole page are loaded in one batch when first accessed.
+     * One extra row is fetched to tell whether another page follows. Receipts already in
+     * {@link #receiptCache} are reused as they are, so their items are never loaded.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SerializedReceiptPage getSerializedReceipts(ReceiptSearchCriteria criteria, Long afterId, Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        if (criteria.minSubTotal() != null && criteria.maxSubTotal() != null
+                && criteria.minSubTotal().compareTo(criteria.maxSubTotal()) > 0) {
+            throw new IllegalArgumentException("minSubTotal must not be greater than maxSubTotal");
         }
-    }
 
-    private boolean isLikelyCompanyName(String line, int idx) {
-        return idx == 0 || (line.length() > 3 && !isPriceOnly(line) && !isNumericOnly(line) &&
-                !line.toLowerCase().contains("city") && !line.toLowerCase().contains("address"));
-    }
+        List<Receipt> receipts = receiptDAO.findBy(ReceiptSpecifications.keysetPage(afterId, criteria),
+                query -> query.sortBy(Sort.by("id")).limit(pageSize + 1).all());
 
-    private boolean isLikelyBranch(String line) {
-        String lower = line.toLowerCase();
-        return (lower.contains("city") && !lower.contains("index")) ||
-                lower.contains("branch") || lower.contains("store") ||
-                lower.contains("location") || lower.contains("outlet");
-    }
+        boolean hasMore = receipts.size() > pageSize;
+        List<Receipt> page = hasMore ? receipts.subList(0, pageSize) : receipts;
 
-    private boolean isLikelySeparator(String line) {
-        return line.matches("^[-=*_]{3,}$");
+        List<SerializedReceipt> serialized = page.stream()
+                .map(receipt -> receiptCache.get(receipt.getId(), id -> serialize(convertToDTO(receipt))))
+                .toList();
+        return new SerializedReceiptPage(serialized, hasMore, hasMore ? page.get(page.size() - 1).getId() : null);
     }
 
-    private boolean isNumericOnly(String line) {
-        return line.matches("^\\d+$");
+    /**
+     * Read-through {@link #receiptCache}: a hit costs no transaction or query. Concurrent misses
+     * for the same id share one load, and unknown ids are not cached.
+     */
+    @Override
+    public ReceiptDTO getReceiptById(Long id) {
+        return getSerializedReceipt(id).receipt();
     }
 
-    private boolean isPriceOnly(String line) {
-        return PRICE_PATTERN.matcher(line).matches();
+    @Override
+    public SerializedReceipt getSerializedReceipt(Long id) {
+        return receiptCache.get(id, this::loadReceipt);
     }
 
-    private String extractNextNumericValue(List<String> lines, int startIdx) {
-        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
-            String line = lines.get(i).trim();
-            if (line.matches("^#?\\d+$")) {
-                return line;
-            }
-        }
-        return null;
+    private SerializedReceipt loadReceipt(Long id) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        ReceiptDTO receipt = transaction.execute(status -> convertToDTO(receiptDAO.findById(id)
+                .orElseThrow(() -> new ReceiptNotFoundException("Receipt not found with id: " + id))));
+        return serialize(receipt);
     }
 
-    private String extractNextNonNumericValue(List<String> lines, int startIdx) {
-        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
-            String line = lines.get(i).trim();
-            if (!line.isEmpty() && !isNumericOnly(line) && !isPriceOnly(line)) {
-                return line;
-            }
+    private SerializedReceipt serialize(ReceiptDTO receipt) {
+        try {
+            return SerializedReceipt.of(receipt, objectMapper.writeValueAsBytes(receipt));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize receipt " + receipt.getId(), e);
         }
-        return null;
     }
 
-    private String extractValueFromSameLine(String line, String label) {
-        String lowerLine = line.toLowerCase();
-        int labelPos = lowerLine.indexOf(label);
-        if (labelPos >= 0) {
-            String remainder = line.substring(labelPos + label.length()).trim();
-            remainder = remainder.replaceFirst("^:\\s*", "");
-            if (!remainder.isEmpty()) {
-                return remainder;
-            }
+    /**
+     * Write-through for new receipts, once they are committed, so a rolled back save never shows up.
+     */
+    private void cacheAfterCommit(List<SerializedReceipt> receipts) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            receipts.forEach(receipt -> receiptCache.put(receipt.receipt().getId(), receipt));
+            return;
         }
-        return null;
-    }
-
-    private Double extractNextPriceValue(List<String> lines, int startIdx) {
-        for (int i = startIdx + 1; i < Math.min(startIdx + 3, lines.size()); i++) {
-            String line = lines.get(i).trim();
-            Matcher matcher = PRICE_PATTERN.matcher(line);
-            if (matcher.find()) {
-                try {
-                    return Double.parseDouble(matcher.group(1));
-                } catch (NumberFormatException e) {
-                    log.debug("Failed to parse price value: {}", line);
-                }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                receipts.forEach(receipt -> receiptCache.put(receipt.receipt().getId(), receipt));
             }
-        }
-        return null;
+        });
     }
 
-    private int findNextProductStart(List<String> lines, int startIdx, int endIdx) {
-        for (int i = startIdx; i < endIdx; i++) {
-            String line = lines.get(i).trim();
-            if (!line.isEmpty() && !isNumericOnly(line) && !isPriceOnly(line)) {
-                return i;
-            }
+    private SpooledUpload spool(MultipartFile file) {
+        try {
+            return uploadSpooler.spool(file);
+        } catch (IOException e) {
+            throw new TextractException("Failed to read file bytes", e);
         }
-        return startIdx;
-    }
-
-    private void applyDefaults(Receipt receipt) {
-        if (receipt.getCompanyName() == null) receipt.setCompanyName("Unknown Store");
-        if (receipt.getBranch() == null) receipt.setBranch("Main Branch");
-        if (receipt.getManagerName() == null) receipt.setManagerName("N/A");
-        if (receipt.getCashierNumber() == null) receipt.setCashierNumber("N/A");
-        if (receipt.getSubTotal() == null) receipt.setSubTotal(0.0);
-        if (receipt.getCash() == null) receipt.setCash(0.0);
-        if (receipt.getChangeAmount() == null) receipt.setChangeAmount(0.0);
-    }
-
-    private void logParsedReceipt(Receipt receipt) {
-        log.info("=== PARSING COMPLETE ===");
-        log.info("Company: {}", receipt.getCompanyName());
-        log.info("Branch: {}", receipt.getBranch());
-        log.info("Manager: {}", receipt.getManagerName());
-        log.info("Cashier: {}", receipt.getCashierNumber());
-        log.info("Items: {}", receipt.getItems().size());
-        log.info("SubTotal: ${}", receipt.getSubTotal());
-        log.info("Cash: ${}", receipt.getCash());
-        log.info("Change: ${}", receipt.getChangeAmount());
     }
 
     private ReceiptDTO convertToDTO(Receipt receipt) {
@@ -389,7 +241,7 @@ public class TextractServiceImpl implements TextractService {
                 .map(item -> ReceiptItemDTO.builder()
                         .productName(item.getProductName())
                         .quantity(item.getQuantity())
-                        .price(item.getPrice())
+                        .price(toAmount(item.getPrice()))
                         .build())
                 .collect(Collectors.toList());
 
@@ -400,9 +252,14 @@ public class TextractServiceImpl implements TextractService {
                 .managerName(receipt.getManagerName())
                 .cashierNumber(receipt.getCashierNumber())
                 .items(itemDTOs)
-                .subTotal(receipt.getSubTotal())
-                .cash(receipt.getCash())
-                .changeAmount(receipt.getChangeAmount())
+                .subTotal(toAmount(receipt.getSubTotal()))
+                .cash(toAmount(receipt.getCash()))
+                .changeAmount(toAmount(receipt.getChangeAmount()))
+                .currency(receipt.getCurrency())
                 .build();
     }
+
+    private static BigDecimal toAmount(Money amount) {
+        return amount == null ? null : amount.toBigDecimal();
+    }
 }
\ No newline at end of file
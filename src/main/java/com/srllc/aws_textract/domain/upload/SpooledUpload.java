@@ -0,0 +1,58 @@
+package com.srllc.aws_textract.domain.upload;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An uploaded file whose content is either memory-mapped from a spool file or, for small
+ * uploads, held on the heap. Closing deletes the spool file; an existing mapping stays
+ * readable until it is garbage collected.
+ */
+@Slf4j
+public final class SpooledUpload implements AutoCloseable {
+
+    private final String fileName;
+    private final ByteBuffer content;
+    private final Path spoolFile;
+
+    SpooledUpload(String fileName, ByteBuffer content, Path spoolFile) {
+        this.fileName = fileName;
+        this.content = content;
+        this.spoolFile = spoolFile;
+    }
+
+    public static SpooledUpload ofBytes(String fileName, byte[] content) {
+        return new SpooledUpload(fileName, ByteBuffer.wrap(content), null);
+    }
+
+    public String fileName() {
+        return fileName;
+    }
+
+    /**
+     * A fresh view of the whole content; callers may move its position but must not write to it.
+     */
+    public ByteBuffer content() {
+        return content.duplicate();
+    }
+
+    public int size() {
+        return content.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (spoolFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}: {}", spoolFile, e.getMessage());
+        }
+    }
+}
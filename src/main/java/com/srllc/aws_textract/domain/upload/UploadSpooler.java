@@ -0,0 +1,81 @@
+package com.srllc.aws_textract.domain.upload;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Moves multipart uploads out of the servlet container without reading them onto the heap.
+ * Uploads of at least {@code upload.spool.mmap-threshold} bytes are transferred to a spool file
+ * (a rename when the container already wrote the part to disk) and memory-mapped; smaller ones
+ * are read into a heap buffer, where a mapping would cost more than it saves.
+ * <p>
+ * Spool files outlive the request, so asynchronous jobs can read them after the multipart
+ * temp files are gone. The spool directory must not be shared between instances: leftovers
+ * from a previous run are deleted on startup.
+ */
+@Component
+@Slf4j
+public class UploadSpooler {
+
+    private static final String SPOOL_PREFIX = "upload-";
+
+    private final MeterRegistry meterRegistry;
+    private final Path spoolDirectory;
+    private final long mmapThreshold;
+
+    public UploadSpooler(
+            MeterRegistry meterRegistry,
+            @Value("${upload.spool.dir:${java.io.tmpdir}/aws-textract-uploads}") Path spoolDirectory,
+            @Value("${upload.spool.mmap-threshold:65536}") long mmapThreshold) throws IOException {
+        this.meterRegistry = meterRegistry;
+        this.spoolDirectory = Files.createDirectories(spoolDirectory);
+        this.mmapThreshold = mmapThreshold;
+        deleteLeftovers();
+    }
+
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        if (file.getSize() < mmapThreshold) {
+            record("heap", file.getSize());
+            return SpooledUpload.ofBytes(file.getOriginalFilename(), file.getBytes());
+        }
+
+        Path spoolFile = Files.createTempFile(spoolDirectory, SPOOL_PREFIX, ".bin");
+        try {
+            file.transferTo(spoolFile);
+            try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                record("mapped", channel.size());
+                return new SpooledUpload(file.getOriginalFilename(), mapped, spoolFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+    }
+
+    private void record(String mode, long bytes) {
+        meterRegistry.counter("upload.spool.bytes", "mode", mode).increment(bytes);
+    }
+
+    private void deleteLeftovers() throws IOException {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(spoolDirectory, SPOOL_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Could not clean spool directory {}: {}", spoolDirectory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.srllc.aws_textract.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReceiptJobConfigTest {
+
+    @Test
+    void virtualThreadJobsAreCappedAtRunningPlusQueuedJobs() throws Exception {
+        ReceiptJobConfig config = new ReceiptJobConfig();
+        ReflectionTestUtils.setField(config, "virtualThreads", true);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 1);
+        ReflectionTestUtils.setField(config, "queueCapacity", 1);
+        AsyncTaskExecutor executor = config.receiptJobExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Boolean> first = executor.submit(
+                () -> Thread.currentThread().isVirtual() && release.await(5, TimeUnit.SECONDS));
+        Future<Boolean> second = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+        assertThatThrownBy(() -> executor.submit(() -> true)).isInstanceOf(TaskRejectedException.class);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
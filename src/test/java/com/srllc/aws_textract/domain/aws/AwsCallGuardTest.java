@@ -0,0 +1,165 @@
+package com.srllc.aws_textract.domain.aws;
+
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import com.srllc.aws_textract.domain.exception.AwsThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextResponse;
+import software.amazon.awssdk.services.textract.model.InternalServerErrorException;
+import software.amazon.awssdk.services.textract.model.InvalidParameterException;
+import software.amazon.awssdk.services.textract.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.textract.model.ThrottlingException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives {@link AwsCallGuard} with a Textract client that fails on demand.
+ */
+class AwsCallGuardTest {
+
+    private static final DetectDocumentTextRequest REQUEST = DetectDocumentTextRequest.builder().build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FaultyTextract textract = new FaultyTextract();
+
+    @Test
+    void retriesThrottledCallsAndSlowsDown() {
+        AwsCallGuard guard = guard(new MockEnvironment(), 4, 10);
+        textract.faults.add(() -> ThrottlingException.builder().message("Rate exceeded").statusCode(400).build());
+        textract.faults.add(() -> ProvisionedThroughputExceededException.builder().message("Slow down").build());
+
+        DetectDocumentTextResponse response = guard.call(AwsOperation.DETECT_DOCUMENT_TEXT,
+                () -> textract.detectDocumentText(REQUEST));
+
+        assertThat(response).isNotNull();
+        assertThat(textract.calls).isEqualTo(3);
+        assertThat(meterRegistry.counter("aws.resilience.retries", "service", "textract",
+                "operation", "DetectDocumentText", "reason", "throttled").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("aws.resilience.rate").tag("operation", "DetectDocumentText").gauge().value())
+                .isLessThan(AwsOperation.DETECT_DOCUMENT_TEXT.defaultTps());
+
+        textract.faults.add(() -> InvalidParameterException.builder().message("Bad document").build());
+        assertThatThrownBy(() -> guard.call(AwsOperation.DETECT_DOCUMENT_TEXT, () -> textract.detectDocumentText(REQUEST)))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThat(textract.calls).isEqualTo(4);
+    }
+
+    @Test
+    void opensTheCircuitAfterRepeatedServerErrors() {
+        AwsCallGuard guard = guard(new MockEnvironment(), 2, 3);
+        textract.failing = () -> InternalServerErrorException.builder().message("Internal error").statusCode(500).build();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> guard.call(AwsOperation.DETECT_DOCUMENT_TEXT,
+                    () -> textract.detectDocumentText(REQUEST)))
+                    .isInstanceOf(InternalServerErrorException.class);
+        }
+        assertThat(textract.calls).isEqualTo(3);
+        assertThatThrownBy(() -> guard.call(AwsOperation.DETECT_DOCUMENT_TEXT, () -> textract.detectDocumentText(REQUEST)))
+                .isInstanceOf(AwsCapacityExceededException.class)
+                .satisfies(e -> assertThat(((AwsCapacityExceededException) e).getRetryAfter()).isPositive());
+        assertThat(textract.calls).isEqualTo(3);
+        assertThat(meterRegistry.get("aws.resilience.circuit.state").tag("operation", "DetectDocumentText").gauge()
+                .value()).isEqualTo(1);
+
+        // Other operations keep their own circuit
+        assertThat(guard.call(AwsOperation.ANALYZE_EXPENSE, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void rejectsCallsOverTheRateLimit() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("aws.resilience.detect-document-text.tps", "0.01")
+                .withProperty("aws.resilience.detect-document-text.burst", "1");
+        AwsCallGuard guard = guard(environment, 4, 10);
+
+        guard.call(AwsOperation.DETECT_DOCUMENT_TEXT, () -> textract.detectDocumentText(REQUEST));
+
+        assertThatThrownBy(() -> guard.call(AwsOperation.DETECT_DOCUMENT_TEXT, () -> textract.detectDocumentText(REQUEST)))
+                .isInstanceOf(AwsThrottledException.class);
+        assertThat(textract.calls).isEqualTo(1);
+        assertThat(meterRegistry.counter("aws.resilience.rejected", "service", "textract",
+                "operation", "DetectDocumentText", "reason", "rate_limited").count()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncCallsWaitForABulkheadSlotWithoutBlockingTheCaller() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("aws.resilience.detect-document-text.max-in-flight", "1");
+        AwsCallGuard guard = guard(environment, 4, 10);
+        CompletableFuture<String> firstResponse = new CompletableFuture<>();
+
+        CompletableFuture<String> first = guard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT, () -> firstResponse);
+        CompletableFuture<String> second = guard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT,
+                () -> CompletableFuture.completedFuture("second"));
+
+        assertThat(second).isNotDone();
+        firstResponse.complete("first");
+        assertThat(first.join()).isEqualTo("first");
+        assertThat(second.join()).isEqualTo("second");
+    }
+
+    @Test
+    void asyncCallsFindingNoSlotFailWithoutCountingAgainstTheCircuit() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("aws.resilience.detect-document-text.max-in-flight", "1");
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(4, 4, 1000, meterRegistry);
+        AwsCallGuard guard = new AwsCallGuard(limiter, environment, meterRegistry, 4, 1, 5, 10, 20, 1, 60_000);
+        CompletableFuture<String> stuck = new CompletableFuture<>();
+        guard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT, () -> stuck);
+
+        CompletableFuture<String> rejected = guard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT,
+                () -> CompletableFuture.completedFuture("never"));
+
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(AwsCapacityExceededException.class);
+        assertThat(meterRegistry.counter("aws.resilience.rejected", "service", "textract",
+                "operation", "DetectDocumentText", "reason", "bulkhead_full").count()).isEqualTo(1);
+        stuck.complete("done");
+        assertThat(guard.callAsync(AwsOperation.DETECT_DOCUMENT_TEXT,
+                () -> CompletableFuture.completedFuture("ok")).join()).isEqualTo("ok");
+    }
+
+    private AwsCallGuard guard(MockEnvironment environment, int maxAttempts, int failureThreshold) {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(4, 4, 1000, meterRegistry);
+        return new AwsCallGuard(limiter, environment, meterRegistry, maxAttempts, 1, 5, 10, 1000,
+                failureThreshold, 60_000);
+    }
+
+    private static final class FaultyTextract implements TextractClient {
+
+        private final Deque<Supplier<RuntimeException>> faults = new ArrayDeque<>();
+        private Supplier<RuntimeException> failing;
+        private int calls;
+
+        @Override
+        public DetectDocumentTextResponse detectDocumentText(DetectDocumentTextRequest request) {
+            calls++;
+            Supplier<RuntimeException> fault = faults.poll();
+            if (fault == null) {
+                fault = failing;
+            }
+            if (fault != null) {
+                throw fault.get();
+            }
+            return DetectDocumentTextResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "textract";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.srllc.aws_textract.domain.aws;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives a real SDK client against a canned HTTP client, so the interceptor sees the same
+ * execution attributes it gets in production.
+ */
+class AwsCallMetricsInterceptorTest {
+
+    private final PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Test
+    void recordsLatencyAndPayloadPerOperation() {
+        try (S3Client s3 = client(200, "")) {
+            s3.putObject(request -> request.bucket("staging").key("scan.pdf"),
+                    RequestBody.fromString("%PDF-1.7 receipt", StandardCharsets.UTF_8));
+        }
+
+        assertThat(meterRegistry.get("aws.call.duration")
+                .tags("service", "S3", "operation", "PutObject", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("aws.call.payload")
+                .tags("operation", "PutObject", "direction", "request")
+                .summary().totalAmount()).isGreaterThanOrEqualTo(16);
+        assertThat(meterRegistry.scrape()).contains("aws_call_duration_seconds_count{operation=\"PutObject\"");
+    }
+
+    @Test
+    void tagsFailedCallsWithTheExceptionType() {
+        try (S3Client s3 = client(403, "<Error><Code>AccessDenied</Code></Error>")) {
+            assertThatThrownBy(() -> s3.deleteObject(request -> request.bucket("staging").key("scan.pdf")))
+                    .isInstanceOf(S3Exception.class);
+        }
+
+        assertThat(meterRegistry.get("aws.call.duration")
+                .tags("operation", "DeleteObject", "outcome", "S3Exception")
+                .timer().count()).isEqualTo(1);
+    }
+
+    private S3Client client(int status, String body) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        SdkHttpClient httpClient = new SdkHttpClient() {
+            @Override
+            public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+                return new ExecutableHttpRequest() {
+                    @Override
+                    public HttpExecuteResponse call() {
+                        return HttpExecuteResponse.builder()
+                                .response(SdkHttpResponse.builder()
+                                        .statusCode(status)
+                                        .putHeader("Content-Length", String.valueOf(content.length))
+                                        .build())
+                                .responseBody(AbortableInputStream.create(new ByteArrayInputStream(content)))
+                                .build();
+                    }
+
+                    @Override
+                    public void abort() {
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        return S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .endpointOverride(URI.create("http://localhost:4566"))
+                .forcePathStyle(true)
+                .httpClient(httpClient)
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .addExecutionInterceptor(new AwsCallMetricsInterceptor(meterRegistry))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.srllc.aws_textract.domain.aws;
+
+import com.srllc.aws_textract.domain.exception.AwsCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Holds slots with asynchronous calls whose futures the test completes, so no thread is needed
+ * to keep a service busy.
+ */
+class AwsConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void callersFindingNoSlotWithinTheTimeoutAreRejected() {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(1, 1, 20, meterRegistry);
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        limiter.callAsync(AwsService.TEXTRACT, () -> inFlight);
+
+        assertThatThrownBy(() -> limiter.call(AwsService.TEXTRACT, () -> "never"))
+                .isInstanceOf(AwsCapacityExceededException.class);
+        assertThat(available(AwsService.TEXTRACT)).isZero();
+
+        // Each service has its own slots
+        assertThat(limiter.call(AwsService.REKOGNITION, () -> "labels")).isEqualTo("labels");
+
+        inFlight.complete("done");
+        assertThat(available(AwsService.TEXTRACT)).isEqualTo(1);
+        assertThat(limiter.call(AwsService.TEXTRACT, () -> "text")).isEqualTo("text");
+    }
+
+    @Test
+    void asyncCallsQueueForASlotInArrivalOrder() {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(1, 1, 10_000, meterRegistry);
+        List<String> started = new ArrayList<>();
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        limiter.callAsync(AwsService.TEXTRACT, () -> {
+            started.add("first");
+            return first;
+        });
+        CompletableFuture<String> secondResult = limiter.callAsync(AwsService.TEXTRACT, () -> {
+            started.add("second");
+            return second;
+        });
+        CompletableFuture<String> thirdResult = limiter.callAsync(AwsService.TEXTRACT, () -> {
+            started.add("third");
+            return CompletableFuture.completedFuture("third");
+        });
+
+        assertThat(started).containsExactly("first");
+        first.complete("first");
+        assertThat(started).containsExactly("first", "second");
+        assertThat(thirdResult).isNotDone();
+
+        second.complete("second");
+        assertThat(secondResult.join()).isEqualTo("second");
+        assertThat(thirdResult.join()).isEqualTo("third");
+        assertThat(available(AwsService.TEXTRACT)).isEqualTo(1);
+    }
+
+    @Test
+    void queuedAsyncCallsFailAfterTheTimeoutWithoutStarting() {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(1, 1, 20, meterRegistry);
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        limiter.callAsync(AwsService.REKOGNITION, () -> inFlight);
+
+        CompletableFuture<String> queued = limiter.callAsync(AwsService.REKOGNITION, () -> {
+            throw new AssertionError("started without a slot");
+        });
+
+        assertThatThrownBy(queued::join).hasCauseInstanceOf(AwsCapacityExceededException.class);
+        inFlight.complete("done");
+        assertThat(available(AwsService.REKOGNITION)).isEqualTo(1);
+    }
+
+    @Test
+    void aCallThatFailsToStartGivesItsSlotBack() {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(1, 1, 20, meterRegistry);
+
+        CompletableFuture<String> failed = limiter.callAsync(AwsService.TEXTRACT, () -> {
+            throw new IllegalStateException("client closed");
+        });
+
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> limiter.call(AwsService.TEXTRACT, () -> {
+            throw new IllegalStateException("client closed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(available(AwsService.TEXTRACT)).isEqualTo(1);
+    }
+
+    private double available(AwsService service) {
+        return meterRegistry.get("aws.concurrency.available").tag("service", service.id()).gauge().value();
+    }
+}
@@ -0,0 +1,54 @@
+package com.srllc.aws_textract.domain.aws;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = 1_000;
+
+    @Test
+    void onlyOneTrialIsLetThroughWhileHalfOpen() {
+        CircuitBreaker circuit = new CircuitBreaker(1, OPEN_NANOS);
+        CircuitBreaker.Permit closed = circuit.tryAcquire(0);
+        assertThat(closed).isEqualTo(CircuitBreaker.Permit.CLOSED);
+        assertThat(circuit.onFailure(closed, 0)).isTrue();
+
+        CircuitBreaker.Permit trial = circuit.tryAcquire(OPEN_NANOS);
+        assertThat(trial).isEqualTo(CircuitBreaker.Permit.TRIAL);
+        assertThat(circuit.tryAcquire(OPEN_NANOS)).isEqualTo(CircuitBreaker.Permit.REJECTED);
+
+        circuit.onSuccess(trial);
+        assertThat(circuit.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuit.tryAcquire(OPEN_NANOS)).isEqualTo(CircuitBreaker.Permit.CLOSED);
+    }
+
+    @Test
+    void releasingAPermitThatIsNotTheTrialKeepsTheTrialInFlight() {
+        CircuitBreaker circuit = new CircuitBreaker(1, OPEN_NANOS);
+        // admitted while closed, then turned away by the rate limiter after the circuit opened
+        CircuitBreaker.Permit admittedWhileClosed = circuit.tryAcquire(0);
+        circuit.onFailure(circuit.tryAcquire(0), 0);
+        CircuitBreaker.Permit trial = circuit.tryAcquire(OPEN_NANOS);
+
+        circuit.release(admittedWhileClosed);
+        circuit.release(CircuitBreaker.Permit.REJECTED);
+
+        assertThat(circuit.tryAcquire(OPEN_NANOS)).isEqualTo(CircuitBreaker.Permit.REJECTED);
+        circuit.release(trial);
+        assertThat(circuit.tryAcquire(OPEN_NANOS)).isEqualTo(CircuitBreaker.Permit.TRIAL);
+    }
+
+    @Test
+    void aFailedTrialOpensTheCircuitAgain() {
+        CircuitBreaker circuit = new CircuitBreaker(1, OPEN_NANOS);
+        circuit.onFailure(circuit.tryAcquire(0), 0);
+        CircuitBreaker.Permit trial = circuit.tryAcquire(OPEN_NANOS);
+
+        assertThat(circuit.onFailure(trial, OPEN_NANOS)).isTrue();
+        assertThat(circuit.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuit.tryAcquire(OPEN_NANOS + 1)).isEqualTo(CircuitBreaker.Permit.REJECTED);
+        assertThat(circuit.tryAcquire(2 * OPEN_NANOS)).isEqualTo(CircuitBreaker.Permit.TRIAL);
+    }
+}
@@ -0,0 +1,98 @@
+package com.srllc.aws_textract.domain.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import software.amazon.awssdk.services.rekognition.RekognitionAsyncClient;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
+import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
+import software.amazon.awssdk.services.rekognition.model.InternalServerErrorException;
+import software.amazon.awssdk.services.rekognition.model.Label;
+import software.amazon.awssdk.services.rekognition.model.ThrottlingException;
+import software.amazon.awssdk.services.textract.TextractAsyncClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the Rekognition endpoints with {@code aws.client.mode=async}, where they complete through
+ * the async client's futures and failures are mapped once the future fails.
+ */
+@SpringBootTest(properties = {
+        "aws.client.mode=async",
+        "aws.resilience.retry.base-delay-ms=1",
+        "aws.resilience.retry.max-delay-ms=5"
+})
+@AutoConfigureMockMvc
+class RekognitionControllerTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @MockitoBean
+    private TextractAsyncClient textractAsyncClient;
+
+    @MockitoBean
+    private RekognitionAsyncClient rekognitionAsyncClient;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void labelsCompleteThroughTheAsyncClient() throws Exception {
+        when(rekognitionAsyncClient.detectLabels(any(DetectLabelsRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DetectLabelsResponse.builder()
+                        .labels(Label.builder().name("Receipt").confidence(98.5f).build())
+                        .build()));
+
+        mockMvc.perform(asyncDispatch(detectLabels("labels-ok")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalDetections").value(1));
+    }
+
+    @Test
+    void throttlingThatOutlastsTheRetriesIsAnswered429() throws Exception {
+        when(rekognitionAsyncClient.detectLabels(any(DetectLabelsRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(
+                        ThrottlingException.builder().message("Rate exceeded").statusCode(400).build()));
+
+        mockMvc.perform(asyncDispatch(detectLabels("labels-throttled")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void awsServerErrorsAreAnswered500() throws Exception {
+        when(rekognitionAsyncClient.detectLabels(any(DetectLabelsRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(
+                        InternalServerErrorException.builder().message("Internal error").statusCode(500).build()));
+
+        mockMvc.perform(asyncDispatch(detectLabels("labels-failing")))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("Rekognition Processing Error"));
+    }
+
+    private MvcResult detectLabels(String content) throws Exception {
+        return mockMvc.perform(multipart("/api/v1/rekognition/labels")
+                        .file(new MockMultipartFile("file", content + ".jpg", "image/jpeg", content.getBytes())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
@@ -0,0 +1,112 @@
+package com.srllc.aws_textract.domain.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import com.srllc.aws_textract.domain.service.TextractService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TextractControllerTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    @Autowired
+    private TextractService textractService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void receiptReadsCarryAStrongEtagAndAnswerIfNoneMatchWith304() throws Exception {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName("Etag Store");
+        receipt.setSubTotal(Money.ofMinor(750));
+        ReceiptItem item = new ReceiptItem();
+        item.setProductName("Coffee");
+        item.setQuantity(1);
+        item.setPrice(Money.ofMinor(750));
+        receipt.addItem(item);
+        Long id = receiptDAO.save(receipt).getId();
+
+        MvcResult first = mockMvc.perform(get("/api/v1/textract/receipts/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"");
+        assertThat(first.getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(textractService.getReceiptById(id)));
+
+        mockMvc.perform(get("/api/v1/textract/receipts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        MvcResult page = mockMvc.perform(get("/api/v1/textract/receipts").param("companyName", "Etag Store"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(page.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(
+                textractService.getReceipts(new ReceiptSearchCriteria("Etag Store", null, null, null), null, null)));
+
+        mockMvc.perform(get("/api/v1/textract/receipts").param("companyName", "Etag Store")
+                        .header(HttpHeaders.IF_NONE_MATCH, page.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void extractCallsTheSyncClientOnTheRequestThreadInSyncMode() throws Exception {
+        when(textractClient.detectDocumentText(any(DetectDocumentTextRequest.class)))
+                .thenReturn(DetectDocumentTextResponse.builder()
+                        .blocks(Block.builder().blockType(BlockType.LINE).text("TOTAL 7.50").build())
+                        .build());
+
+        MvcResult result = mockMvc.perform(multipart("/api/v1/textract/extract")
+                        .file(new MockMultipartFile("file", "sync.jpg", "image/jpeg", "sync-extract".getBytes())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        verify(textractClient).detectDocumentText(any(DetectDocumentTextRequest.class));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines[0]").value("TOTAL 7.50"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round-trip benchmark for receipt persistence against the embedded database: saves the same
+ * receipt with 30 line items with JDBC batching disabled and enabled, and compares the number
+ * of statements Hibernate prepares (one per round trip when not batching).
+ */
+@SpringBootTest
+@Slf4j
+class ReceiptPersistenceBatchingTest {
+
+    private static final int ITEM_COUNT = 30;
+    private static final int ROUNDS = 20;
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchedInsertsNeedFarFewerStatementsThanOnePerRow() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // warm up sequences, statement plans and the JIT before measuring
+        saveReceipts(1, 5);
+        saveReceipts(50, 5);
+
+        statistics.clear();
+        long unbatchedStart = System.nanoTime();
+        saveReceipts(1, ROUNDS);
+        long unbatchedNanos = System.nanoTime() - unbatchedStart;
+        long unbatchedStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long batchedStart = System.nanoTime();
+        saveReceipts(50, ROUNDS);
+        long batchedNanos = System.nanoTime() - batchedStart;
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        log.info("Saving {} receipts with {} items: unbatched {} statements in {} ms, batched {} statements in {} ms",
+                ROUNDS, ITEM_COUNT, unbatchedStatements, unbatchedNanos / 1_000_000,
+                batchedStatements, batchedNanos / 1_000_000);
+
+        assertThat(unbatchedStatements).isGreaterThanOrEqualTo((long) ROUNDS * (ITEM_COUNT + 1));
+        // one receipt insert, one item batch, plus an occasional sequence fetch per receipt
+        assertThat(batchedStatements).isLessThanOrEqualTo(ROUNDS * 4L);
+    }
+
+    private void saveReceipts(int jdbcBatchSize, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                entityManager.persist(newReceipt());
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private Receipt newReceipt() {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName("Batching Benchmark Store");
+        receipt.setBranch("Main");
+        receipt.setSubTotal(Money.ofMinor(999).times(ITEM_COUNT));
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ReceiptItem item = new ReceiptItem();
+            item.setProductName("Item " + i);
+            item.setQuantity(1);
+            item.setPrice(Money.ofMinor(999));
+            receipt.addItem(item);
+        }
+        return receipt;
+    }
+}
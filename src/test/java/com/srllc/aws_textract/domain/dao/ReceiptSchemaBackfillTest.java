@@ -0,0 +1,121 @@
+package com.srllc.aws_textract.domain.dao;
+
+import com.srllc.aws_textract.domain.entity.ReceiptRollupState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recreates the former {@code DOUBLE} amount columns next to the current schema, as
+ * {@code ddl-auto=update} leaves them on an upgraded database, and backfills from them.
+ */
+@SpringBootTest
+class ReceiptSchemaBackfillTest {
+
+    private static final long LEGACY_ID = 990_001;
+    private static final long CURRENT_ID = 990_002;
+    private static final long JOB_RECEIPT_ID = 990_003;
+    private static final long UNTRACKED_ID = 990_004;
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReceiptSchemaBackfill receiptSchemaBackfill;
+
+    @Autowired
+    private ReceiptRollupStateDAO receiptRollupStateDAO;
+
+    @BeforeEach
+    void addLegacyColumns() {
+        jdbcTemplate.execute("ALTER TABLE receipts ADD COLUMN sub_total DOUBLE");
+        jdbcTemplate.execute("ALTER TABLE receipts ADD COLUMN cash DOUBLE");
+        jdbcTemplate.execute("ALTER TABLE receipts ADD COLUMN change_amount DOUBLE");
+        jdbcTemplate.execute("ALTER TABLE receipt_items ADD COLUMN price DOUBLE");
+    }
+
+    @AfterEach
+    void dropLegacyColumns() {
+        receiptSchemaBackfill.zone = ZoneId.systemDefault();
+        // Other tests of this context read the rollups
+        receiptRollupStateDAO.save(new ReceiptRollupState(ReceiptRollupState.COMPLETE, Instant.now()));
+        jdbcTemplate.update("DELETE FROM receipt_items WHERE receipt_id IN (?, ?)", LEGACY_ID, CURRENT_ID);
+        jdbcTemplate.update("DELETE FROM receipt_job_receipts WHERE job_id = 'backfill-job'");
+        jdbcTemplate.update("DELETE FROM receipt_jobs WHERE id = 'backfill-job'");
+        jdbcTemplate.update("DELETE FROM receipts WHERE id IN (?, ?, ?, ?)",
+                LEGACY_ID, CURRENT_ID, JOB_RECEIPT_ID, UNTRACKED_ID);
+        jdbcTemplate.execute("ALTER TABLE receipts DROP COLUMN sub_total");
+        jdbcTemplate.execute("ALTER TABLE receipts DROP COLUMN cash");
+        jdbcTemplate.execute("ALTER TABLE receipts DROP COLUMN change_amount");
+        jdbcTemplate.execute("ALTER TABLE receipt_items DROP COLUMN price");
+    }
+
+    @Test
+    void copiesLegacyAmountsIntoCentsOnlyWhereTheyAreMissing() {
+        jdbcTemplate.update("INSERT INTO receipts (id, company_name, sub_total, cash, change_amount) "
+                + "VALUES (?, 'Legacy Store', 12.35, 20.0, 7.66)", LEGACY_ID);
+        jdbcTemplate.update("INSERT INTO receipt_items (id, product_name, quantity, price, receipt_id) "
+                + "VALUES (?, 'Tea', 1, 2.5, ?)", LEGACY_ID, LEGACY_ID);
+        jdbcTemplate.update("INSERT INTO receipts (id, company_name, currency, sub_total_minor, sub_total) "
+                + "VALUES (?, 'Current Store', 'PHP', 500, 99.0)", CURRENT_ID);
+
+        receiptSchemaBackfill.backfillAmounts();
+        receiptSchemaBackfill.backfillAmounts();
+
+        Map<String, Object> legacy = jdbcTemplate.queryForMap(
+                "SELECT sub_total_minor, cash_minor, change_amount_minor, currency FROM receipts WHERE id = ?", LEGACY_ID);
+        assertThat(((Number) legacy.get("sub_total_minor")).longValue()).isEqualTo(1235);
+        assertThat(((Number) legacy.get("cash_minor")).longValue()).isEqualTo(2000);
+        assertThat(((Number) legacy.get("change_amount_minor")).longValue()).isEqualTo(766);
+        assertThat(legacy.get("currency")).isEqualTo("USD");
+        assertThat(jdbcTemplate.queryForObject("SELECT price_minor FROM receipt_items WHERE id = ?", Long.class,
+                LEGACY_ID)).isEqualTo(250);
+
+        Map<String, Object> current = jdbcTemplate.queryForMap(
+                "SELECT sub_total_minor, currency FROM receipts WHERE id = ?", CURRENT_ID);
+        assertThat(((Number) current.get("sub_total_minor")).longValue()).isEqualTo(500);
+        assertThat(current.get("currency")).isEqualTo("PHP");
+    }
+
+    @Test
+    void receiptsSavedByAJobGetTheTimeTheJobFinished() {
+        // Job times are Manila wall-clock times; created_at holds the instant
+        receiptSchemaBackfill.zone = ZoneId.of("Asia/Manila");
+        LocalDateTime finished = LocalDateTime.of(2024, 3, 1, 9, 30);
+        jdbcTemplate.update("INSERT INTO receipts (id, company_name) VALUES (?, 'Job Store'), (?, 'Walk-in Store')",
+                JOB_RECEIPT_ID, UNTRACKED_ID);
+        jdbcTemplate.update("INSERT INTO receipt_jobs (id, status, created_at, updated_at) "
+                + "VALUES ('backfill-job', 'COMPLETED', ?, ?)", finished.minusMinutes(1), finished);
+        jdbcTemplate.update("INSERT INTO receipt_job_receipts (job_id, position, receipt_id) "
+                + "VALUES ('backfill-job', 0, ?)", JOB_RECEIPT_ID);
+
+        receiptSchemaBackfill.backfillCreatedAt();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM receipts WHERE id = ?", Timestamp.class,
+                JOB_RECEIPT_ID).toInstant()).isEqualTo(Instant.parse("2024-03-01T01:30:00Z"));
+        // The rollups never counted these receipts in their new buckets
+        assertThat(receiptRollupStateDAO.existsById(ReceiptRollupState.COMPLETE)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM receipts WHERE id = ?", Timestamp.class,
+                UNTRACKED_ID)).isNull();
+    }
+}
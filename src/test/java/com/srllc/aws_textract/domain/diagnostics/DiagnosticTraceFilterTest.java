@@ -0,0 +1,77 @@
+package com.srllc.aws_textract.domain.diagnostics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagnosticTraceFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<String> written = new LinkedBlockingQueue<>();
+    private final DiagnosticTraceWriter writer =
+            new DiagnosticTraceWriter(objectMapper, new SimpleMeterRegistry(), 10, written::add);
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        writer.close();
+    }
+
+    @Test
+    void headerForcesATraceThatIsWrittenAsOneJsonRecord() throws Exception {
+        DiagnosticTraceFilter filter = new DiagnosticTraceFilter(writer, 0, true);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/textract/receipts/process");
+        request.addHeader("X-Diagnostic-Trace", "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                DiagnosticTraces.current().event("textract.lines", Map.of("count", 2, "lines", List.of("A", "B")));
+            }
+        });
+
+        String line = written.poll(5, TimeUnit.SECONDS);
+        assertThat(line).isNotNull();
+        JsonNode trace = objectMapper.readTree(line);
+        assertThat(trace.get("traceId").asText()).isEqualTo(response.getHeader("X-Diagnostic-Trace-Id"));
+        assertThat(trace.get("trigger").asText()).isEqualTo("header");
+        assertThat(trace.get("uri").asText()).isEqualTo("/api/v1/textract/receipts/process");
+        assertThat(trace.get("events").get(0).get("name").asText()).isEqualTo("textract.lines");
+        assertThat(trace.get("events").get(0).get("fields").get("lines").get(1).asText()).isEqualTo("B");
+        assertThat(DiagnosticTraces.current()).isNull();
+    }
+
+    @Test
+    void requestsAreNotTracedByDefault() throws Exception {
+        DiagnosticTraceFilter filter = new DiagnosticTraceFilter(writer, 0, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/textract/receipts");
+        request.addHeader("X-Diagnostic-Trace", "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<DiagnosticTrace> seen = new AtomicReference<>();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                seen.set(DiagnosticTraces.current());
+            }
+        });
+
+        assertThat(seen.get()).isNull();
+        assertThat(response.getHeader("X-Diagnostic-Trace-Id")).isNull();
+        assertThat(written.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+}
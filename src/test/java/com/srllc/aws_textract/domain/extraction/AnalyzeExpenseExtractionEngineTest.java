@@ -0,0 +1,143 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.AnalyzeExpenseRequest;
+import software.amazon.awssdk.services.textract.model.AnalyzeExpenseResponse;
+import software.amazon.awssdk.services.textract.model.DocumentMetadata;
+import software.amazon.awssdk.services.textract.model.ExpenseDetection;
+import software.amazon.awssdk.services.textract.model.ExpenseDocument;
+import software.amazon.awssdk.services.textract.model.ExpenseField;
+import software.amazon.awssdk.services.textract.model.ExpenseType;
+import software.amazon.awssdk.services.textract.model.LineItemFields;
+import software.amazon.awssdk.services.textract.model.LineItemGroup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class AnalyzeExpenseExtractionEngineTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private AnalyzeExpenseExtractionEngine analyzeExpenseExtractionEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void mapsExpenseFieldsToReceiptAndBillsOnlyTheFirstCall() {
+        when(textractClient.analyzeExpense(any(AnalyzeExpenseRequest.class))).thenReturn(AnalyzeExpenseResponse.builder()
+                .documentMetadata(DocumentMetadata.builder().pages(1).build())
+                .expenseDocuments(ExpenseDocument.builder()
+                        .summaryFields(
+                                field("VENDOR_NAME", null, "Jollibee"),
+                                field("VENDOR_ADDRESS", null, "SM Megamall\nMandaluyong City"),
+                                field("SUBTOTAL", "Sub Total", "PHP 1,234.50"),
+                                field("AMOUNT_PAID", "Cash", "1,500.00"),
+                                field("OTHER", "Change", "265.50"),
+                                field("OTHER", "Cashier", "#12"),
+                                field("OTHER", "Manager", "A. Cruz"))
+                        .lineItemGroups(LineItemGroup.builder()
+                                .lineItems(
+                                        item(field("ITEM", null, "Chickenjoy"), field("QUANTITY", null, "2"),
+                                                field("PRICE", null, "$198.00")),
+                                        item(field("ITEM", null, "Sundae"), field("UNIT_PRICE", null, "45.00")),
+                                        item(field("PRICE", null, "10.00")))
+                                .build())
+                        .build())
+                .build());
+
+        double costBefore = meterRegistry.counter("receipt.extraction.aws.cost", "engine", "analyze-expense").count();
+        ByteBuffer image = ByteBuffer.wrap(("expense-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+
+        Receipt receipt = analyzeExpenseExtractionEngine.extract(image).get(0);
+        Receipt cached = analyzeExpenseExtractionEngine.extract(image).get(0);
+
+        assertThat(receipt.getCompanyName()).isEqualTo("Jollibee");
+        assertThat(receipt.getBranch()).isEqualTo("SM Megamall");
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(123450));
+        assertThat(receipt.getCash()).isEqualTo(Money.ofMinor(150000));
+        assertThat(receipt.getChangeAmount()).isEqualTo(Money.ofMinor(26550));
+        assertThat(receipt.getCashierNumber()).isEqualTo("#12");
+        assertThat(receipt.getManagerName()).isEqualTo("A. Cruz");
+        assertThat(receipt.getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getQuantity, ReceiptItem::getPrice)
+                .containsExactly(
+                        tuple("Chickenjoy", 2, Money.ofMinor(19800)),
+                        tuple("Sundae", 1, Money.ofMinor(4500)));
+        assertThat(receipt.getItems()).allSatisfy(item -> assertThat(item.getReceipt()).isSameAs(receipt));
+
+        assertThat(cached).isNotSameAs(receipt);
+        assertThat(cached.getItems()).hasSize(2);
+        verify(textractClient, times(1)).analyzeExpense(any(AnalyzeExpenseRequest.class));
+        assertThat(meterRegistry.counter("receipt.extraction.aws.cost", "engine", "analyze-expense").count() - costBefore)
+                .isEqualTo(0.01);
+    }
+
+    @Test
+    void amountsHoldingMoreThanOneNumberAreNotReadAsOneAmount() {
+        when(textractClient.analyzeExpense(any(AnalyzeExpenseRequest.class))).thenReturn(AnalyzeExpenseResponse.builder()
+                .documentMetadata(DocumentMetadata.builder().pages(1).build())
+                .expenseDocuments(ExpenseDocument.builder()
+                        .summaryFields(
+                                field("VENDOR_NAME", null, "Corner Cafe"),
+                                field("SUBTOTAL", "Sub Total", "2 @ 3.00"),
+                                field("TOTAL", "Total", "USD 6.00"),
+                                field("AMOUNT_PAID", "Cash", "10.00 / 20.00"),
+                                field("OTHER", "Change", "-4.00"))
+                        .lineItemGroups(LineItemGroup.builder()
+                                .lineItems(
+                                        item(field("ITEM", null, "Bagel"), field("QUANTITY", null, "2"),
+                                                field("PRICE", null, "2 @ 3.00"), field("UNIT_PRICE", null, "3.00")),
+                                        item(field("ITEM", null, "Espresso"), field("PRICE", null, "$1,204.5")))
+                                .build())
+                        .build())
+                .build());
+
+        Receipt receipt = analyzeExpenseExtractionEngine.extract(
+                ByteBuffer.wrap(("expense-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8))).get(0);
+
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(600));
+        assertThat(receipt.getCash()).isEqualTo(Money.ZERO);
+        assertThat(receipt.getChangeAmount()).isEqualTo(Money.ofMinor(-400));
+        assertThat(receipt.getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getQuantity, ReceiptItem::getPrice)
+                .containsExactly(
+                        tuple("Bagel", 2, Money.ofMinor(600)),
+                        tuple("Espresso", 1, Money.ofMinor(120450)));
+    }
+
+    private static ExpenseField field(String type, String label, String value) {
+        return ExpenseField.builder()
+                .type(ExpenseType.builder().text(type).build())
+                .labelDetection(label == null ? null : ExpenseDetection.builder().text(label).build())
+                .valueDetection(ExpenseDetection.builder().text(value).build())
+                .build();
+    }
+
+    private static LineItemFields item(ExpenseField... fields) {
+        return LineItemFields.builder().lineItemExpenseFields(fields).build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.srllc.aws_textract.domain.extraction;
+
+import com.srllc.aws_textract.domain.aws.AwsCallGuard;
+import com.srllc.aws_textract.domain.aws.AwsConcurrencyLimiter;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.record.DocumentPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.DocumentMetadata;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionResponse;
+import software.amazon.awssdk.services.textract.model.JobStatus;
+import software.amazon.awssdk.services.textract.model.StartDocumentTextDetectionRequest;
+import software.amazon.awssdk.services.textract.model.StartDocumentTextDetectionResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the staged-document flow against in-memory S3 and Textract stand-ins. The "document"
+ * is plain text: pages are separated by form feeds and lines by newlines.
+ */
+class DocumentTextJobDetectorTest {
+
+    private final LocalS3 s3 = new LocalS3();
+    private final LocalTextract textract = new LocalTextract(s3, 2);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void stagesPollsAndStreamsPagesInOrder() {
+        DocumentTextJobDetector detector = detector("staging-bucket");
+        String document = "Store A\nItem 1\n\fStore B\nItem 2\nItem 3\n\fStore C\n";
+        List<DocumentPage> pages = new ArrayList<>();
+        List<Integer> resultCallsWhenEmitted = new ArrayList<>();
+
+        int pageCount = detector.detectPages(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)), "scan.pdf",
+                page -> {
+                    pages.add(page);
+                    resultCallsWhenEmitted.add(textract.resultCalls);
+                });
+
+        assertThat(pageCount).isEqualTo(3);
+        assertThat(pages).extracting(DocumentPage::pageNumber).containsExactly(1, 2, 3);
+        assertThat(pages.get(1).text().lines()).containsExactly("Store B", "Item 2", "Item 3");
+        assertThat(textract.statusPolls).isEqualTo(3);
+        assertThat(resultCallsWhenEmitted.get(0)).isLessThan(textract.resultCalls);
+        assertThat(textract.stagedKey).startsWith("textract-staging/").endsWith(".pdf");
+        assertThat(s3.objects).isEmpty();
+        assertThat(meterRegistry.counter("receipt.extraction.aws.pages", "engine", "detect-text").count()).isEqualTo(3);
+    }
+
+    @Test
+    void failedJobsAreReportedAndStillUnstaged() {
+        textract.failJobs = true;
+        DocumentTextJobDetector detector = detector("staging-bucket");
+
+        assertThatThrownBy(() -> detector.detectPages(ByteBuffer.wrap("x".getBytes(StandardCharsets.UTF_8)),
+                "scan.pdf", page -> { }))
+                .isInstanceOf(TextractException.class)
+                .hasMessageContaining("UNSUPPORTED_DOCUMENT");
+        assertThat(s3.objects).isEmpty();
+    }
+
+    @Test
+    void requiresAStagingBucket() {
+        assertThatThrownBy(() -> detector("").detectPages(ByteBuffer.allocate(1), "scan.pdf", page -> { }))
+                .isInstanceOf(TextractException.class)
+                .hasMessageContaining("aws.s3.staging-bucket");
+    }
+
+    private DocumentTextJobDetector detector(String bucket) {
+        AwsConcurrencyLimiter limiter = new AwsConcurrencyLimiter(4, 4, 1000, meterRegistry);
+        AwsCallGuard guard = new AwsCallGuard(limiter, new MockEnvironment(), meterRegistry,
+                3, 1, 5, 1000, 1000, 5, 1000);
+        ExtractionMetrics metrics = new ExtractionMetrics(meterRegistry);
+        return new DocumentTextJobDetector(textract, s3, guard, metrics, bucket, "textract-staging/",
+                1, 5, Duration.ofSeconds(5), 3);
+    }
+
+    private static final class LocalS3 implements S3Client {
+
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                objects.put(request.bucket() + "/" + request.key(), in.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            objects.remove(request.bucket() + "/" + request.key());
+            return DeleteObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class LocalTextract implements TextractClient {
+
+        private final LocalS3 s3;
+        private final int pollsBeforeDone;
+        private List<Block> blocks;
+        private String stagedKey;
+        private boolean failJobs;
+        private int statusPolls;
+        private int resultCalls;
+
+        private LocalTextract(LocalS3 s3, int pollsBeforeDone) {
+            this.s3 = s3;
+            this.pollsBeforeDone = pollsBeforeDone;
+        }
+
+        @Override
+        public StartDocumentTextDetectionResponse startDocumentTextDetection(StartDocumentTextDetectionRequest request) {
+            var location = request.documentLocation().s3Object();
+            stagedKey = location.name();
+            byte[] document = s3.objects.get(location.bucket() + "/" + location.name());
+            blocks = toBlocks(new String(document, StandardCharsets.UTF_8));
+            return StartDocumentTextDetectionResponse.builder().jobId("job-1").build();
+        }
+
+        @Override
+        public GetDocumentTextDetectionResponse getDocumentTextDetection(GetDocumentTextDetectionRequest request) {
+            if (request.nextToken() == null && statusPolls++ < pollsBeforeDone) {
+                return GetDocumentTextDetectionResponse.builder().jobStatus(JobStatus.IN_PROGRESS).build();
+            }
+            if (failJobs) {
+                return GetDocumentTextDetectionResponse.builder()
+                        .jobStatus(JobStatus.FAILED)
+                        .statusMessage("UNSUPPORTED_DOCUMENT")
+                        .build();
+            }
+            resultCalls++;
+            int from = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+            int to = Math.min(blocks.size(), from + request.maxResults());
+            return GetDocumentTextDetectionResponse.builder()
+                    .jobStatus(JobStatus.SUCCEEDED)
+                    .documentMetadata(DocumentMetadata.builder()
+                            .pages((int) blocks.stream().filter(b -> b.blockType() == BlockType.PAGE).count())
+                            .build())
+                    .blocks(blocks.subList(from, to))
+                    .nextToken(to < blocks.size() ? String.valueOf(to) : null)
+                    .build();
+        }
+
+        private static List<Block> toBlocks(String document) {
+            List<Block> blocks = new ArrayList<>();
+            String[] pages = document.split("\f");
+            for (int page = 1; page <= pages.length; page++) {
+                blocks.add(Block.builder().blockType(BlockType.PAGE).page(page).build());
+                for (String line : pages[page - 1].split("\n")) {
+                    if (!line.isEmpty()) {
+                        blocks.add(Block.builder().blockType(BlockType.LINE).text(line).page(page).build());
+                    }
+                }
+            }
+            return blocks;
+        }
+
+        @Override
+        public String serviceName() {
+            return "textract";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
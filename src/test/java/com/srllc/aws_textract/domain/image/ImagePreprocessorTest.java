@@ -0,0 +1,94 @@
+package com.srllc.aws_textract.domain.image;
+
+import com.srllc.aws_textract.domain.aws.AwsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImagePreprocessorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(meterRegistry, true, 0, 1_000_000, true, 0.85f);
+
+    @Test
+    void rotatesScalesAndGrayscalesLargePhotos() throws IOException {
+        // 3000x2000 photo stored sideways (EXIF orientation 6) with a dark block in its top-left corner
+        byte[] photo = withExifOrientation(jpeg(3000, 2000), 6);
+
+        ByteBuffer prepared = preprocessor.prepare(AwsService.TEXTRACT, ByteBuffer.wrap(photo));
+
+        assertThat(prepared.remaining()).isLessThan(photo.length);
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(prepared.array(), 0, prepared.remaining()));
+        assertThat(result.getHeight()).isGreaterThan(result.getWidth());
+        assertThat((long) result.getWidth() * result.getHeight()).isLessThanOrEqualTo(1_000_000);
+        assertThat(result.getColorModel().getNumColorComponents()).isEqualTo(1);
+        // Turning the photo upright moves the stored top-left corner to the top-right
+        assertThat(brightness(result, result.getWidth() - 20, 20)).isLessThan(80);
+        assertThat(brightness(result, 20, 20)).isGreaterThan(120);
+        assertThat(meterRegistry.find("image.preprocess.bytes.saved").tag("service", "textract").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void passesThroughWhatItCannotDecode() {
+        ByteBuffer pdf = ByteBuffer.wrap("%PDF-1.7 not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(preprocessor.prepare(AwsService.REKOGNITION, pdf)).isSameAs(pdf);
+        assertThat(meterRegistry.counter("image.preprocess.skipped", "service", "rekognition", "reason", "unsupported")
+                .count()).isEqualTo(1);
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int shade = 180 + random.nextInt(60);
+                image.setRGB(x, y, new Color(shade, shade - 20, shade - 40).getRGB());
+            }
+        }
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, 400, 400);
+        graphics.dispose();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Inserts a minimal big-endian EXIF APP1 segment holding only the orientation tag after SOI.
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+        byte[] result = new byte[jpeg.length + app1.length];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(app1, 0, result, 2, app1.length);
+        System.arraycopy(jpeg, 2, result, 2 + app1.length, jpeg.length - 2);
+        return result;
+    }
+
+    private static int brightness(BufferedImage image, int x, int y) {
+        return image.getRaster().getSample(x, y, 0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.srllc.aws_textract.domain.parser;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LayoutAwareReceiptParserTest {
+
+    private static final float LINE_HEIGHT = 0.012f;
+
+    private final LayoutAwareReceiptParser layoutParser = new LayoutAwareReceiptParser(new SinglePassReceiptParser());
+
+    @BeforeAll
+    static void quietLegacyParser() {
+        ((Logger) LoggerFactory.getLogger(LineSequenceReceiptParser.class)).setLevel(Level.WARN);
+    }
+
+    @Test
+    void readsItemsFromRowsOfAWideReceiptReturnedColumnByColumn() {
+        // Textract read the item columns top to bottom one after another, as it does on wide receipts
+        List<LayoutLine> layout = new ArrayList<>(List.of(
+                line("Harbor View Grill", 0.30f, 0.05f),
+                line("Makati City Outlet", 0.30f, 0.07f),
+                line("Cashier: #3", 0.05f, 0.10f),
+                line("Manager: A. Cruz", 0.55f, 0.10f),
+                line("Name", 0.05f, 0.15f), line("Qty", 0.60f, 0.15f), line("Price", 0.80f, 0.15f),
+                line("Grilled Chicken Plate", 0.05f, 0.18f),
+                line("Iced Tea", 0.05f, 0.201f),
+                line("Caesar Salad", 0.05f, 0.22f),
+                line("1", 0.60f, 0.181f),
+                line("2", 0.60f, 0.199f),
+                line("1", 0.60f, 0.221f),
+                line("$12.50", 0.80f, 0.179f),
+                line("$5.00", 0.80f, 0.20f),
+                line("$8.75", 0.80f, 0.222f),
+                line("Sub Total", 0.05f, 0.26f), line("$26.25", 0.80f, 0.26f),
+                line("Cash", 0.05f, 0.28f), line("$30.00", 0.80f, 0.28f),
+                line("Change", 0.05f, 0.30f), line("$3.75", 0.80f, 0.30f)));
+        ExtractTextResponse extractedText = new ExtractTextResponse(
+                layout.stream().map(LayoutLine::text).toList(), layout);
+
+        Receipt receipt = layoutParser.parse(extractedText);
+
+        assertThat(receipt.getCompanyName()).isEqualTo("Harbor View Grill");
+        assertThat(receipt.getBranch()).isEqualTo("Makati City Outlet");
+        assertThat(receipt.getCashierNumber()).isEqualTo("#3");
+        assertThat(receipt.getManagerName()).isEqualTo("A. Cruz");
+        assertThat(receipt.getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getQuantity, ReceiptItem::getPrice)
+                .containsExactly(
+                        tuple("Grilled Chicken Plate", 1, Money.ofMinor(1250)),
+                        tuple("Iced Tea", 2, Money.ofMinor(500)),
+                        tuple("Caesar Salad", 1, Money.ofMinor(875)));
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(2625));
+        assertThat(receipt.getCash()).isEqualTo(Money.ofMinor(3000));
+        assertThat(receipt.getChangeAmount()).isEqualTo(Money.ofMinor(375));
+
+        // reading order alone pairs the wrong values
+        Receipt byLineOrder = new LineSequenceReceiptParser().parse(extractedText.lines());
+        assertThat(byLineOrder.getItems()).extracting(ReceiptItem::getPrice).doesNotContain(Money.ofMinor(875));
+    }
+
+    @Test
+    void readsItemsWhenTextractMergesARowIntoOneLine() {
+        List<LayoutLine> layout = List.of(
+                line("Wellness Drugstore", 0.3f, 0.05f),
+                line("Qty Name Price", 0.05f, 0.10f),
+                line("2 Cotton Buds $1.98", 0.05f, 0.12f),
+                line("Vitamin C 1000mg", 0.05f, 0.14f),
+                line("$8.95", 0.80f, 0.14f),
+                line("Sub Total: $10.93", 0.05f, 0.17f));
+
+        Receipt receipt = layoutParser.parse(new ExtractTextResponse(
+                layout.stream().map(LayoutLine::text).toList(), layout));
+
+        assertThat(receipt.getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getQuantity, ReceiptItem::getPrice)
+                .containsExactly(
+                        tuple("Cotton Buds", 2, Money.ofMinor(198)),
+                        tuple("Vitamin C 1000mg", 1, Money.ofMinor(895)));
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(1093));
+    }
+
+    @Test
+    void labelsFollowedByAnEmptyCellKeepTheirDefaults() {
+        List<LayoutLine> layout = List.of(
+                line("Corner Bakery", 0.3f, 0.05f),
+                line("Cashier:", 0.05f, 0.10f), line(null, 0.30f, 0.10f),
+                line("Manager:", 0.55f, 0.10f), line("   ", 0.80f, 0.10f),
+                line("Name", 0.05f, 0.15f), line("Price", 0.80f, 0.15f),
+                line("Bread", 0.05f, 0.18f), line("$3.00", 0.80f, 0.18f));
+
+        Receipt receipt = layoutParser.parse(new ExtractTextResponse(
+                layout.stream().map(LayoutLine::text).toList(), layout));
+
+        assertThat(receipt.getCashierNumber()).isEqualTo("N/A");
+        assertThat(receipt.getManagerName()).isEqualTo("N/A");
+        assertThat(receipt.getItems()).extracting(ReceiptItem::getProductName).containsExactly("Bread");
+    }
+
+    @Test
+    void fallsBackToSinglePassParserWithoutGeometry() {
+        List<String> lines = List.of("Shop", "Name", "Milk", "1", "$2.00", "Sub Total", "$2.00");
+
+        Receipt receipt = layoutParser.parse(new ExtractTextResponse(lines));
+
+        assertThat(receipt.getItems()).extracting(ReceiptItem::getProductName).containsExactly("Milk");
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(200));
+    }
+
+    private static LayoutLine line(String text, float left, float top) {
+        return new LayoutLine(text, 1, left, top, 0.1f, LINE_HEIGHT);
+    }
+}
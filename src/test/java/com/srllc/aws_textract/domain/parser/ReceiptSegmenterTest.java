@@ -0,0 +1,124 @@
+package com.srllc.aws_textract.domain.parser;
+
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import com.srllc.aws_textract.domain.record.LayoutLine;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ReceiptSegmenterTest {
+
+    private static final float LINE_HEIGHT = 0.012f;
+
+    private final ReceiptSegmenter segmenter = new ReceiptSegmenter(true, 0.04f, 3.0f);
+    private final LayoutAwareReceiptParser parser = new LayoutAwareReceiptParser(new SinglePassReceiptParser());
+
+    @Test
+    void splitsASheetWithReceiptsSideBySideAndStacked() {
+        List<LayoutLine> layout = new ArrayList<>();
+        // left column: two receipts one above the other, right column: one receipt
+        layout.addAll(receipt("Harbor View Grill", "Iced Tea", "$5.00", 0.02f, 0.05f));
+        layout.addAll(receipt("Corner Bakery", "Pandesal", "$2.50", 0.02f, 0.50f));
+        layout.addAll(receipt("Wellness Drugstore", "Cotton Buds", "$1.98", 0.55f, 0.10f));
+
+        List<ExtractTextResponse> segments = segmenter.split(text(layout));
+
+        assertThat(segments).hasSize(3);
+        assertThat(segments.stream().map(parser::parse))
+                .extracting(Receipt::getCompanyName, Receipt::getSubTotal)
+                .containsExactly(
+                        tuple("Harbor View Grill", Money.ofMinor(500)),
+                        tuple("Corner Bakery", Money.ofMinor(250)),
+                        tuple("Wellness Drugstore", Money.ofMinor(198)));
+        assertThat(parser.parse(segments.get(2)).getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getPrice)
+                .containsExactly(tuple("Cotton Buds", Money.ofMinor(198)));
+    }
+
+    @Test
+    void keepsASingleReceiptWithAWideGapBeforeItsAmountsAndAFooter() {
+        List<LayoutLine> layout = new ArrayList<>(receipt("Harbor View Grill", "Iced Tea", "$5.00", 0.02f, 0.05f));
+        layout.add(line("Thank you, come again", 0.02f, 0.40f));
+        ExtractTextResponse text = text(layout);
+
+        assertThat(segmenter.split(text)).containsExactly(text);
+    }
+
+    @Test
+    void splitsReadingOrderTextAfterTheTotalsWhenAnotherReceiptFollows() {
+        List<String> lines = List.of(
+                "Harbor View Grill", "Name", "Qty", "Price", "Iced Tea", "1", "$5.00", "Sub Total", "$5.00",
+                "Cash", "$10.00", "Change", "$5.00",
+                "Corner Bakery", "Name", "Qty", "Price", "Pandesal", "2", "$2.50", "Sub Total", "$2.50");
+
+        List<ExtractTextResponse> segments = segmenter.split(new ExtractTextResponse(lines));
+
+        assertThat(segments).hasSize(2);
+        assertThat(segments.get(0).lines()).endsWith("Change", "$5.00");
+        assertThat(segments.get(1).lines()).startsWith("Corner Bakery");
+        assertThat(parser.parse(segments.get(1)).getItems())
+                .extracting(ReceiptItem::getProductName, ReceiptItem::getQuantity)
+                .containsExactly(tuple("Pandesal", 2));
+    }
+
+    @Test
+    void keepsASingleReceiptWithSubtotalAndOtherTotalLinesInOneSegment() {
+        List<LayoutLine> layout = List.of(
+                line("Fresh Market", 0.07f, 0.05f),
+                line("Name", 0.02f, 0.10f), line("Qty", 0.22f, 0.10f), line("Price", 0.32f, 0.10f),
+                line("Whole Milk", 0.02f, 0.12f), line("1", 0.22f, 0.12f), line("$3.98", 0.32f, 0.12f),
+                line("Subtotal", 0.02f, 0.14f), line("$3.98", 0.32f, 0.14f),
+                line("Total Qty", 0.02f, 0.20f), line("1", 0.22f, 0.20f),
+                line("Total Savings", 0.02f, 0.22f), line("$0.50", 0.32f, 0.22f),
+                line("Total", 0.02f, 0.28f), line("$3.48", 0.32f, 0.28f),
+                line("Cash", 0.02f, 0.30f), line("$5.00", 0.32f, 0.30f),
+                line("Change", 0.02f, 0.32f), line("$1.52", 0.32f, 0.32f));
+        ExtractTextResponse text = text(layout);
+
+        assertThat(segmenter.split(text)).containsExactly(text);
+    }
+
+    @Test
+    void keepsReadingOrderTextWithSubtotalAndOtherTotalLinesInOneSegment() {
+        ExtractTextResponse text = new ExtractTextResponse(List.of(
+                "Fresh Market", "Name", "Qty", "Price", "Whole Milk", "1", "$3.98", "Subtotal", "$3.98",
+                "Total Qty", "1", "Total Savings", "$0.50", "Total", "$3.48", "Cash", "$5.00", "Change", "$1.52",
+                "Thank you for shopping!"));
+
+        assertThat(segmenter.split(text)).containsExactly(text);
+    }
+
+    @Test
+    void leavesTextUnchangedWhenDisabled() {
+        List<LayoutLine> layout = new ArrayList<>(receipt("Harbor View Grill", "Iced Tea", "$5.00", 0.02f, 0.05f));
+        layout.addAll(receipt("Wellness Drugstore", "Cotton Buds", "$1.98", 0.55f, 0.10f));
+        ExtractTextResponse text = text(layout);
+
+        assertThat(new ReceiptSegmenter(false, 0.04f, 3.0f).split(text)).containsExactly(text);
+    }
+
+    private static List<LayoutLine> receipt(String company, String item, String price, float left, float top) {
+        return List.of(
+                line(company, left + 0.05f, top),
+                line("Name", left, top + 0.05f), line("Qty", left + 0.20f, top + 0.05f),
+                line("Price", left + 0.30f, top + 0.05f),
+                line(item, left, top + 0.07f), line("1", left + 0.20f, top + 0.07f),
+                line(price, left + 0.30f, top + 0.07f),
+                line("Sub Total", left, top + 0.10f), line(price, left + 0.30f, top + 0.10f));
+    }
+
+    private static ExtractTextResponse text(List<LayoutLine> layout) {
+        return new ExtractTextResponse(layout.stream().map(LayoutLine::text).toList(), layout);
+    }
+
+    private static LayoutLine line(String text, float left, float top) {
+        return new LayoutLine(text, 1, left, top, 0.08f, LINE_HEIGHT);
+    }
+}
@@ -0,0 +1,90 @@
+package com.srllc.aws_textract.domain.parser;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single-pass engine must produce exactly what the original line-sequence heuristics produce.
+ */
+class SinglePassReceiptParserTest {
+
+    private static final String[] VOCABULARY = {
+            "Name", "QTY", " Price ", "quantity", "Sub Total", "subtotal", "SUB \t TOTAL", "Sub Total:", "Total",
+            "Grand total", "Cash", "cash ", "CASH", "CHANGE", "Change", "Cashier:", "cashier", " Manager: ",
+            "Manager", "Cashier: 7", "#12", "12", "3", "123", "1234", "007", "0", "$4.50", "$ 4.50", "4.5",
+            "12.345", "abc 3.99 x", "x1.00y2.00", "$", "----", "==", "***", "_-=*", "", "  ", "Main City Branch",
+            "Index City", "Store 5", "Outlet Mall", "Location: Pier", "Milk", "Bread 2pc", "  Eggs  ", "Rice 5kg",
+            "Coffee 1.5L", "Thank you!", "Maria Santos", "VAT 12%"
+    };
+
+    private final LineSequenceReceiptParser lineSequenceParser = new LineSequenceReceiptParser();
+    private final SinglePassReceiptParser singlePassParser = new SinglePassReceiptParser();
+
+    @BeforeAll
+    static void quietLegacyParser() {
+        ((Logger) LoggerFactory.getLogger(LineSequenceReceiptParser.class)).setLevel(Level.WARN);
+    }
+
+    @Test
+    void parsesTypicalReceiptLikeTheLineSequenceParser() {
+        List<String> lines = List.of(
+                "Fresh Market Grocers", "Cebu City Branch", "Manager:", "Maria Santos", "Cashier:", "#014",
+                "Name", "Qty", "Price",
+                "Whole Milk 1L", "2", "$3.98",
+                "Brown Eggs 12pc", "1", "$4.25",
+                "Sourdough Loaf", "1", "$5.50",
+                "Sub Total", "$13.73", "Cash", "$20.00", "Change", "$6.27");
+
+        Receipt receipt = singlePassParser.parse(lines);
+
+        assertThat(receipt.getCompanyName()).isEqualTo("Fresh Market Grocers");
+        assertThat(receipt.getBranch()).isEqualTo("Cebu City Branch");
+        assertThat(receipt.getManagerName()).isEqualTo("Maria Santos");
+        assertThat(receipt.getCashierNumber()).isEqualTo("#014");
+        assertThat(receipt.getItems()).extracting(ReceiptItem::getProductName)
+                .containsExactly("Whole Milk 1L", "Brown Eggs 12pc", "Sourdough Loaf");
+        assertThat(receipt.getSubTotal()).isEqualTo(Money.ofMinor(1373));
+        assertThat(receipt.getChangeAmount()).isEqualTo(Money.ofMinor(627));
+        assertSameReceipt(lines);
+    }
+
+    @Test
+    void matchesLineSequenceParserOnRandomLineLists() {
+        Random random = new Random(42);
+        for (int round = 0; round < 5_000; round++) {
+            int size = random.nextInt(40);
+            List<String> lines = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                lines.add(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+            assertSameReceipt(lines);
+        }
+    }
+
+    private void assertSameReceipt(List<String> lines) {
+        Receipt expected = lineSequenceParser.parse(lines);
+        Receipt actual = singlePassParser.parse(lines);
+
+        assertThat(actual)
+                .as("receipt for %s", lines)
+                .usingRecursiveComparison()
+                .ignoringFields("items")
+                .isEqualTo(expected);
+        assertThat(actual.getItems())
+                .as("items for %s", lines)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("receipt")
+                .isEqualTo(expected.getItems());
+    }
+}
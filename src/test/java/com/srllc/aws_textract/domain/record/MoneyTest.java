@@ -0,0 +1,36 @@
+package com.srllc.aws_textract.domain.record;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyTest {
+
+    @Test
+    void parsesAmountsInPlaceIntoMinorUnits() {
+        String line = "Total $1234.56 due";
+
+        assertThat(Money.parseMinorUnits(line, 7, 14)).isEqualTo(123456);
+        assertThat(Money.parseMinorUnits("0.1", 0, 3)).isEqualTo(10);
+        assertThat(Money.parseMinorUnits("7", 0, 1)).isEqualTo(700);
+        assertThat(Money.parseMinorUnits("9.999", 0, 5)).isEqualTo(999);
+        assertThat(Money.parseMinorUnits("12.3.4", 0, 6)).isEqualTo(Money.NOT_AN_AMOUNT);
+        assertThat(Money.parseMinorUnits(".", 0, 1)).isEqualTo(Money.NOT_AN_AMOUNT);
+        assertThat(Money.parseMinorUnits("12345678901234567.00", 0, 20)).isEqualTo(Money.NOT_AN_AMOUNT);
+    }
+
+    @Test
+    void formatsAndSerializesWithoutLosingCents() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Money amount = Money.ofMinor(10).plus(Money.ofMinor(20));
+
+        assertThat(amount.toBigDecimal()).isEqualTo(new BigDecimal("0.30"));
+        assertThat(Money.toPlainString(-1205)).isEqualTo("-12.05");
+        assertThat(Money.toPlainString(Long.MIN_VALUE)).isEqualTo("-92233720368547758.08");
+        assertThat(objectMapper.writeValueAsString(amount)).isEqualTo("0.30");
+        assertThat(objectMapper.readValue("19.995", Money.class)).isEqualTo(Money.ofMinor(2000));
+    }
+}
@@ -0,0 +1,119 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.CachedAnalysisResultDAO;
+import com.srllc.aws_textract.domain.record.AnalysisCacheKey;
+import com.srllc.aws_textract.domain.record.ExtractTextResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AnalysisCacheServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private AnalysisCacheServiceImpl analysisCacheService;
+
+    @Autowired
+    private CachedAnalysisResultDAO cachedAnalysisResultDAO;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void identicalContentAndParametersHitTheCache() {
+        byte[] content = "receipt-1".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            ExtractTextResponse response = analysisCacheService.getOrLoad(
+                    AnalysisCacheKey.of(content, "test.hit"), ExtractTextResponse.class,
+                    () -> new ExtractTextResponse(List.of("line " + calls.incrementAndGet())));
+            assertThat(response.lines()).containsExactly("line 1");
+        }
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.counter("analysis.cache.lookups", "operation", "test.hit", "result", "memory_hit").count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.counter("analysis.cache.lookups", "operation", "test.hit", "result", "miss").count())
+                .isEqualTo(1);
+        assertThat(cachedAnalysisResultDAO.existsById(AnalysisCacheKey.of(content, "test.hit").asString())).isTrue();
+    }
+
+    @Test
+    void differentParametersAreCachedSeparately() {
+        byte[] content = "image-1".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger calls = new AtomicInteger();
+
+        analysisCacheService.getOrLoad(AnalysisCacheKey.of(content, "test.params", 70.0f), ExtractTextResponse.class,
+                () -> new ExtractTextResponse(List.of(String.valueOf(calls.incrementAndGet()))));
+        analysisCacheService.getOrLoad(AnalysisCacheKey.of(content, "test.params", 90.0f), ExtractTextResponse.class,
+                () -> new ExtractTextResponse(List.of(String.valueOf(calls.incrementAndGet()))));
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void concurrentIdenticalLoadsShareOneCall() throws Exception {
+        byte[] content = "retried-upload".getBytes(StandardCharsets.UTF_8);
+        AnalysisCacheKey key = AnalysisCacheKey.of(content, "test.coalesce");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int requests = 8;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ExtractTextResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(() -> analysisCacheService.getOrLoad(key, ExtractTextResponse.class,
+                        () -> {
+                            calls.incrementAndGet();
+                            await(release);
+                            return new ExtractTextResponse(List.of("line"));
+                        })));
+            }
+            Counter coalesced = meterRegistry.counter("analysis.cache.lookups",
+                    "operation", "test.coalesce", "result", "coalesced");
+            while (coalesced.count() < requests - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<ExtractTextResponse> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).lines()).containsExactly("line");
+            }
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.counter("analysis.cache.lookups", "operation", "test.coalesce", "result", "miss")
+                .count()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.CashierThroughputDTO;
+import com.srllc.aws_textract.domain.dto.ProductRanking;
+import com.srllc.aws_textract.domain.dto.ProductSalesDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsGrouping;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReceiptAnalyticsServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private ReceiptAnalyticsServiceImpl receiptAnalyticsService;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aggregatesReceiptsSavedInTheWindowInTheDatabase() {
+        Instant from = Instant.now().minus(1, ChronoUnit.SECONDS);
+        receiptDAO.saveAll(List.of(
+                receipt("Analytics Mart", "North", "#1", item("Rice", 2, 500), item("Eggs", 1, 300)),
+                receipt("Analytics Mart", "South", "#1", item("Rice", 1, 250)),
+                receipt("Analytics Mart", "South", "#2", item("Saffron", 1, 2000))));
+        Instant to = Instant.now().plus(1, ChronoUnit.MINUTES);
+
+        List<ReceiptTotalsDTO> byCompany = receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.COMPANY, from, to);
+        assertThat(byCompany)
+                .extracting(ReceiptTotalsDTO::getCompanyName, ReceiptTotalsDTO::getCurrency,
+                        ReceiptTotalsDTO::getReceiptCount, ReceiptTotalsDTO::getSubTotal)
+                .containsExactly(tuple("Analytics Mart", "USD", 3L, new BigDecimal("30.50")));
+        assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.BRANCH, from, to))
+                .extracting(ReceiptTotalsDTO::getBranch, ReceiptTotalsDTO::getSubTotal)
+                .containsExactly(tuple("South", new BigDecimal("22.50")), tuple("North", new BigDecimal("8.00")));
+        assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.DAY, from, to))
+                .extracting(ReceiptTotalsDTO::getReceiptCount)
+                .containsExactly(3L);
+        assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.COMPANY, to, null)).isEmpty();
+
+        assertThat(receiptAnalyticsService.getTopProducts(ProductRanking.QUANTITY, 2, from, to))
+                .extracting(ProductSalesDTO::getProductName, ProductSalesDTO::getQuantity, ProductSalesDTO::getRevenue)
+                .containsExactly(tuple("Rice", 3L, new BigDecimal("7.50")), tuple("Eggs", 1L, new BigDecimal("3.00")));
+        assertThat(receiptAnalyticsService.getTopProducts(ProductRanking.REVENUE, 1, from, to))
+                .extracting(ProductSalesDTO::getProductName)
+                .containsExactly("Saffron");
+
+        assertThat(receiptAnalyticsService.getCashierThroughput("Analytics Mart", from, to))
+                .extracting(CashierThroughputDTO::getCashierNumber, CashierThroughputDTO::getReceiptCount,
+                        CashierThroughputDTO::getItemQuantity, CashierThroughputDTO::getSubTotal)
+                .containsExactly(
+                        tuple("#1", 2L, 4L, new BigDecimal("10.50")),
+                        tuple("#2", 1L, 1L, new BigDecimal("20.00")));
+    }
+
+    @Test
+    void receiptsWithoutACreationTimeAreReportedWithNoDay() {
+        long legacyId = 990_101;
+        jdbcTemplate.update("INSERT INTO receipts (id, company_name, currency, sub_total_minor) "
+                + "VALUES (?, 'Legacy Mart', 'USD', 1250)", legacyId);
+        try {
+            assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.DAY, null, null))
+                    .filteredOn(totals -> totals.getDay() == null)
+                    .extracting(ReceiptTotalsDTO::getReceiptCount, ReceiptTotalsDTO::getSubTotal)
+                    .containsExactly(tuple(1L, new BigDecimal("12.50")));
+            assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.COMPANY, null, null))
+                    .extracting(ReceiptTotalsDTO::getCompanyName)
+                    .contains("Legacy Mart");
+        } finally {
+            jdbcTemplate.update("DELETE FROM receipts WHERE id = ?", legacyId);
+        }
+    }
+
+    private static Receipt receipt(String company, String branch, String cashier, ReceiptItem... items) {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName(company);
+        receipt.setBranch(branch);
+        receipt.setCashierNumber(cashier);
+        Money subTotal = Money.ZERO;
+        for (ReceiptItem item : items) {
+            receipt.addItem(item);
+            subTotal = subTotal.plus(item.getPrice());
+        }
+        receipt.setSubTotal(subTotal);
+        return receipt;
+    }
+
+    private static ReceiptItem item(String name, int quantity, long priceMinor) {
+        ReceiptItem item = new ReceiptItem();
+        item.setProductName(name);
+        item.setQuantity(quantity);
+        item.setPrice(Money.ofMinor(priceMinor));
+        return item;
+    }
+}
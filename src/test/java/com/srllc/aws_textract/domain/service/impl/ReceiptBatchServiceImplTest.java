@@ -0,0 +1,158 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptBatchItemStatus;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.extraction.ReceiptExtractionRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "receipt.batch.parallelism=2",
+        "receipt.batch.persist-size=2",
+        "receipt.batch.max-files=3"
+})
+class ReceiptBatchServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @MockitoBean
+    private ReceiptExtractionRouter receiptExtractionRouter;
+
+    @Autowired
+    private ReceiptBatchServiceImpl receiptBatchService;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    private final List<ReceiptBatchItemDTO> results = new ArrayList<>();
+
+    @AfterEach
+    void deleteSavedReceipts() {
+        receiptDAO.deleteAllById(results.stream().map(ReceiptBatchItemDTO::getReceiptId).filter(Objects::nonNull).toList());
+    }
+
+    @Test
+    void aFailingDocumentDoesNotStopTheOthers() throws IOException {
+        when(receiptExtractionRouter.extract(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            String content = StandardCharsets.UTF_8.decode(invocation.<ByteBuffer>getArgument(0)).toString();
+            if (content.equals("unreadable")) {
+                throw new IllegalArgumentException("No receipt text found");
+            }
+            return List.of(receipt(content));
+        });
+
+        receiptBatchService.processBatch(List.of(
+                image("first.jpg", "First Store"),
+                zip("more.zip", Map.of("bad.jpg", "unreadable", "second.jpg", "Second Store"))), results::add);
+
+        Map<String, ReceiptBatchItemDTO> byFile = byFileName();
+        assertThat(byFile).containsOnlyKeys("first.jpg", "more.zip/bad.jpg", "more.zip/second.jpg");
+        assertThat(byFile.get("first.jpg").getStatus()).isEqualTo(ReceiptBatchItemStatus.SAVED);
+        assertThat(byFile.get("more.zip/second.jpg").getCompanyName()).isEqualTo("Second Store");
+        assertThat(byFile.get("more.zip/bad.jpg").getStatus()).isEqualTo(ReceiptBatchItemStatus.FAILED);
+        assertThat(byFile.get("more.zip/bad.jpg").getErrorMessage()).isEqualTo("No receipt text found");
+        assertThat(receiptDAO.findAllById(List.of(byFile.get("first.jpg").getReceiptId(),
+                byFile.get("more.zip/second.jpg").getReceiptId()))).hasSize(2);
+    }
+
+    @Test
+    void aReceiptThatCannotBeSavedFailsOnlyItsOwnDocument() {
+        when(receiptExtractionRouter.extract(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            String content = StandardCharsets.UTF_8.decode(invocation.<ByteBuffer>getArgument(0)).toString();
+            Receipt receipt = receipt(content);
+            if (content.equals("Bad Currency Store")) {
+                receipt.setCurrency("DOLLARS");
+            }
+            return List.of(receipt);
+        });
+
+        receiptBatchService.processBatch(List.of(
+                image("good.jpg", "Good Store"),
+                image("bad.jpg", "Bad Currency Store")), results::add);
+
+        Map<String, ReceiptBatchItemDTO> byFile = byFileName();
+        assertThat(byFile).containsOnlyKeys("good.jpg", "bad.jpg");
+        assertThat(byFile.get("good.jpg").getStatus()).isEqualTo(ReceiptBatchItemStatus.SAVED);
+        assertThat(receiptDAO.findById(byFile.get("good.jpg").getReceiptId())).isPresent();
+        assertThat(byFile.get("bad.jpg").getStatus()).isEqualTo(ReceiptBatchItemStatus.FAILED);
+        assertThat(byFile.get("bad.jpg").getErrorMessage()).startsWith("Failed to save receipt");
+    }
+
+    @Test
+    void documentsOverTheLimitAreCountedWithoutBeingRead() throws IOException {
+        when(receiptExtractionRouter.extract(any(ByteBuffer.class)))
+                .thenAnswer(invocation -> List.of(receipt("Store")));
+
+        receiptBatchService.processBatch(List.of(
+                zip("first.zip", Map.of("a.jpg", "a", "b.jpg", "b")),
+                zip("second.zip", Map.of("c.jpg", "c", "d.jpg", "d", "__MACOSX/._d.jpg", "x")),
+                image("e.jpg", "e")), results::add);
+
+        verify(receiptExtractionRouter, times(3)).extract(any(ByteBuffer.class));
+        assertThat(results).filteredOn(result -> result.getStatus() == ReceiptBatchItemStatus.SAVED).hasSize(3);
+        ReceiptBatchItemDTO skipped = results.get(results.size() - 1);
+        assertThat(skipped.getStatus()).isEqualTo(ReceiptBatchItemStatus.SKIPPED);
+        assertThat(skipped.getSkippedCount()).isEqualTo(2);
+        assertThat(skipped.getErrorMessage()).isEqualTo("Batch limit of 3 files exceeded");
+        assertThat(results).hasSize(4);
+    }
+
+    private Map<String, ReceiptBatchItemDTO> byFileName() {
+        return results.stream().collect(Collectors.toMap(ReceiptBatchItemDTO::getFileName, Function.identity()));
+    }
+
+    private static Receipt receipt(String companyName) {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName(companyName);
+        return receipt;
+    }
+
+    private static MultipartFile image(String name, String content) {
+        return new MockMultipartFile("files", name, "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MultipartFile zip(String name, Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(entries).entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("files", name, "application/zip", bytes.toByteArray());
+    }
+}
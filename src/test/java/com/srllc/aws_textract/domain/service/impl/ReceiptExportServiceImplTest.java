@@ -0,0 +1,103 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptExportFormat;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReceiptExportServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private ReceiptExportServiceImpl receiptExportService;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsEachReceiptOnceWithItsItems() throws Exception {
+        Receipt withItems = receipt("Export, Inc.", "Milk", "Bread");
+        Receipt withoutItems = receipt("Export, Inc.");
+        receiptDAO.saveAll(List.of(withItems, withoutItems));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        receiptExportService.exportReceipts(ReceiptExportFormat.NDJSON, ndjson);
+
+        List<JsonNode> exported = ndjson.toString(StandardCharsets.UTF_8).lines()
+                .map(this::readTree)
+                .filter(node -> "Export, Inc.".equals(node.get("companyName").asText()))
+                .toList();
+        assertThat(exported).hasSize(2);
+        assertThat(exported.get(0).get("id").asLong()).isEqualTo(withItems.getId());
+        assertThat(exported.get(0).get("items")).extracting(item -> item.get("productName").asText())
+                .containsExactly("Milk", "Bread");
+        assertThat(exported.get(1).get("items")).isEmpty();
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        receiptExportService.exportReceipts(ReceiptExportFormat.CSV, csv);
+
+        List<String> rows = csv.toString(StandardCharsets.UTF_8).lines()
+                .filter(line -> line.contains("\"Export, Inc.\""))
+                .toList();
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).startsWith(withItems.getId() + ",\"Export, Inc.\",").contains(",Milk,2,1.5");
+        assertThat(rows.get(2)).startsWith(withoutItems.getId() + ",").endsWith(",,,,");
+    }
+
+    @Test
+    void everyNdjsonLineIsOneObjectWithNothingBeforeIt() throws Exception {
+        receiptDAO.saveAll(List.of(receipt("Line Store", "Tea"), receipt("Line Store"), receipt("Line Store", "Jam")));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        receiptExportService.exportReceipts(ReceiptExportFormat.NDJSON, ndjson);
+
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSizeGreaterThanOrEqualTo(3).allSatisfy(line -> assertThat(line).startsWith("{"));
+    }
+
+    private Receipt receipt(String companyName, String... productNames) {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName(companyName);
+        receipt.setSubTotal(Money.ofMinor(300).times(productNames.length));
+        for (String productName : productNames) {
+            ReceiptItem item = new ReceiptItem();
+            item.setProductName(productName);
+            item.setQuantity(2);
+            item.setPrice(Money.ofMinor(150));
+            receipt.addItem(item);
+        }
+        return receipt;
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptJobDAO;
+import com.srllc.aws_textract.domain.entity.ReceiptJob;
+import com.srllc.aws_textract.domain.entity.ReceiptJobStatus;
+import com.srllc.aws_textract.domain.exception.ErrorMetrics;
+import com.srllc.aws_textract.domain.service.TextractService;
+import com.srllc.aws_textract.domain.upload.UploadSpooler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "receipt.jobs.instance-id=instance-a",
+        "receipt.jobs.stale-after=PT1H",
+        "upload.spool.dir=${java.io.tmpdir}/receipt-job-test-uploads",
+        "upload.spool.mmap-threshold=16"
+})
+@AutoConfigureMockMvc
+class ReceiptJobServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @MockitoBean(name = "receiptJobExecutor")
+    private AsyncTaskExecutor receiptJobExecutor;
+
+    @Autowired
+    private ReceiptJobServiceImpl receiptJobService;
+
+    @Autowired
+    private ReceiptJobDAO receiptJobDAO;
+
+    @Autowired
+    private UploadSpooler uploadSpooler;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void startupSweepFailsOnlyThisInstancesJobsAndStaleJobsOfOthers() {
+        LocalDateTime now = LocalDateTime.now();
+        String own = save(ReceiptJobStatus.PROCESSING, "instance-a", now);
+        String ownDone = save(ReceiptJobStatus.COMPLETED, "instance-a", now);
+        String otherRunning = save(ReceiptJobStatus.PROCESSING, "instance-b", now.minusMinutes(5));
+        String otherQueued = save(ReceiptJobStatus.QUEUED, "instance-b", now);
+        String otherStale = save(ReceiptJobStatus.QUEUED, "instance-b", now.minusHours(2));
+        String legacyStale = save(ReceiptJobStatus.PROCESSING, null, now.minusHours(2));
+
+        receiptJobService.failInterruptedJobs();
+
+        assertThat(statusOf(own)).isEqualTo(ReceiptJobStatus.FAILED);
+        assertThat(statusOf(ownDone)).isEqualTo(ReceiptJobStatus.COMPLETED);
+        assertThat(statusOf(otherRunning)).isEqualTo(ReceiptJobStatus.PROCESSING);
+        assertThat(statusOf(otherQueued)).isEqualTo(ReceiptJobStatus.QUEUED);
+        assertThat(statusOf(otherStale)).isEqualTo(ReceiptJobStatus.FAILED);
+        assertThat(statusOf(legacyStale)).isEqualTo(ReceiptJobStatus.FAILED);
+    }
+
+    @Test
+    void submissionsBeyondTheQueueAreAnswered429WithoutAJobOrSpoolFile() throws Exception {
+        doThrow(new TaskRejectedException("queue full")).when(receiptJobExecutor).execute(any(Runnable.class));
+        long jobsBefore = receiptJobDAO.count();
+
+        mockMvc.perform(multipart("/api/v1/textract/receipts/jobs")
+                        .file(new MockMultipartFile("file", "full-queue.jpg", "image/jpeg", new byte[1024])))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status").value(429));
+
+        assertThat(receiptJobDAO.count()).isEqualTo(jobsBefore);
+        assertThat(spoolFiles()).isZero();
+    }
+
+    @Test
+    void acceptedJobsAreOwnedByThisInstanceAndRunOnTheJobExecutor() throws Exception {
+        doAnswer(invocation -> null).when(receiptJobExecutor).execute(any(Runnable.class));
+
+        mockMvc.perform(multipart("/api/v1/textract/receipts/jobs")
+                        .file(new MockMultipartFile("file", "queued.jpg", "image/jpeg", new byte[1024])))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        assertThat(receiptJobDAO.findAll()).filteredOn(job -> "queued.jpg".equals(job.getFileName()))
+                .singleElement()
+                .extracting(ReceiptJob::getOwner)
+                .isEqualTo("instance-a");
+        verify(receiptJobExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void uploadIsReleasedWhenSavingTheQueuedJobFails() throws Exception {
+        ReceiptJobDAO dao = mock(ReceiptJobDAO.class);
+        when(dao.save(any(ReceiptJob.class))).thenThrow(new DataAccessResourceFailureException("database down"));
+        AsyncTaskExecutor executor = mock(AsyncTaskExecutor.class);
+        ReceiptJobServiceImpl service = new ReceiptJobServiceImpl(dao, mock(TextractService.class), executor,
+                uploadSpooler, new ErrorMetrics(new SimpleMeterRegistry()));
+
+        assertThatThrownBy(() -> service.submitReceipt(
+                new MockMultipartFile("file", "db-down.jpg", "image/jpeg", new byte[1024])))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(executor, never()).execute(any(Runnable.class));
+        assertThat(spoolFiles()).isZero();
+    }
+
+    @Test
+    void uploadIsReleasedWhenMarkingTheJobProcessingFails() throws Exception {
+        ReceiptJobDAO dao = mock(ReceiptJobDAO.class);
+        when(dao.save(any(ReceiptJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(dao.findById(anyString())).thenThrow(new DataAccessResourceFailureException("database down"));
+        AsyncTaskExecutor executor = mock(AsyncTaskExecutor.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        TextractService textractService = mock(TextractService.class);
+        ReceiptJobServiceImpl service = new ReceiptJobServiceImpl(dao, textractService, executor,
+                uploadSpooler, new ErrorMetrics(new SimpleMeterRegistry()));
+
+        assertThatThrownBy(() -> service.submitReceipt(
+                new MockMultipartFile("file", "db-down.jpg", "image/jpeg", new byte[1024])))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(textractService, never()).processAndSaveReceipts(any(), any());
+        assertThat(spoolFiles()).isZero();
+    }
+
+    private String save(ReceiptJobStatus status, String owner, LocalDateTime updatedAt) {
+        ReceiptJob job = new ReceiptJob(UUID.randomUUID().toString(), status, "sweep.jpg", owner,
+                null, new ArrayList<>(), null, updatedAt, updatedAt);
+        return receiptJobDAO.save(job).getId();
+    }
+
+    private ReceiptJobStatus statusOf(String jobId) {
+        return receiptJobDAO.findById(jobId).map(ReceiptJob::getStatus).orElseThrow();
+    }
+
+    private long spoolFiles() throws IOException {
+        Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "receipt-job-test-uploads");
+        try (var files = Files.list(spoolDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("upload-")).count();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptRollupDAO;
+import com.srllc.aws_textract.domain.dao.ReceiptRollupStateDAO;
+import com.srllc.aws_textract.domain.dto.ProductRanking;
+import com.srllc.aws_textract.domain.dto.ProductSalesDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptTotalsGrouping;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.entity.ReceiptRollup;
+import com.srllc.aws_textract.domain.entity.ReceiptRollupState;
+import com.srllc.aws_textract.domain.entity.RollupGranularity;
+import com.srllc.aws_textract.domain.record.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReceiptRollupServiceImplTest {
+
+    private static final String COMPANY = "Rollup Mart";
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private ReceiptRollupServiceImpl receiptRollupService;
+
+    @Autowired
+    private ReceiptAnalyticsServiceImpl receiptAnalyticsService;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    @Autowired
+    private ReceiptRollupDAO receiptRollupDAO;
+
+    @Autowired
+    private ReceiptRollupStateDAO receiptRollupStateDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rollsUpEnqueuedReceiptsOnceAndRebuildsToTheSameTotals() {
+        Instant from = RollupGranularity.DAY.bucketStart(Instant.now());
+        List<Receipt> saved = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Receipt> receipts = receiptDAO.saveAllAndFlush(List.of(
+                    receipt("North", item("Rollup Tea", 2, 400)),
+                    receipt("North", item("Rollup Tea", 1, 200), item("Rollup Milk", 1, 150))));
+            receiptRollupService.enqueue(receipts);
+            return receipts;
+        });
+        Instant to = RollupGranularity.DAY.bucketStart(Instant.now()).plus(1, ChronoUnit.DAYS);
+
+        try {
+            receiptRollupService.drainOutbox();
+            assertThat(receiptRollupService.granularityFor(from, to)).contains(RollupGranularity.DAY);
+            assertRolledUp(from, to);
+            assertThat(receiptRollupDAO.findAll().stream()
+                    .filter(row -> row.getCompanyName().equals(COMPANY) && row.getGranularity() == RollupGranularity.HOUR)
+                    .mapToLong(ReceiptRollup::getReceiptCount)
+                    .sum()).isEqualTo(2);
+
+            // Drained receipts are no longer in the outbox, so the rebuild counts each of them once
+            receiptRollupService.rebuild();
+            receiptRollupService.drainOutbox();
+            assertRolledUp(from, to);
+        } finally {
+            // Other tests aggregate every receipt saved in their window
+            receiptDAO.deleteAll(saved);
+        }
+    }
+
+    @Test
+    void rollupsAreReadOnlyOnceARebuildHasCompletedThem() {
+        Instant from = RollupGranularity.DAY.bucketStart(Instant.now());
+        Instant to = from.plus(1, ChronoUnit.DAYS);
+        // Saved without an outbox row, like receipts stored before the outbox existed
+        Receipt legacy = receiptDAO.save(receipt("Legacy", item("Rollup Bread", 1, 300)));
+        try {
+            receiptRollupStateDAO.deleteAll();
+            receiptRollupService.checkRollupsComplete();
+            assertThat(receiptRollupService.granularityFor(from, to)).isEmpty();
+            receiptRollupService.drainOutbox();
+            assertThat(receiptRollupService.granularityFor(from, to)).isEmpty();
+
+            receiptRollupService.rebuild();
+            assertThat(receiptRollupStateDAO.existsById(ReceiptRollupState.COMPLETE)).isTrue();
+            receiptRollupService.drainOutbox();
+            assertThat(receiptRollupService.granularityFor(from, to)).contains(RollupGranularity.DAY);
+            assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.BRANCH, from, to))
+                    .extracting(ReceiptTotalsDTO::getCompanyName, ReceiptTotalsDTO::getBranch,
+                            ReceiptTotalsDTO::getReceiptCount)
+                    .contains(tuple(COMPANY, "Legacy", 1L));
+        } finally {
+            receiptDAO.delete(legacy);
+        }
+    }
+
+    private void assertRolledUp(Instant from, Instant to) {
+        assertThat(receiptAnalyticsService.getTotals(ReceiptTotalsGrouping.BRANCH, from, to))
+                .extracting(ReceiptTotalsDTO::getCompanyName, ReceiptTotalsDTO::getBranch,
+                        ReceiptTotalsDTO::getReceiptCount, ReceiptTotalsDTO::getSubTotal)
+                .contains(tuple(COMPANY, "North", 2L, new BigDecimal("7.50")));
+        assertThat(receiptAnalyticsService.getTopProducts(ProductRanking.QUANTITY, 100, from, to))
+                .extracting(ProductSalesDTO::getProductName, ProductSalesDTO::getQuantity, ProductSalesDTO::getRevenue)
+                .contains(tuple("Rollup Tea", 3L, new BigDecimal("6.00")), tuple("Rollup Milk", 1L, new BigDecimal("1.50")));
+    }
+
+    private static Receipt receipt(String branch, ReceiptItem... items) {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName(COMPANY);
+        receipt.setBranch(branch);
+        Money subTotal = Money.ZERO;
+        for (ReceiptItem item : items) {
+            receipt.addItem(item);
+            subTotal = subTotal.plus(item.getPrice());
+        }
+        receipt.setSubTotal(subTotal);
+        return receipt;
+    }
+
+    private static ReceiptItem item(String name, int quantity, long priceMinor) {
+        ReceiptItem item = new ReceiptItem();
+        item.setProductName(name);
+        item.setQuantity(quantity);
+        item.setPrice(Money.ofMinor(priceMinor));
+        return item;
+    }
+}
@@ -0,0 +1,141 @@
+package com.srllc.aws_textract.domain.service.impl;
+
+import com.srllc.aws_textract.domain.dao.ReceiptDAO;
+import com.srllc.aws_textract.domain.dto.ReceiptDTO;
+import com.srllc.aws_textract.domain.dto.ReceiptPageDTO;
+import com.srllc.aws_textract.domain.entity.Receipt;
+import com.srllc.aws_textract.domain.entity.ReceiptItem;
+import com.srllc.aws_textract.domain.exception.ReceiptNotFoundException;
+import com.srllc.aws_textract.domain.exception.TextractException;
+import com.srllc.aws_textract.domain.record.Money;
+import com.srllc.aws_textract.domain.record.ReceiptSearchCriteria;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.rekognition.RekognitionClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
+import software.amazon.awssdk.services.textract.model.InvalidParameterException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "upload.spool.dir=${java.io.tmpdir}/textract-service-test-uploads",
+        "upload.spool.mmap-threshold=16"
+})
+class TextractServiceImplTest {
+
+    @MockitoBean
+    private TextractClient textractClient;
+
+    @MockitoBean
+    private RekognitionClient rekognitionClient;
+
+    @Autowired
+    private TextractServiceImpl textractService;
+
+    @Autowired
+    private ReceiptDAO receiptDAO;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void receiptsArePagedByCursorWithItemsLoadedInOneQuery() {
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Receipt receipt = new Receipt();
+            receipt.setCompanyName("Keyset Store");
+            receipt.setSubTotal(Money.ofMinor(1000L * (i + 1)));
+            for (int j = 0; j < 3; j++) {
+                ReceiptItem item = new ReceiptItem();
+                item.setProductName("Item " + j);
+                item.setQuantity(1);
+                item.setPrice(Money.ofMinor(100));
+                receipt.addItem(item);
+            }
+            receipts.add(receipt);
+        }
+        receiptDAO.saveAll(receipts);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        ReceiptSearchCriteria criteria = new ReceiptSearchCriteria("Keyset Store", null, new BigDecimal("20.00"), null);
+        ReceiptPageDTO first = textractService.getReceipts(criteria, null, 2);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(first.getReceipts()).extracting(ReceiptDTO::getSubTotal).containsExactly(new BigDecimal("20.00"), new BigDecimal("30.00"));
+        assertThat(first.getReceipts()).allSatisfy(receipt -> assertThat(receipt.getItems()).hasSize(3));
+        assertThat(first.isHasMore()).isTrue();
+
+        ReceiptPageDTO second = textractService.getReceipts(criteria, first.getNextCursor(), 2);
+
+        assertThat(second.getReceipts()).extracting(ReceiptDTO::getSubTotal).containsExactly(new BigDecimal("40.00"), new BigDecimal("50.00"));
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void receiptsByIdAreServedFromTheCacheAfterTheFirstRead() {
+        Receipt receipt = new Receipt();
+        receipt.setCompanyName("Cached Store");
+        receipt.setSubTotal(Money.ofMinor(1250));
+        Long id = receiptDAO.save(receipt).getId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        ReceiptDTO first = textractService.getReceiptById(id);
+        long statementsForFirstRead = statistics.getPrepareStatementCount();
+        ReceiptDTO second = textractService.getReceiptById(id);
+
+        assertThat(statementsForFirstRead).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsForFirstRead);
+        assertThat(second).isSameAs(first);
+        assertThat(second.getCompanyName()).isEqualTo("Cached Store");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "receipts").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+        assertThatThrownBy(() -> textractService.getReceiptById(-1L)).isInstanceOf(ReceiptNotFoundException.class);
+    }
+
+    @Test
+    void theUploadIsReleasedWhenTheAsyncExtractFailsBeforeReturningAFuture() throws IOException {
+        when(textractClient.detectDocumentText(any(DetectDocumentTextRequest.class)))
+                .thenThrow(InvalidParameterException.builder().message("Unsupported document").build());
+        MockMultipartFile file = new MockMultipartFile("file", "unsupported.jpg", "image/jpeg",
+                "an image larger than the mmap threshold".getBytes());
+
+        assertThatThrownBy(() -> textractService.extractTextFromImageAsync(file))
+                .isInstanceOf(TextractException.class);
+        assertThat(spoolFiles()).isZero();
+    }
+
+    private long spoolFiles() throws IOException {
+        Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "textract-service-test-uploads");
+        try (var files = Files.list(spoolDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("upload-")).count();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.srllc.aws_textract.domain.upload;
+
+import com.srllc.aws_textract.domain.aws.AwsPayloads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadSpoolerTest {
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void largeUploadsAreMappedAndDeletedOnClose() throws IOException {
+        UploadSpooler spooler = new UploadSpooler(meterRegistry, spoolDirectory, 1024);
+        byte[] content = new byte[256 * 1024];
+        new Random(7).nextBytes(content);
+
+        try (SpooledUpload upload = spooler.spool(new MockMultipartFile("file", "receipt.jpg", "image/jpeg", content))) {
+            ByteBuffer mapped = upload.content();
+            assertThat(mapped.isDirect()).isTrue();
+            assertThat(upload.size()).isEqualTo(content.length);
+            assertThat(mapped).isEqualTo(ByteBuffer.wrap(content));
+            assertThat(AwsPayloads.toSdkBytes(upload.content()).asByteArray()).isEqualTo(content);
+            assertThat(listSpoolFiles()).hasSize(1);
+        }
+
+        assertThat(listSpoolFiles()).isEmpty();
+        assertThat(meterRegistry.counter("upload.spool.bytes", "mode", "mapped").count()).isEqualTo(content.length);
+    }
+
+    @Test
+    void smallUploadsStayOnTheHeapAndReachTheSdkWithoutACopy() throws IOException {
+        UploadSpooler spooler = new UploadSpooler(meterRegistry, spoolDirectory, 1024);
+        byte[] content = "tiny receipt".getBytes();
+
+        try (SpooledUpload upload = spooler.spool(new MockMultipartFile("file", "receipt.jpg", "image/jpeg", content))) {
+            assertThat(upload.content().isDirect()).isFalse();
+            assertThat(listSpoolFiles()).isEmpty();
+            byte[] sent = AwsPayloads.toSdkBytes(upload.content()).asByteArrayUnsafe();
+            assertThat(sent).isSameAs(upload.content().array());
+        }
+    }
+
+    private List<Path> listSpoolFiles() throws IOException {
+        try (var files = Files.list(spoolDirectory)) {
+            return files.toList();
+        }
+    }
+}